@@ -0,0 +1,329 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019-2020 Andrew J. Strelsky
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ */
+// Analyzes every program within a project folder, running several programs concurrently.
+// Shared libraries are analyzed before the programs which import them and the results
+// may be inserted into an open project archive so that they are available to dependents.
+//@category CppClassAnalyzer
+//@author Andrew J. Strelsky
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ghidra.app.plugin.core.analysis.AutoAnalysisManager;
+import ghidra.app.services.ProgramManager;
+import ghidra.framework.model.DomainFile;
+import ghidra.framework.model.DomainFolder;
+import ghidra.framework.options.Options;
+import ghidra.framework.plugintool.PluginTool;
+import ghidra.program.model.listing.Program;
+import ghidra.util.Swing;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.analysis.AbstractCppClassAnalyzer;
+import cppclassanalyzer.analysis.gcc.GccCppClassAnalyzer;
+import cppclassanalyzer.analysis.vs.VsCppClassAnalyzer;
+import cppclassanalyzer.data.ClassTypeInfoManager;
+import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.manager.ProjectClassTypeInfoManager;
+import cppclassanalyzer.script.CppClassAnalyzerGhidraScript;
+
+public class BatchClassAnalysis extends CppClassAnalyzerGhidraScript {
+
+	private static final String NO_ARCHIVE = "None";
+	private static final String TRANSACTION_NAME = "Batch C++ Class Analysis";
+
+	private ProjectClassTypeInfoManager archive;
+	private List<AbstractCppClassAnalyzer> analyzers;
+	private int decompilers;
+
+	@Override
+	public void run() throws Exception {
+		if (state.getTool() == null) {
+			printerr("This script requires a tool with the ClassTypeInfoManagerPlugin");
+			return;
+		}
+		DomainFolder folder = askProjectFolder("Select the folder to analyze");
+		int budget = askInt("Decompiler Budget",
+			"The maximum number of decompiler processes to run at once");
+		decompilers = Math.max(1, askInt("Decompilers Per Program",
+			"The value of the " + AbstractCppClassAnalyzer.OPTION_NAME_CONSTRUCTOR_THREADS
+			+ " option"));
+		archive = askArchive();
+		analyzers = List.of(new GccCppClassAnalyzer(), new VsCppClassAnalyzer());
+		List<ProgramJob> jobs = getJobs(folder);
+		if (jobs.isEmpty()) {
+			println("No programs found in " + folder.getPathname());
+			return;
+		}
+		int cores = Runtime.getRuntime().availableProcessors();
+		int threads = Math.max(1, Math.min(cores, budget / decompilers));
+		println(String.format("Analyzing %d programs with %d threads", jobs.size(), threads));
+		schedule(jobs, threads);
+		if (archive != null) {
+			archive.save();
+		}
+		printSummary(jobs);
+	}
+
+	private ProjectClassTypeInfoManager askArchive() throws CancelledException {
+		List<ProjectClassTypeInfoManager> projects = new ArrayList<>();
+		for (ClassTypeInfoManager manager : getService().getManagers()) {
+			if (manager instanceof ProjectClassTypeInfoManager) {
+				projects.add((ProjectClassTypeInfoManager) manager);
+			}
+		}
+		if (projects.isEmpty()) {
+			return null;
+		}
+		List<String> choices = new ArrayList<>(projects.size() + 1);
+		choices.add(NO_ARCHIVE);
+		projects.forEach(p -> choices.add(p.getName()));
+		String choice = askChoice("Project Archive",
+			"Select the project archive to insert the results into", choices, NO_ARCHIVE);
+		return projects.stream()
+			.filter(p -> p.getName().equals(choice))
+			.findFirst()
+			.orElse(null);
+	}
+
+	private List<ProgramJob> getJobs(DomainFolder folder) throws Exception {
+		List<DomainFile> files = new ArrayList<>();
+		collectPrograms(folder, files);
+		monitor.initialize(files.size());
+		monitor.setMessage("Reading program imports");
+		// programs in different folders may share a name so the jobs are keyed by path
+		Map<String, ProgramJob> jobs = new LinkedHashMap<>(files.size());
+		Map<String, List<ProgramJob>> libraries = new HashMap<>(files.size());
+		for (DomainFile file : files) {
+			monitor.checkCanceled();
+			Program program = (Program) file.getImmutableDomainObject(
+				this, DomainFile.DEFAULT_VERSION, monitor);
+			try {
+				String[] libs = program.getExternalManager().getExternalLibraryNames();
+				ProgramJob job = new ProgramJob(file, libs);
+				jobs.put(file.getPathname(), job);
+				libraries.computeIfAbsent(file.getName(), k -> new ArrayList<>()).add(job);
+			} finally {
+				program.release(this);
+			}
+			monitor.incrementProgress(1);
+		}
+		for (ProgramJob job : jobs.values()) {
+			Set<ProgramJob> dependencies = new HashSet<>();
+			for (String lib : job.libraries) {
+				// an import cannot be matched to one of several same named libraries
+				// so the program waits for all of them
+				for (ProgramJob library : libraries.getOrDefault(lib, Collections.emptyList())) {
+					if (library != job && dependencies.add(library)) {
+						library.dependents.add(job);
+						job.pending.incrementAndGet();
+					}
+				}
+			}
+		}
+		breakCycles(jobs.values());
+		return new ArrayList<>(jobs.values());
+	}
+
+	private static void collectPrograms(DomainFolder folder, List<DomainFile> files) {
+		for (DomainFile file : folder.getFiles()) {
+			if (Program.class.isAssignableFrom(file.getDomainObjectClass())) {
+				files.add(file);
+			}
+		}
+		for (DomainFolder child : folder.getFolders()) {
+			collectPrograms(child, files);
+		}
+	}
+
+	private static void breakCycles(Collection<ProgramJob> jobs) {
+		// libraries which import each other are analyzed without waiting for one another
+		Map<ProgramJob, Integer> remaining = new HashMap<>(jobs.size());
+		Deque<ProgramJob> ready = new ArrayDeque<>();
+		for (ProgramJob job : jobs) {
+			remaining.put(job, job.pending.get());
+			if (job.pending.get() == 0) {
+				ready.add(job);
+			}
+		}
+		while (!ready.isEmpty()) {
+			ProgramJob job = ready.remove();
+			remaining.remove(job);
+			for (ProgramJob dependent : job.dependents) {
+				if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		Set<ProgramJob> cyclic = remaining.keySet();
+		for (ProgramJob job : cyclic) {
+			for (Iterator<ProgramJob> it = job.dependents.iterator(); it.hasNext();) {
+				ProgramJob dependent = it.next();
+				if (cyclic.contains(dependent)) {
+					it.remove();
+					dependent.pending.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	private void schedule(List<ProgramJob> jobs, int threads) throws Exception {
+		// each worker pushes the dependents it releases onto its own queue
+		// where idle workers may steal them
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		CountDownLatch done = new CountDownLatch(jobs.size());
+		AtomicInteger completed = new AtomicInteger();
+		monitor.initialize(jobs.size());
+		monitor.setMessage("Analyzing programs");
+		try {
+			for (ProgramJob job : jobs) {
+				if (job.pending.get() == 0) {
+					pool.execute(() -> runJob(pool, job, done, completed));
+				}
+			}
+			while (!done.await(1, TimeUnit.SECONDS)) {
+				monitor.checkCanceled();
+				monitor.setProgress(completed.get());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void runJob(ForkJoinPool pool, ProgramJob job, CountDownLatch done,
+			AtomicInteger completed) {
+		try {
+			if (!monitor.isCancelled()) {
+				analyze(job, new CancelOnlyWrappingTaskMonitor(monitor));
+			}
+		} catch (Exception e) {
+			job.status = e.getClass().getSimpleName() + ": " + e.getMessage();
+			printerr("Failed to analyze " + job.file.getPathname() + ": " + e.getMessage());
+		} finally {
+			for (ProgramJob dependent : job.dependents) {
+				if (dependent.pending.decrementAndGet() == 0) {
+					pool.execute(() -> runJob(pool, dependent, done, completed));
+				}
+			}
+			completed.incrementAndGet();
+			done.countDown();
+		}
+	}
+
+	private void analyze(ProgramJob job, TaskMonitor jobMonitor) throws Exception {
+		PluginTool tool = state.getTool();
+		ProgramManager programManager = tool.getService(ProgramManager.class);
+		long start = System.nanoTime();
+		Program program = (Program) job.file.getDomainObject(this, false, false, jobMonitor);
+		try {
+			// the analyzers locate the manager through the tool's open programs
+			Swing.runNow(() -> programManager.openProgram(program, ProgramManager.OPEN_HIDDEN));
+			job.openTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			AutoAnalysisManager analysisManager = AutoAnalysisManager.getAnalysisManager(program);
+			int id = program.startTransaction(TRANSACTION_NAME);
+			boolean success = false;
+			try {
+				setConstructorThreads(program);
+				analysisManager.initializeOptions();
+				analysisManager.reAnalyzeAll(null);
+				analysisManager.startAnalysis(jobMonitor);
+				success = true;
+			} finally {
+				program.endTransaction(id, success);
+			}
+			job.analysisTime = System.nanoTime() - start;
+			ProgramClassTypeInfoManager manager = getService().getManager(program);
+			if (manager != null) {
+				job.types = manager.getTypeCount();
+				job.vtables = manager.getVtableCount();
+				if (archive != null) {
+					start = System.nanoTime();
+					synchronized (archive) {
+						archive.insert(manager, jobMonitor);
+					}
+					job.archiveTime = System.nanoTime() - start;
+				}
+			}
+			program.save(TRANSACTION_NAME, jobMonitor);
+			job.status = "analyzed";
+		} finally {
+			Swing.runNow(() -> programManager.closeProgram(program, true));
+			program.release(this);
+		}
+	}
+
+	private void setConstructorThreads(Program program) {
+		Options options = program.getOptions(Program.ANALYSIS_PROPERTIES);
+		for (AbstractCppClassAnalyzer analyzer : analyzers) {
+			if (analyzer.canAnalyze(program)) {
+				options.setInt(analyzer.getName() + Options.DELIMITER
+					+ AbstractCppClassAnalyzer.OPTION_NAME_CONSTRUCTOR_THREADS, decompilers);
+			}
+		}
+	}
+
+	private void printSummary(List<ProgramJob> jobs) {
+		String format = "%-60s %10s %10s %10s %8s %8s  %s";
+		println(String.format(format,
+			"Program", "Open (s)", "Analyze (s)", "Archive (s)", "Classes", "Vtables", "Status"));
+		long total = 0;
+		for (ProgramJob job : jobs) {
+			total += job.analysisTime;
+			println(String.format(format, job.file.getPathname(),
+				getSeconds(job.openTime), getSeconds(job.analysisTime),
+				getSeconds(job.archiveTime), job.types, job.vtables, job.status));
+		}
+		println("Total analysis time: " + getSeconds(total) + "s");
+	}
+
+	private static String getSeconds(long nanos) {
+		return String.format("%.2f", nanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	private static final class ProgramJob {
+
+		private final DomainFile file;
+		private final String[] libraries;
+		private final List<ProgramJob> dependents = new ArrayList<>();
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private volatile String status = "skipped";
+		private volatile long openTime;
+		private volatile long analysisTime;
+		private volatile long archiveTime;
+		private volatile int types;
+		private volatile int vtables;
+
+		ProgramJob(DomainFile file, String[] libraries) {
+			this.file = file;
+			this.libraries = libraries;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package cppclassanalyzer.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.*;
+
+import ghidra.GhidraTestApplicationLayout;
+import ghidra.framework.Application;
+import ghidra.framework.ApplicationConfiguration;
+import ghidra.framework.plugintool.PluginTool;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.listing.Program;
+import ghidra.test.TestEnv;
+import generic.test.AbstractGTest;
+
+import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.plugin.ClassTypeInfoManagerPlugin;
+import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+
+/**
+ * Base state for the benchmarks which require a program
+ * containing the requested number of synthetic classes.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public abstract class AbstractProgramBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int classCount;
+
+	protected ScaledTypeInfoProgramBuilder builder;
+	protected Program program;
+	protected ProgramClassTypeInfoManager manager;
+
+	private TestEnv env;
+	private int id;
+	private Address[] addresses;
+
+	private static synchronized void initializeApplication() throws Exception {
+		if (!Application.isInitialized()) {
+			File dir = new File(AbstractGTest.getTestDirectoryPath());
+			Application.initializeApplication(
+				new GhidraTestApplicationLayout(dir), new ApplicationConfiguration());
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUpProgram() throws Exception {
+		initializeApplication();
+		env = new TestEnv();
+		builder = new ScaledTypeInfoProgramBuilder(classCount);
+		program = builder.getProgram();
+		PluginTool tool = env.launchDefaultTool(program);
+		tool.addPlugin(ClassTypeInfoManagerPlugin.class.getName());
+		builder.init();
+		manager = CppClassAnalyzerUtils.getManager(program);
+		id = program.startTransaction("Benchmark");
+	}
+
+	/**
+	 * Gets the addresses of the synthetic typeinfo
+	 * @return the typeinfo addresses
+	 */
+	protected final Address[] getTypeAddresses() {
+		if (addresses == null) {
+			addresses = new Address[classCount];
+			for (int i = 0; i < classCount; i++) {
+				addresses[i] = builder.getTypeAddress(i);
+			}
+		}
+		return addresses;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownProgram() {
+		program.endTransaction(id, false);
+		builder.dispose();
+		env.dispose();
+	}
+}
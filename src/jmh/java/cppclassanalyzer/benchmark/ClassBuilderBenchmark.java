@@ -0,0 +1,38 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.cmd.data.rtti.gcc.GccCppClassBuilder;
+import ghidra.program.model.address.Address;
+
+/**
+ * Measures {@link GccCppClassBuilder#getDataType()} for every synthetic class
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ClassBuilderBenchmark extends AbstractProgramBenchmark {
+
+	private ClassTypeInfo[] types;
+
+	private ClassTypeInfo[] getTypes() {
+		if (types == null) {
+			Address[] addresses = getTypeAddresses();
+			types = new ClassTypeInfo[addresses.length];
+			for (int i = 0; i < addresses.length; i++) {
+				types[i] = manager.getType(addresses[i]);
+			}
+		}
+		return types;
+	}
+
+	@Benchmark
+	public void getDataType(Blackhole bh) {
+		for (ClassTypeInfo type : getTypes()) {
+			bh.consume(new GccCppClassBuilder(type).getDataType());
+		}
+	}
+}
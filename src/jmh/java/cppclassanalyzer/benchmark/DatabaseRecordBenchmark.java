@@ -0,0 +1,47 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.*;
+
+import cppclassanalyzer.database.record.ClassTypeInfoRecord;
+import cppclassanalyzer.database.schema.ClassTypeInfoSchema;
+import cppclassanalyzer.database.schema.fields.ClassTypeInfoSchemaFields;
+
+/**
+ * Measures the encoding and decoding of the long arrays stored in a record
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DatabaseRecordBenchmark {
+
+	private static final ClassTypeInfoSchemaFields FIELD = ClassTypeInfoSchemaFields.MODEL_DATA;
+
+	@Param({ "4", "64", "1024" })
+	public int length;
+
+	private ClassTypeInfoRecord record;
+	private long[] values;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		record = ClassTypeInfoSchema.SCHEMA.getNewRecord(0);
+		values = LongStream.range(0, length).map(i -> 0x00100000L + i * 0x18).toArray();
+		record.setLongArray(FIELD, values);
+	}
+
+	@Benchmark
+	public long[] getLongArray() {
+		return record.getLongArray(FIELD);
+	}
+
+	@Benchmark
+	public void setLongArray() {
+		record.setLongArray(FIELD, values);
+	}
+}
@@ -0,0 +1,33 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.cmd.data.rtti.gcc.factory.TypeInfoFactory;
+import ghidra.program.model.address.Address;
+
+/**
+ * Measures fetching the resolved types through the record worker
+ * @see ResolveBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecordWorkerBenchmark extends AbstractProgramBenchmark {
+
+	@Setup(Level.Trial)
+	public void resolveTypes() {
+		for (Address address : getTypeAddresses()) {
+			manager.resolve((ClassTypeInfo) TypeInfoFactory.getTypeInfo(program, address));
+		}
+	}
+
+	@Benchmark
+	public void getType(Blackhole bh) {
+		for (Address address : getTypeAddresses()) {
+			bh.consume(manager.getType(address));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.cmd.data.rtti.gcc.factory.TypeInfoFactory;
+import ghidra.program.model.address.Address;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.data.manager.ClassTypeInfoManagerDB;
+
+/**
+ * Measures resolving every synthetic type through the record worker
+ * into a manager which does not contain any of them
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResolveBenchmark extends AbstractProgramBenchmark {
+
+	private ClassTypeInfo[] types;
+
+	@Setup(Level.Trial)
+	public void readTypes() {
+		Address[] addresses = getTypeAddresses();
+		types = new ClassTypeInfo[addresses.length];
+		for (int i = 0; i < addresses.length; i++) {
+			types[i] = (ClassTypeInfo) TypeInfoFactory.getTypeInfo(program, addresses[i]);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void clearTypes() throws Exception {
+		((ClassTypeInfoManagerDB) manager).deleteAddressRange(
+			program.getMinAddress(), program.getMaxAddress(), TaskMonitor.DUMMY);
+	}
+
+	@Benchmark
+	public void resolve(Blackhole bh) {
+		for (ClassTypeInfo type : types) {
+			bh.consume(manager.resolve(type));
+		}
+	}
+}
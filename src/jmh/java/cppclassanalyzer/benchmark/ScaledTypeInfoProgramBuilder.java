@@ -0,0 +1,123 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ghidra.app.cmd.data.rtti.gcc.builder.X86TypeInfoProgramBuilder;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSet;
+
+/**
+ * An {@link X86TypeInfoProgramBuilder} with additional synthetic classes.
+ * The synthetic classes form single inheritance chains of up to 16 classes
+ * and are laid out the same way as the fixture's __class_type_info and
+ * __si_class_type_info structures.
+ */
+public final class ScaledTypeInfoProgramBuilder extends X86TypeInfoProgramBuilder {
+
+	private static final long TYPE_BASE = 0x00200000L;
+	private static final long NAME_BASE = 0x00600000L;
+	private static final int TYPE_STRIDE = 24;
+	private static final int NAME_STRIDE = 32;
+	private static final int CHAIN_LENGTH = 16;
+
+	// the vtable pointers used by the fixture
+	private static final long CLASS_VPTR = 0x00120098L;
+	private static final long SI_CLASS_VPTR = 0x00120158L;
+	private static final String CLASS_VTABLE = "_ZTVN10__cxxabiv117__class_type_infoE";
+	private static final String SI_CLASS_VTABLE = "_ZTVN10__cxxabiv120__si_class_type_infoE";
+
+	private final int classCount;
+	private final Map<Long, String> typeMap;
+	private final Map<Long, String> nameMap;
+	private final Map<Long, String> relocationMap;
+
+	/**
+	 * Constructs a new ScaledTypeInfoProgramBuilder
+	 * @param classCount the number of synthetic classes to add
+	 * @throws Exception if the program cannot be created
+	 */
+	public ScaledTypeInfoProgramBuilder(int classCount) throws Exception {
+		super();
+		this.classCount = classCount;
+		this.typeMap = new HashMap<>(super.getTypeInfoMap());
+		this.nameMap = new HashMap<>(super.getTypeNameMap());
+		this.relocationMap = new HashMap<>(super.getRelocationMap());
+		for (int i = 0; i < classCount; i++) {
+			addClass(i);
+		}
+	}
+
+	private static long getTypeOffset(int index) {
+		return TYPE_BASE + (long) index * TYPE_STRIDE;
+	}
+
+	private static long getNameOffset(int index) {
+		return NAME_BASE + (long) index * NAME_STRIDE;
+	}
+
+	private static String toBytes(long value) {
+		return String.format("%016x", Long.reverseBytes(value));
+	}
+
+	private void addClass(int index) {
+		long offset = getTypeOffset(index);
+		long nameOffset = getNameOffset(index);
+		nameMap.put(nameOffset, String.format("N5bench8C%07dE", index));
+		if (index % CHAIN_LENGTH == 0) {
+			typeMap.put(offset, toBytes(CLASS_VPTR) + toBytes(nameOffset));
+			relocationMap.put(offset, CLASS_VTABLE);
+		} else {
+			long base = getTypeOffset(index - 1);
+			typeMap.put(offset, toBytes(SI_CLASS_VPTR) + toBytes(nameOffset) + toBytes(base));
+			relocationMap.put(offset, SI_CLASS_VTABLE);
+		}
+	}
+
+	/**
+	 * Gets the number of synthetic classes
+	 * @return the number of synthetic classes
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Gets the address of the synthetic typeinfo
+	 * @param index the index of the synthetic class
+	 * @return the typeinfo address
+	 */
+	public Address getTypeAddress(int index) {
+		return addr(getTypeOffset(index));
+	}
+
+	/**
+	 * Gets the addresses containing the synthetic typeinfo
+	 * @return the synthetic typeinfo addresses
+	 */
+	public AddressSet getSyntheticTypeAddresses() {
+		return new AddressSet(addr(TYPE_BASE), addr(getTypeOffset(classCount) - 1));
+	}
+
+	@Override
+	protected Map<Long, String> getTypeInfoMap() {
+		return typeMap;
+	}
+
+	@Override
+	protected Map<Long, String> getTypeNameMap() {
+		return nameMap;
+	}
+
+	@Override
+	protected Map<Long, String> getRelocationMap() {
+		return relocationMap;
+	}
+
+	@Override
+	protected void setupMemory() {
+		super.setupMemory();
+		createMemory(".data.rel.ro.bench", Long.toHexString(TYPE_BASE), classCount * TYPE_STRIDE);
+		createMemory(".rodata.bench", Long.toHexString(NAME_BASE), classCount * NAME_STRIDE);
+	}
+}
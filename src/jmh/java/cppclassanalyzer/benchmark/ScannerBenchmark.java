@@ -0,0 +1,31 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import ghidra.app.util.importer.MessageLog;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.data.manager.ClassTypeInfoManagerDB;
+import cppclassanalyzer.scanner.RttiScanner;
+
+/**
+ * Measures a full {@link RttiScanner#scan} of a program whose types have not been resolved
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScannerBenchmark extends AbstractProgramBenchmark {
+
+	@Setup(Level.Invocation)
+	public void clearTypes() throws Exception {
+		((ClassTypeInfoManagerDB) manager).deleteAddressRange(
+			program.getMinAddress(), program.getMaxAddress(), TaskMonitor.DUMMY);
+	}
+
+	@Benchmark
+	public boolean scan() throws Exception {
+		RttiScanner scanner = RttiScanner.getScanner(program);
+		return scanner.scan(new MessageLog(), TaskMonitor.DUMMY);
+	}
+}
@@ -0,0 +1,24 @@
+package cppclassanalyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ghidra.app.cmd.data.rtti.gcc.factory.TypeInfoFactory;
+import ghidra.program.model.address.Address;
+
+/**
+ * Measures {@link TypeInfoFactory#getTypeInfo} for every synthetic typeinfo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TypeInfoFactoryBenchmark extends AbstractProgramBenchmark {
+
+	@Benchmark
+	public void getTypeInfo(Blackhole bh) {
+		for (Address address : getTypeAddresses()) {
+			bh.consume(TypeInfoFactory.getTypeInfo(program, address));
+		}
+	}
+}
@@ -1,5 +1,17 @@
 package cppclassanalyzer.analysis;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.app.cmd.data.rtti.gcc.TypeInfoUtils;
@@ -17,12 +29,18 @@ import ghidra.util.exception.*;
 import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.analysis.cmd.AbstractConstructorAnalysisCmd;
+import cppclassanalyzer.analysis.cmd.AbstractDecompilerBasedConstructorAnalysisCmd;
+import cppclassanalyzer.analysis.cmd.AbstractDecompilerBasedConstructorAnalysisCmd.CandidateSnapshot;
 import cppclassanalyzer.cmd.ApplyVtableDefinitionsBackgroundCmd;
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
 import cppclassanalyzer.data.typeinfo.AbstractClassTypeInfoDB;
 import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
+import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.data.vtable.ArchivedVtable;
+import cppclassanalyzer.decompiler.DecompilerAPI;
+import cppclassanalyzer.decompiler.DecompilerAPIPool;
 import cppclassanalyzer.service.ClassTypeInfoManagerService;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
 
 public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
@@ -49,15 +67,51 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 		"Set timeout in seconds for analyzer decompiler calls.";
 	private static final int OPTION_DEFAULT_DECOMPILER_TIMEOUT_SECS = 30;
 
+	public static final String OPTION_NAME_CONSTRUCTOR_THREADS = "Constructor Analysis Threads";
+	private static final String OPTION_DESCRIPTION_CONSTRUCTOR_THREADS =
+		"The number of decompilers to run concurrently when locating constructors.\n" +
+		"Each decompiler is a separate process. A value of 1 analyzes serially.";
+	private static final int OPTION_DEFAULT_CONSTRUCTOR_THREADS = 1;
+
+	private static final String OPTION_NAME_LAYOUT_THREADS = "Class Layout Threads";
+	private static final String OPTION_DESCRIPTION_LAYOUT_THREADS =
+		"The number of threads used to read the user defined fields of the classes\n" +
+		"when building their structures. A value of 1 reads them serially.";
+	private static final int OPTION_DEFAULT_LAYOUT_THREADS = 1;
+
+	private static final String OPTION_NAME_INCREMENTAL = "Incremental Analysis";
+	private static final boolean OPTION_DEFAULT_INCREMENTAL = true;
+	private static final String OPTION_DESCRIPTION_INCREMENTAL =
+		"Turn on to only analyze the classes located within the added addresses,\n" +
+		"and the classes derived from them, when the program has already been analyzed.";
+
+	private static final String OPTION_NAME_METRICS = "Write Analysis Metrics";
+	private static final boolean OPTION_DEFAULT_METRICS = false;
+	private static final String OPTION_DESCRIPTION_METRICS =
+		"Turn on to write the phase timings and counts as json to the cppclassanalyzer\n" +
+		"directory of the project, or of the user settings when there is no project.";
+
+	// the number of pending results per decompiler before the analysis thread commits
+	private static final int CONSTRUCTOR_RESULTS_PER_THREAD = 4;
+
 	private boolean constructorAnalysisOption;
 	private boolean useArchivedData;
 	private int decompilerTimeout;
+	private int constructorThreads;
+	private int layoutThreads;
+	private boolean incrementalOption;
+	private boolean metricsOption;
 
 	protected Program program;
 	protected TaskMonitor monitor;
 
 	private ProgramClassTypeInfoManager manager;
 
+	// the classes to analyze or null to analyze every class
+	private DirtyTypeClosure dirty;
+
+	private AnalysisMetrics metrics;
+
 	protected AbstractConstructorAnalysisCmd constructorAnalyzer;
 
 	protected MessageLog log;
@@ -104,8 +158,23 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 			if (manager == null) {
 				return false;
 			}
-			repairInheritance();
-			analyzeVftables();
+			metrics = AnalysisMetrics.getMetrics(program);
+			if (incrementalOption && DirtyTypeClosure.isIncremental(manager, set)) {
+				dirty = DirtyTypeClosure.compute(manager, set, monitor);
+			}
+			try (AnalysisMetrics.Phase phase = metrics.startPhase("repair inheritance")) {
+				repairInheritance();
+			}
+			try (AnalysisMetrics.Phase phase = metrics.startPhase("analyze vftables")) {
+				analyzeVftables();
+			}
+			if (constructorAnalysisOption) {
+				// timed separately so the vftable phase does not include it
+				try (AnalysisMetrics.Phase phase = metrics.startPhase("analyze constructors")) {
+					analyzeConstructors();
+				}
+			}
+			publishMetrics();
 			return true;
 		} catch (CancelledException e) {
 			throw e;
@@ -113,21 +182,46 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 			e.printStackTrace();
 			log.appendException(e);
 			return false;
+		} finally {
+			dirty = null;
 		}
 	}
 
 	@Override
 	public void analysisEnded(Program program) {
+		AnalysisMetrics.getMetrics(program).reset();
 		manager = null;
 		constructorAnalyzer = null;
+		metrics = null;
 		super.analysisEnded(program);
 	}
 
+	private void publishMetrics() {
+		metrics.publish(log);
+		if (metricsOption) {
+			File file = AnalysisMetrics.getMetricsFile(program);
+			try {
+				metrics.write(file);
+			} catch (IOException e) {
+				log.appendMsg("Ghidra-Cpp-Class-Analyzer",
+					"Unable to write metrics to " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
 	private void repairInheritance() throws CancelledException, InvalidDataTypeException {
 		ClassTypeInfoManagerService service = getService();
-		monitor.initialize(manager.getTypeCount());
+		Iterable<ClassTypeInfoDB> types = manager.getTypes();
+		int count = manager.getTypeCount();
+		if (dirty != null) {
+			List<ClassTypeInfoDB> dirtyTypes = dirty.getTypes();
+			types = dirtyTypes;
+			count = dirtyTypes.size();
+		}
+		monitor.initialize(count);
 		monitor.setMessage("Fixing Class Inheritance...");
-		for (ClassTypeInfo type : manager.getTypes()) {
+		List<ClassTypeInfoDB> pending = new ArrayList<>(count);
+		for (ClassTypeInfoDB type : types) {
 			monitor.checkCanceled();
 			if (type.getName().contains(TypeInfoModel.STRUCTURE_NAME)) {
 				// this works for both vs and gcc
@@ -143,21 +237,25 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 					continue;
 				}
 			}
-			// this takes care of everything
-			try {
-				type.getClassDataType();
-			} catch (Exception e) {
-				log.appendException(e);
-			}
-			monitor.incrementProgress(1);
+			pending.add(type);
 		}
+		// this takes care of everything
+		ClassLayoutBatch batch = new ClassLayoutBatch(manager, layoutThreads);
+		batch.build(pending, monitor, log);
 	}
 
 	protected void analyzeVftables() throws Exception {
 		ClassTypeInfoManagerService service = getService();
-		monitor.initialize(manager.getVtableCount());
+		Iterable<Vtable> vtables = manager.getVtables();
+		int count = manager.getVtableCount();
+		if (dirty != null) {
+			List<Vtable> dirtyVtables = dirty.getVtables();
+			vtables = dirtyVtables;
+			count = dirtyVtables.size();
+		}
+		monitor.initialize(count);
 		monitor.setMessage("Analyzing Vftables");
-		for (Vtable vtable : manager.getVtables()) {
+		for (Vtable vtable : vtables) {
 			monitor.checkCanceled();
 			if (useArchivedData) {
 				ArchivedVtable data =
@@ -175,9 +273,6 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 			analyzeVftable(vtable.getTypeInfo());
 			monitor.incrementProgress(1);
 		}
-		if (constructorAnalysisOption) {
-			analyzeConstructors();
-		}
 	}
 
 	protected boolean shouldAnalyzeConstructors() {
@@ -189,16 +284,102 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 	}
 
 	protected void analyzeConstructors() throws Exception {
-		monitor.initialize(manager.getVtableCount());
+		Iterable<Vtable> vtables = manager.getVtableIterable(true);
+		int count = manager.getVtableCount();
+		if (dirty != null) {
+			List<Vtable> dirtyVtables = dirty.getVtables();
+			// in the same reverse order as the full analysis
+			Collections.reverse(dirtyVtables);
+			vtables = dirtyVtables;
+			count = dirtyVtables.size();
+		}
+		monitor.initialize(count);
 		monitor.setMessage("Creating Constructors");
-		for (Vtable vtable : manager.getVtableIterable(true)) {
-			monitor.checkCanceled();
-			analyzeConstructor(vtable.getTypeInfo());
-			monitor.incrementProgress(1);
+		if (constructorThreads > 1
+				&& constructorAnalyzer instanceof AbstractDecompilerBasedConstructorAnalysisCmd) {
+			analyzeConstructorsConcurrently(
+				(AbstractDecompilerBasedConstructorAnalysisCmd) constructorAnalyzer, vtables);
+		} else {
+			for (Vtable vtable : vtables) {
+				monitor.checkCanceled();
+				analyzeConstructor(vtable.getTypeInfo());
+				monitor.incrementProgress(1);
+			}
 		}
 		clearCache();
 	}
 
+	/**
+	 * Decompiles the constructor candidates using a pool of decompilers while the
+	 * analysis thread remains the only one to read the class data and modify the program.
+	 * The vtable, parents, base offsets and candidate functions of each type are read on
+	 * the analysis thread and the workers only decompile them. Results are committed
+	 * in the same order as the serial analysis.
+	 * @param cmd the constructor analysis command
+	 * @param vtables the vtables of the types to analyze
+	 * @throws Exception if an exception occurs during analysis
+	 */
+	private void analyzeConstructorsConcurrently(AbstractDecompilerBasedConstructorAnalysisCmd cmd,
+			Iterable<Vtable> vtables) throws Exception {
+		int window = constructorThreads * CONSTRUCTOR_RESULTS_PER_THREAD;
+		Deque<PendingConstructorResult> results = new ArrayDeque<>(window);
+		ExecutorService executor = Executors.newFixedThreadPool(constructorThreads);
+		try (DecompilerAPIPool pool =
+			new DecompilerAPIPool(program, monitor, getTimeout(), constructorThreads)) {
+			for (Vtable vtable : vtables) {
+				monitor.checkCanceled();
+				ClassTypeInfo type = vtable.getTypeInfo();
+				CandidateSnapshot snapshot;
+				try {
+					snapshot = AbstractDecompilerBasedConstructorAnalysisCmd.prepareCandidates(
+						type, program, monitor);
+				} catch (RuntimeException e) {
+					log.appendMsg(getName(), "Failed to analyze constructors for "
+						+ type.getFullName() + ": " + e);
+					monitor.incrementProgress(1);
+					continue;
+				}
+				Future<?> future = executor.submit(() -> {
+					DecompilerAPI api = pool.acquire();
+					try {
+						AbstractDecompilerBasedConstructorAnalysisCmd.decompileCandidates(
+							snapshot, api, monitor);
+					} finally {
+						pool.release(api);
+					}
+					return null;
+				});
+				results.add(new PendingConstructorResult(snapshot, future));
+				if (results.size() >= window) {
+					commitConstructorResult(cmd, results.remove());
+				}
+			}
+			while (!results.isEmpty()) {
+				commitConstructorResult(cmd, results.remove());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void commitConstructorResult(AbstractDecompilerBasedConstructorAnalysisCmd cmd,
+			PendingConstructorResult result) throws Exception {
+		monitor.checkCanceled();
+		try {
+			result.future.get();
+			cmd.setCandidates(result.snapshot);
+			analyzeConstructor(result.snapshot.getType());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CancelledException) {
+				throw (CancelledException) cause;
+			}
+			log.appendMsg(getName(), "Failed to analyze constructors for "
+				+ result.snapshot.getType().getFullName() + ": " + cause);
+		}
+		monitor.incrementProgress(1);
+	}
+
 	private void clearCache() {
 		ClassTypeInfoManagerService service =
 			CppClassAnalyzerUtils.getTool(program).getService(ClassTypeInfoManagerService.class);
@@ -218,6 +399,16 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 		options.registerOption(OPTION_NAME_DECOMPILER_TIMEOUT_SECS,
 			OPTION_DEFAULT_DECOMPILER_TIMEOUT_SECS, null,
 			OPTION_DESCRIPTION_DECOMPILER_TIMEOUT_SECS);
+		options.registerOption(OPTION_NAME_CONSTRUCTOR_THREADS,
+			OPTION_DEFAULT_CONSTRUCTOR_THREADS, null,
+			OPTION_DESCRIPTION_CONSTRUCTOR_THREADS);
+		options.registerOption(OPTION_NAME_LAYOUT_THREADS,
+			OPTION_DEFAULT_LAYOUT_THREADS, null,
+			OPTION_DESCRIPTION_LAYOUT_THREADS);
+		options.registerOption(OPTION_NAME_INCREMENTAL, OPTION_DEFAULT_INCREMENTAL, null,
+			OPTION_DESCRIPTION_INCREMENTAL);
+		options.registerOption(OPTION_NAME_METRICS, OPTION_DEFAULT_METRICS, null,
+			OPTION_DESCRIPTION_METRICS);
 	}
 
 	@Override
@@ -229,6 +420,14 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 		decompilerTimeout =
 			options.getInt(OPTION_NAME_DECOMPILER_TIMEOUT_SECS,
 			OPTION_DEFAULT_DECOMPILER_TIMEOUT_SECS);
+		constructorThreads = Math.max(1,
+			options.getInt(OPTION_NAME_CONSTRUCTOR_THREADS, OPTION_DEFAULT_CONSTRUCTOR_THREADS));
+		layoutThreads = Math.max(1,
+			options.getInt(OPTION_NAME_LAYOUT_THREADS, OPTION_DEFAULT_LAYOUT_THREADS));
+		incrementalOption =
+			options.getBoolean(OPTION_NAME_INCREMENTAL, OPTION_DEFAULT_INCREMENTAL);
+		metricsOption =
+			options.getBoolean(OPTION_NAME_METRICS, OPTION_DEFAULT_METRICS);
 	}
 
 	private ClassTypeInfoManagerService getService() {
@@ -236,4 +435,15 @@ public abstract class AbstractCppClassAnalyzer extends AbstractAnalyzer {
 		return tool.getService(ClassTypeInfoManagerService.class);
 	}
 
+	private static final class PendingConstructorResult {
+
+		private final CandidateSnapshot snapshot;
+		private final Future<?> future;
+
+		PendingConstructorResult(CandidateSnapshot snapshot, Future<?> future) {
+			this.snapshot = snapshot;
+			this.future = future;
+		}
+	}
+
 }
@@ -0,0 +1,193 @@
+package cppclassanalyzer.analysis;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import ghidra.app.cmd.data.rtti.AbstractCppClassBuilder;
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.util.importer.MessageLog;
+import ghidra.program.model.data.Structure;
+import ghidra.program.model.listing.Program;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.manager.caches.InheritanceGraph;
+import cppclassanalyzer.data.typeinfo.AbstractClassTypeInfoDB;
+import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
+
+/**
+ * Builds the data types of a group of classes.
+ * <p>
+ * The classes are grouped into inheritance levels where each class is one level
+ * below its deepest parent. The base classes and offsets of the classes within a
+ * level are resolved on the calling thread since resolving a base class may write to
+ * the program. The user defined fields are then read concurrently and each layout is
+ * assembled in memory and applied to its structure. The super structures of the built classes are kept
+ * for the following levels so that each parent is only built once. All structures
+ * are applied within a single transaction which is rolled back if the batch is cancelled.
+ */
+public final class ClassLayoutBatch {
+
+	private final ProgramClassTypeInfoManager manager;
+	private final int threads;
+	private final Map<ClassTypeInfo, Structure> superStructs = new HashMap<>();
+
+	/**
+	 * Constructs a new ClassLayoutBatch
+	 * @param manager the program's manager
+	 * @param threads the number of threads used to read the classes
+	 */
+	public ClassLayoutBatch(ProgramClassTypeInfoManager manager, int threads) {
+		this.manager = manager;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Builds the data types of the classes which do not yet have one
+	 * @param types the classes
+	 * @param monitor the task monitor
+	 * @param log the message log for the classes which could not be built
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public void build(Collection<? extends ClassTypeInfoDB> types, TaskMonitor monitor,
+			MessageLog log) throws CancelledException {
+		Program program = manager.getProgram();
+		List<List<AbstractClassTypeInfoDB>> levels = getLevels(types, monitor, log);
+		int id = program.startTransaction("Building class data types");
+		ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		boolean success = false;
+		try {
+			for (List<AbstractClassTypeInfoDB> level : levels) {
+				monitor.checkCanceled();
+				buildLevel(level, executor, monitor, log);
+			}
+			success = true;
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			// a partially built batch is not committed
+			program.endTransaction(id, success);
+		}
+	}
+
+	private List<List<AbstractClassTypeInfoDB>> getLevels(
+			Collection<? extends ClassTypeInfoDB> types, TaskMonitor monitor, MessageLog log)
+			throws CancelledException {
+		InheritanceGraph graph = manager.getInheritanceGraph();
+		Map<Long, Integer> depths = new HashMap<>(graph.size());
+		for (long key : graph.getInheritanceOrder()) {
+			int depth = 0;
+			for (long parent : graph.getParents(key)) {
+				depth = Math.max(depth, depths.getOrDefault(parent, 0) + 1);
+			}
+			depths.put(key, depth);
+		}
+		List<List<AbstractClassTypeInfoDB>> levels = new ArrayList<>();
+		for (ClassTypeInfoDB type : types) {
+			monitor.checkCanceled();
+			if (!(type instanceof AbstractClassTypeInfoDB)) {
+				getClassDataType(type, log);
+				monitor.incrementProgress(1);
+				continue;
+			}
+			AbstractClassTypeInfoDB dbType = (AbstractClassTypeInfoDB) type;
+			if (!dbType.isClassDataTypeRequired()) {
+				// this only records the existing data type
+				getClassDataType(type, log);
+				monitor.incrementProgress(1);
+				continue;
+			}
+			int depth = depths.getOrDefault(type.getKey(), 0);
+			while (levels.size() <= depth) {
+				levels.add(new ArrayList<>());
+			}
+			levels.get(depth).add(dbType);
+		}
+		return levels;
+	}
+
+	private void buildLevel(List<AbstractClassTypeInfoDB> level, ExecutorService executor,
+			TaskMonitor monitor, MessageLog log) throws CancelledException {
+		// creating a builder may create the placeholder structure
+		List<AbstractCppClassBuilder> builders = new ArrayList<>(level.size());
+		for (AbstractClassTypeInfoDB type : level) {
+			monitor.checkCanceled();
+			AbstractCppClassBuilder builder = null;
+			try {
+				builder = type.getClassBuilder();
+				builder.setSuperStructures(superStructs);
+				builder.prepareBaseOffsets();
+			} catch (Exception e) {
+				log.appendException(e);
+				builder = null;
+			}
+			builders.add(builder);
+		}
+		prepare(builders, executor, monitor, log);
+		for (int i = 0; i < level.size(); i++) {
+			monitor.checkCanceled();
+			AbstractCppClassBuilder builder = builders.get(i);
+			if (builder != null) {
+				try {
+					level.get(i).refreshDataType(builder);
+				} catch (Exception e) {
+					log.appendException(e);
+				}
+			}
+			monitor.incrementProgress(1);
+		}
+	}
+
+	private void prepare(List<AbstractCppClassBuilder> builders, ExecutorService executor,
+			TaskMonitor monitor, MessageLog log) throws CancelledException {
+		if (executor == null || builders.size() < 2) {
+			for (int i = 0; i < builders.size(); i++) {
+				monitor.checkCanceled();
+				prepare(builders, i, log);
+			}
+			return;
+		}
+		List<Future<?>> futures = new ArrayList<>(builders.size());
+		for (int i = 0; i < builders.size(); i++) {
+			int index = i;
+			futures.add(executor.submit(() -> prepare(builders, index, log)));
+		}
+		for (Future<?> future : futures) {
+			monitor.checkCanceled();
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				throw new CancelledException();
+			} catch (ExecutionException e) {
+				log.appendException(e.getCause());
+			}
+		}
+	}
+
+	private static void prepare(List<AbstractCppClassBuilder> builders, int index,
+			MessageLog log) {
+		AbstractCppClassBuilder builder = builders.get(index);
+		if (builder == null) {
+			return;
+		}
+		try {
+			builder.prepareComponents();
+		} catch (Exception e) {
+			synchronized (log) {
+				log.appendException(e);
+			}
+			// it is not built with partially read fields
+			builders.set(index, null);
+		}
+	}
+
+	private static void getClassDataType(ClassTypeInfo type, MessageLog log) {
+		try {
+			type.getClassDataType();
+		} catch (Exception e) {
+			log.appendException(e);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package cppclassanalyzer.analysis;
+
+import java.util.*;
+
+import ghidra.app.cmd.data.rtti.Vtable;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSetView;
+import ghidra.program.model.listing.Program;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
+import cppclassanalyzer.scanner.DirectReferenceSweep;
+
+/**
+ * The classes affected by the analysis of an added address set.
+ * <p>
+ * A class is dirty if its typeinfo or vtable lies within the added set,
+ * if it has no vtable yet and its typeinfo is referenced from the added set
+ * or if any of its ancestors is dirty. The closure is computed before the
+ * vtables are located so a vtable added for an existing class is found
+ * through its reference to the typeinfo. Incremental analysis is limited
+ * to the dirty classes instead of every class in the program.
+ */
+public final class DirtyTypeClosure {
+
+	private final ProgramClassTypeInfoManager manager;
+	private final long[] keys;
+
+	private DirtyTypeClosure(ProgramClassTypeInfoManager manager, long[] keys) {
+		this.manager = manager;
+		this.keys = keys;
+	}
+
+	/**
+	 * Checks if the added set only covers part of the program's initialized memory
+	 * and the manager already contains the results of a previous analysis
+	 * @param manager the program's manager
+	 * @param set the added address set
+	 * @return true if the set may be analyzed incrementally
+	 */
+	public static boolean isIncremental(ProgramClassTypeInfoManager manager, AddressSetView set) {
+		if (set == null || manager.getTypeCount() == 0) {
+			return false;
+		}
+		Program program = manager.getProgram();
+		return !set.contains(program.getMemory().getLoadedAndInitializedAddressSet());
+	}
+
+	/**
+	 * Computes the dirty classes for the added address set
+	 * @param manager the program's manager
+	 * @param set the added address set
+	 * @param monitor the task monitor
+	 * @return the dirty classes
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public static DirtyTypeClosure compute(ProgramClassTypeInfoManager manager,
+			AddressSetView set, TaskMonitor monitor) throws CancelledException {
+		Map<Long, List<Long>> children = new HashMap<>();
+		Map<Address, Long> missingVtables = new HashMap<>();
+		Deque<Long> pending = new ArrayDeque<>();
+		monitor.initialize(manager.getTypeCount());
+		monitor.setMessage("Locating changed classes");
+		for (ClassTypeInfoDB type : manager.getTypes()) {
+			monitor.checkCanceled();
+			long key = type.getKey();
+			if (set.contains(type.getAddress())) {
+				pending.add(key);
+			} else {
+				Vtable vtable = type.getVtable();
+				if (!Vtable.isValid(vtable)) {
+					missingVtables.put(type.getAddress(), key);
+				} else if (set.contains(vtable.getAddress())) {
+					pending.add(key);
+				}
+			}
+			try {
+				for (ClassTypeInfoDB parent : type.getParentModels()) {
+					children.computeIfAbsent(parent.getKey(), k -> new ArrayList<>()).add(key);
+				}
+			} catch (RuntimeException e) {
+				// an unresolved parent is reported when the class itself is analyzed
+				pending.add(key);
+			}
+			monitor.incrementProgress(1);
+		}
+		if (!missingVtables.isEmpty()) {
+			monitor.setMessage("Locating added vtables");
+			DirectReferenceSweep sweep =
+				new DirectReferenceSweep(manager.getProgram(), missingVtables.keySet(), set);
+			for (Map.Entry<Address, Set<Address>> entry : sweep.sweep(monitor).entrySet()) {
+				if (!entry.getValue().isEmpty()) {
+					pending.add(missingVtables.get(entry.getKey()));
+				}
+			}
+		}
+		Set<Long> dirty = new HashSet<>();
+		while (!pending.isEmpty()) {
+			monitor.checkCanceled();
+			Long key = pending.remove();
+			if (dirty.add(key)) {
+				pending.addAll(children.getOrDefault(key, Collections.emptyList()));
+			}
+		}
+		// in key order so that the types are visited in the same order as a full analysis
+		long[] keys = dirty.stream()
+			.mapToLong(Long::longValue)
+			.sorted()
+			.toArray();
+		return new DirtyTypeClosure(manager, keys);
+	}
+
+	/**
+	 * Gets the number of dirty classes
+	 * @return the number of dirty classes
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Checks if there are no dirty classes
+	 * @return true if there are no dirty classes
+	 */
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
+	/**
+	 * Gets the dirty classes in key order
+	 * @return the dirty classes
+	 */
+	public List<ClassTypeInfoDB> getTypes() {
+		List<ClassTypeInfoDB> types = new ArrayList<>(keys.length);
+		for (long key : keys) {
+			ClassTypeInfoDB type = manager.getType(key);
+			if (type != null) {
+				types.add(type);
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Gets the valid vtables of the dirty classes in key order
+	 * @return the dirty vtables
+	 */
+	public List<Vtable> getVtables() {
+		List<Vtable> vtables = new ArrayList<>(keys.length);
+		for (ClassTypeInfoDB type : getTypes()) {
+			Vtable vtable = type.getVtable();
+			if (Vtable.isValid(vtable)) {
+				vtables.add(vtable);
+			}
+		}
+		return vtables;
+	}
+}
@@ -5,23 +5,33 @@ import java.util.stream.Collectors;
 
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.decompiler.DecompilerAPI;
-import cppclassanalyzer.decompiler.function.HighFunctionCall;
-import cppclassanalyzer.decompiler.function.HighFunctionCallParameter;
+import cppclassanalyzer.decompiler.cache.FunctionSummary;
+import cppclassanalyzer.decompiler.cache.FunctionSummary.CallSite;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSetView;
 import ghidra.program.model.listing.Data;
 import ghidra.program.model.listing.Function;
-import ghidra.program.model.pcode.*;
+import ghidra.program.model.listing.Instruction;
+import ghidra.program.model.listing.Listing;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.symbol.FlowType;
 import ghidra.program.model.symbol.Reference;
 import ghidra.util.exception.AssertException;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
 import util.CollectionUtils;
 
 public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 		extends AbstractConstructorAnalysisCmd {
 
 	private final DecompilerAPI api;
+	// the entry points of the functions this command has made constructors or destructors
+	private final Set<Address> retyped = new HashSet<>();
+	private CandidateSnapshot pending;
 
 	protected AbstractDecompilerBasedConstructorAnalysisCmd(String name, DecompilerAPI api) {
 		super(name);
@@ -43,56 +53,221 @@ public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 		if (!Vtable.isValid(vtable)) {
 			return false;
 		}
-		for (ClassFunction function : getFunctions()) {
+		CandidateSnapshot snapshot = pending;
+		pending = null;
+		boolean concurrent = snapshot != null && snapshot.type.equals(type);
+		if (!concurrent) {
+			snapshot = prepareCandidates(type, program, monitor);
+			decompileCandidates(snapshot, api, monitor);
+		}
+		List<ConstructorCandidate> candidates = new ArrayList<>(snapshot.functions.size());
+		for (int i = 0; i < snapshot.functions.size(); i++) {
+			monitor.checkCanceled();
+			ClassFunction function = snapshot.functions.get(i);
+			FunctionSummary summary = snapshot.summaries[i];
+			ConstructorCandidate candidate = getCandidate(snapshot, function, summary, program);
+			if (concurrent && (candidate == null || !candidate.success)
+					&& callsRetypedFunction(summary, program)) {
+				// decompiled before a callee was retyped so it may now succeed
+				api.invalidate(function.function);
+				summary = api.getFunctionSummary(function.function);
+				candidate = getCandidate(snapshot, function, summary, program);
+			}
+			if (candidate != null) {
+				candidates.add(candidate);
+			}
+		}
+		for (ConstructorCandidate candidate : candidates) {
+			monitor.checkCanceled();
+			if (!CppClassAnalyzerUtils.isDefaultFunction(candidate.function.function)) {
+				// already processed while committing a previous candidate
+				continue;
+			}
+			for (ClassFunction parent : candidate.parents) {
+				setFunction(parent.typeinfo, parent.function, parent.isDestructor);
+			}
+			if (candidate.success) {
+				setFunction(type, candidate.function.function, candidate.function.isDestructor);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected void setFunction(ClassTypeInfo typeinfo, Function function, boolean destructor)
+			throws Exception {
+		super.setFunction(typeinfo, function, destructor);
+		retyped.add(function.getEntryPoint());
+	}
+
+	private boolean callsRetypedFunction(FunctionSummary summary, Program program) {
+		if (summary == null || retyped.isEmpty()) {
+			return false;
+		}
+		for (CallSite call : summary.getCalls()) {
+			Function callee = call.getFunction(program);
+			if (callee != null && retyped.contains(callee.getEntryPoint())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the previously decompiled candidates to be used when this command is next
+	 * applied to the snapshot's type. This allows the decompilation to be performed
+	 * elsewhere while the program is only read and modified when the command is applied.
+	 * <p>
+	 * The candidates are decompiled before the constructors and destructors committed
+	 * in the meantime have been retyped. A candidate which is rejected and calls one
+	 * of the functions retyped by this command is therefore decompiled again when
+	 * the command is applied so that the result matches the serial analysis.
+	 * @param snapshot the snapshot obtained from
+	 * {@link #prepareCandidates(ClassTypeInfo, Program, TaskMonitor)} and then passed to
+	 * {@link #decompileCandidates(CandidateSnapshot, DecompilerAPI, TaskMonitor)}
+	 */
+	public void setCandidates(CandidateSnapshot snapshot) {
+		this.pending = snapshot;
+	}
+
+	/**
+	 * Collects everything about the type required to find its constructors and
+	 * destructors along with the functions referencing its vtable which need to be
+	 * decompiled. This reads the program and must be called from the analysis thread.
+	 * @param type the type to analyze
+	 * @param program the program
+	 * @param monitor the task monitor
+	 * @return the candidate snapshot
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public static CandidateSnapshot prepareCandidates(ClassTypeInfo type, Program program,
+			TaskMonitor monitor) throws CancelledException {
+		if (!type.hasParent()) {
+			return new CandidateSnapshot(type, new ClassTypeInfo[0], Collections.emptyMap(),
+				Collections.emptyList());
+		}
+		AnalysisMetrics metrics = AnalysisMetrics.getMetrics(program);
+		Listing listing = program.getListing();
+		ClassTypeInfo[] parents = type.getParentModels();
+		Map<Integer, ClassTypeInfo> bases = new HashMap<>();
+		((ClassTypeInfoDB) type).getBaseOffsets()
+			.forEach((base, offset) -> bases.putIfAbsent(offset.intValue(), base));
+		List<ClassFunction> functions = new ArrayList<>();
+		for (ClassFunction function : getFunctions(type, listing)) {
 			monitor.checkCanceled();
 			if (function.function.isThunk()) {
 				continue;
 			}
-			boolean success = false;
-			try {
-				HighFunction hf = api.getHighFunction(function.function);
-				if (hf == null) {
-					// timed out
-					continue;
-				}
-				LocalSymbolMap map = hf.getLocalSymbolMap();
-				if (map.getNumParams() == 0) {
-					continue;
-				}
-				HighParam thisParam = map.getParam(0);
-				List<HighFunctionCall> statements = api.getFunctionCalls(function.function);
-				if (type.getParentModels().length >= statements.size()) {
-					continue;
-				}
-				if (function.isDestructor()) {
-					success = processDestructor(thisParam, function.getFunction(), statements);
-				} else {
-					success = processConstructor(thisParam, function.getFunction(), statements);
-				}
-			} finally {
-				if (success) {
-					setFunction(type, function.function, function.isDestructor());
+			if (getMaximumCallCount(function.function, listing, parents.length) <= parents.length) {
+				// the decompiled function could not have enough calls
+				metrics.increment(AnalysisMetrics.DECOMPILATIONS_AVOIDED);
+				continue;
+			}
+			functions.add(function);
+		}
+		return new CandidateSnapshot(type, parents, bases, functions);
+	}
+
+	/**
+	 * Decompiles the snapshot's functions. Nothing but the decompiler is used and
+	 * this may be called concurrently provided each thread uses its own DecompilerAPI.
+	 * @param snapshot the snapshot from {@link #prepareCandidates}
+	 * @param api the DecompilerAPI to use
+	 * @param monitor the task monitor
+	 * @throws CancelledException if the decompilation is cancelled
+	 */
+	public static void decompileCandidates(CandidateSnapshot snapshot, DecompilerAPI api,
+			TaskMonitor monitor) throws CancelledException {
+		for (int i = 0; i < snapshot.functions.size(); i++) {
+			monitor.checkCanceled();
+			// null if timed out
+			snapshot.summaries[i] = api.getFunctionSummary(snapshot.functions.get(i).function);
+		}
+	}
+
+	private static ConstructorCandidate getCandidate(CandidateSnapshot snapshot,
+			ClassFunction function, FunctionSummary summary, Program program) {
+		if (summary == null || !summary.hasThisParam()) {
+			return null;
+		}
+		List<CallSite> calls = summary.getCalls();
+		if (snapshot.parents.length >= calls.size()) {
+			return null;
+		}
+		ConstructorCandidate candidate = new ConstructorCandidate(function);
+		if (function.isDestructor()) {
+			candidate.success = processDestructor(snapshot, program, calls, candidate);
+		} else {
+			candidate.success = processConstructor(snapshot, program, calls, candidate);
+		}
+		return candidate;
+	}
+
+	/**
+	 * Counts the instructions which may become calls in the decompiled function.
+	 * Jumps which may leave the function body are included since the decompiler
+	 * displays a tail call as a call followed by a return. The decompiler never
+	 * produces more calls than this.
+	 * @param function the function
+	 * @param listing the program listing
+	 * @param limit the count after which counting may stop
+	 * @return the call count or a value greater than the limit
+	 */
+	private static int getMaximumCallCount(Function function, Listing listing, int limit) {
+		AddressSetView body = function.getBody();
+		int count = 0;
+		for (Instruction inst : listing.getInstructions(body, true)) {
+			FlowType flow = inst.getFlowType();
+			if (flow.isCall() && callsInlineFunction(inst, listing)) {
+				// the calls of an inlined function appear in the decompiled function
+				return Integer.MAX_VALUE;
+			}
+			if (flow.isCall() || (flow.isJump() && isLeavingBody(inst, flow, body))) {
+				if (++count > limit) {
+					break;
 				}
 			}
 		}
-		return true;
+		return count;
+	}
+
+	private static boolean callsInlineFunction(Instruction inst, Listing listing) {
+		for (Address flowAddress : inst.getFlows()) {
+			Function callee = listing.getFunctionAt(flowAddress);
+			if (callee != null && callee.isInline()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isLeavingBody(Instruction inst, FlowType flow, AddressSetView body) {
+		if (flow.isComputed()) {
+			return true;
+		}
+		for (Address flowAddress : inst.getFlows()) {
+			if (!body.contains(flowAddress)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	private boolean processDestructor(HighParam thisParam, Function function,
-			List<HighFunctionCall> calls) throws Exception {
+	private static boolean processDestructor(CandidateSnapshot snapshot, Program program,
+			List<CallSite> calls, ConstructorCandidate candidate) {
 		// The in-charge destructor must end with all
 		// parents destructors + return. No exceptions.
-		ClassTypeInfo[] parents = type.getParentModels();
+		ClassTypeInfo[] parents = snapshot.parents;
 		int end = calls.size() - 1;
 		int start = end - parents.length;
-		List<HighFunctionCall> destructorCalls = calls.subList(start, end);
+		List<CallSite> destructorCalls = calls.subList(start, end);
 		boolean hasExternal = destructorCalls.stream()
-			.map(HighFunctionCall::getFunction)
-			.anyMatch(Function::isExternal);
+			.map(call -> call.getFunction(program))
+			.anyMatch(f -> f == null || f.isExternal());
 		if (hasExternal) {
 			return false;
 		}
-		return setFunctions(thisParam, destructorCalls, false);
+		return setFunctions(snapshot, program, destructorCalls, false, candidate);
 	}
 
 	private static boolean isExternalFunction(Function f) {
@@ -102,68 +277,43 @@ public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 		return f.isExternal();
 	}
 
-	private boolean processConstructor(HighParam thisParam, Function function,
-			List<HighFunctionCall> calls) throws Exception {
+	private static boolean processConstructor(CandidateSnapshot snapshot, Program program,
+			List<CallSite> calls, ConstructorCandidate candidate) {
 		// The in-charge constructor must start with all
 		// parents constructors. No exceptions.
-		ClassTypeInfo[] parents = type.getParentModels();
+		ClassTypeInfo[] parents = snapshot.parents;
 		int start = 0;
 		int end = parents.length;
-		List<HighFunctionCall> constructorCalls = calls.subList(start, end);
+		List<CallSite> constructorCalls = calls.subList(start, end);
 		boolean hasExternal = constructorCalls.stream()
-			.map(HighFunctionCall::getFunction)
-			.anyMatch(AbstractDecompilerBasedConstructorAnalysisCmd::isExternalFunction);
+			.map(call -> call.getFunction(program))
+			.anyMatch(f -> f == null || isExternalFunction(f));
 		if (hasExternal) {
 			return false;
 		}
-		return setFunctions(thisParam, constructorCalls, true);
+		return setFunctions(snapshot, program, constructorCalls, true, candidate);
 	}
 
-	private boolean setFunctions(HighParam thisParam, List<HighFunctionCall> calls,
-			boolean isConstructor) throws Exception {
-		for (HighFunctionCall call : calls) {
-			List<HighFunctionCallParameter> params = call.getParameters();
-			if (params.isEmpty()) {
-				return false;
-			}
-			HighFunctionCallParameter self = params.get(0);
-			if (!self.hasLocalRef()) {
+	private static boolean setFunctions(CandidateSnapshot snapshot, Program program,
+			List<CallSite> calls, boolean isConstructor, ConstructorCandidate candidate) {
+		for (CallSite call : calls) {
+			if (!call.isThisCall()) {
 				return false;
 			}
-			HighVariable var = self.getVariableToken().getHighVariable();
-			if (var == null || !var.equals(thisParam)) {
-				return false;
-			}
-			final int offset;
-			if (self.hasFieldToken()) {
-				offset = self.getOffset() + self.getFieldToken().getOffset();
-			} else {
-				offset = self.getOffset();
-			}
-			//var.
-			//FunctionCallParser parser = new FunctionCallParser(statement);
-			//Function fun = parser.getCalledFunction();
-			//ClassTypeInfo parent = parser.getParentParameter();
-			ClassTypeInfo parent = ((ClassTypeInfoDB) type).getBaseOffsets()
-				.entrySet()
-				.stream()
-				.filter(e -> e.getValue().intValue() == offset)
-				.findFirst()
-				.map(Map.Entry::getKey)
-				.orElse(null);
+			ClassTypeInfo parent = snapshot.bases.get(call.getThisOffset());
 			if (parent == null) {
 				return false;
 			}
-			Function fun = call.getFunction();
+			Function fun = call.getFunction(program);
 			if (fun.isThunk()) {
 				fun = fun.getThunkedFunction(true);
 			}
-			setFunction(parent, fun, !isConstructor);
+			candidate.parents.add(new ClassFunction(parent, fun, !isConstructor));
 		}
 		return true;
 	}
 
-	private List<ClassFunction> getFunctions() {
+	private static List<ClassFunction> getFunctions(ClassTypeInfo type, Listing listing) {
 		Vtable vtable = type.getVtable();
 		if (!Vtable.isValid(vtable)) {
 			return Collections.emptyList();
@@ -187,7 +337,7 @@ public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 			.map(listing::getFunctionContaining)
 			.filter(Objects::nonNull)
 			.filter(CppClassAnalyzerUtils::isDefaultFunction)
-			.map(f -> new ClassFunction(f, vtable.containsFunction(f)))
+			.map(f -> new ClassFunction(type, f, vtable.containsFunction(f)))
 			.collect(Collectors.toList());
 	}
 
@@ -197,14 +347,24 @@ public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 
 	protected static class ClassFunction {
 
+		private final ClassTypeInfo typeinfo;
 		private final Function function;
 		private final boolean isDestructor;
 
 		public ClassFunction(Function function, boolean isDestructor) {
+			this(null, function, isDestructor);
+		}
+
+		public ClassFunction(ClassTypeInfo typeinfo, Function function, boolean isDestructor) {
+			this.typeinfo = typeinfo;
 			this.function = function;
 			this.isDestructor = isDestructor;
 		}
 
+		protected ClassTypeInfo getTypeInfo() {
+			return typeinfo;
+		}
+
 		protected Function getFunction() {
 			return function;
 		}
@@ -213,4 +373,50 @@ public abstract class AbstractDecompilerBasedConstructorAnalysisCmd
 			return isDestructor;
 		}
 	}
+
+	/**
+	 * A function referencing a vtable along with the parent constructors
+	 * or destructors it was found to call
+	 */
+	private static final class ConstructorCandidate {
+
+		private final ClassFunction function;
+		private final List<ClassFunction> parents = new ArrayList<>();
+		private boolean success;
+
+		private ConstructorCandidate(ClassFunction function) {
+			this.function = function;
+		}
+	}
+
+	/**
+	 * The parents, base offsets and vtable referencing functions of a type
+	 * read on the analysis thread along with the summaries of the decompiled functions
+	 */
+	public static final class CandidateSnapshot {
+
+		private final ClassTypeInfo type;
+		private final ClassTypeInfo[] parents;
+		// the first base at each offset
+		private final Map<Integer, ClassTypeInfo> bases;
+		private final List<ClassFunction> functions;
+		private final FunctionSummary[] summaries;
+
+		private CandidateSnapshot(ClassTypeInfo type, ClassTypeInfo[] parents,
+				Map<Integer, ClassTypeInfo> bases, List<ClassFunction> functions) {
+			this.type = type;
+			this.parents = parents;
+			this.bases = bases;
+			this.functions = functions;
+			this.summaries = new FunctionSummary[functions.size()];
+		}
+
+		/**
+		 * Gets the type the snapshot was taken of
+		 * @return the type
+		 */
+		public ClassTypeInfo getType() {
+			return type;
+		}
+	}
 }
@@ -10,6 +10,7 @@ import java.util.Set;
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.app.cmd.data.rtti.gcc.ClassTypeInfoUtils;
+import ghidra.app.cmd.data.rtti.gcc.UnresolvedClassTypeInfoException;
 import ghidra.app.cmd.data.rtti.gcc.VttModel;
 import ghidra.app.cmd.function.AddParameterCommand;
 import ghidra.app.util.XReferenceUtil;
@@ -20,6 +21,7 @@ import ghidra.program.model.data.InvalidDataTypeException;
 import ghidra.program.model.data.VoidDataType;
 import ghidra.program.model.listing.Data;
 import ghidra.program.model.listing.Function;
+import ghidra.program.model.listing.GhidraClass;
 import ghidra.program.model.listing.Instruction;
 import ghidra.program.model.listing.Parameter;
 import ghidra.program.model.listing.ParameterImpl;
@@ -30,6 +32,10 @@ import ghidra.program.model.symbol.SourceType;
 import ghidra.util.Msg;
 
 import cppclassanalyzer.analysis.cmd.AbstractConstructorAnalysisCmd;
+import cppclassanalyzer.data.ClassTypeInfoManager;
+import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.manager.caches.InheritanceGraph;
+import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
 
 public class GccConstructorAnalysisCmd extends AbstractConstructorAnalysisCmd {
@@ -76,8 +82,31 @@ public class GccConstructorAnalysisCmd extends AbstractConstructorAnalysisCmd {
 		return instr.getFlows()[0];
 	}
 
+	private static InheritanceGraph getInheritanceGraph(ClassTypeInfo typeinfo) {
+		if (typeinfo instanceof ClassTypeInfoDB) {
+			ClassTypeInfoManager manager = ((ClassTypeInfoDB) typeinfo).getManager();
+			if (manager instanceof ProgramClassTypeInfoManager) {
+				return ((ProgramClassTypeInfoManager) manager).getInheritanceGraph();
+			}
+		}
+		return null;
+	}
+
 	private boolean isInherited(ClassTypeInfo typeinfo, Namespace ns)
 			throws InvalidDataTypeException {
+		InheritanceGraph graph = getInheritanceGraph(typeinfo);
+		if (graph != null) {
+			if (!(ns instanceof GhidraClass)) {
+				return false;
+			}
+			ClassTypeInfoDB type = (ClassTypeInfoDB) typeinfo;
+			try {
+				ClassTypeInfoDB parent = type.getManager().getType((GhidraClass) ns);
+				return parent != null && graph.isParent(type.getKey(), parent.getKey());
+			} catch (UnresolvedClassTypeInfoException e) {
+				return false;
+			}
+		}
 		for (ClassTypeInfo parent : typeinfo.getParentModels()) {
 			if (ns.equals(parent.getGhidraClass())) {
 				return true;
@@ -107,14 +136,31 @@ public class GccConstructorAnalysisCmd extends AbstractConstructorAnalysisCmd {
 		}
 	}
 
+	private void addAncestorAddresses(Set<Address> addresses, ClassTypeInfo typeinfo) {
+		InheritanceGraph graph = getInheritanceGraph(typeinfo);
+		if (graph == null) {
+			addAddresses(addresses, List.of(typeinfo.getParentModels()));
+			addAddresses(addresses, typeinfo.getVirtualParents());
+			return;
+		}
+		ClassTypeInfoDB type = (ClassTypeInfoDB) typeinfo;
+		for (long key : graph.getAncestors(type.getKey())) {
+			addVtableAddresses(addresses, type.getManager().getType(key));
+		}
+	}
+
 	private void addAddresses(Set<Address> addresses, Collection<ClassTypeInfo> parents) {
 		for (ClassTypeInfo parent : parents) {
 			addAddresses(addresses, List.of(parent.getParentModels()));
 			addAddresses(addresses, parent.getVirtualParents());
-			Vtable parentVtable = parent.getVtable();
-			if (parentVtable != Vtable.NO_VTABLE) {
-				addresses.addAll(List.of(parentVtable.getTableAddresses()));
-			}
+			addVtableAddresses(addresses, parent);
+		}
+	}
+
+	private static void addVtableAddresses(Set<Address> addresses, ClassTypeInfo type) {
+		Vtable vtable = type != null ? type.getVtable() : Vtable.NO_VTABLE;
+		if (vtable != Vtable.NO_VTABLE) {
+			addresses.addAll(List.of(vtable.getTableAddresses()));
 		}
 	}
 
@@ -132,8 +178,7 @@ public class GccConstructorAnalysisCmd extends AbstractConstructorAnalysisCmd {
 		List<Reference> references = Arrays.asList(XReferenceUtil.getOffcutXReferences(data, -1));
 		Collections.reverse(references);
 		Set<Address> addresses = new HashSet<>(List.of(tableAddresses));
-		addAddresses(addresses, List.of(typeinfo.getParentModels()));
-		addAddresses(addresses, typeinfo.getVirtualParents());
+		addAncestorAddresses(addresses, typeinfo);
 		detectVirtualDestructors(addresses, vtable);
 		for (Reference reference : references) {
 			if (monitor.isCancelled()) {
@@ -139,9 +139,7 @@ public class VsCppClassAnalyzer extends AbstractCppClassAnalyzer {
 		if (!hasGuardedVftables()) {
 			super.analyzeVftables();
 		} else {
-			if (shouldAnalyzeConstructors()) {
-				analyzeConstructors();
-			}
+			// the constructors are still analyzed afterwards
 			log.appendMsg(CFG_WARNING);
 		}
 	}
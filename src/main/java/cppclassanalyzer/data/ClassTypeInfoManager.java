@@ -1,5 +1,9 @@
 package cppclassanalyzer.data;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import javax.swing.Icon;
@@ -17,6 +21,8 @@ import ghidra.program.database.map.AddressMap;
 import ghidra.program.model.listing.Function;
 import ghidra.program.model.listing.GhidraClass;
 import ghidra.program.model.symbol.Namespace;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
 
 /**
  * ClassTypeInfoManager manages all {@link ClassTypeInfo} within
@@ -49,6 +55,35 @@ public interface ClassTypeInfoManager extends ErrorHandler {
 	 */
 	ClassTypeInfoDB resolve(ClassTypeInfo type);
 
+	/**
+	 * Resolves all the provided types.
+	 * Implementations may resolve the types within a single transaction
+	 * and notify listeners with a single event. A type which cannot be
+	 * resolved does not prevent the others from being resolved.
+	 * @param types the types to resolve
+	 * @param failures the map to add the types which could not be resolved to
+	 * @param monitor the task monitor
+	 * @return the equivalent types managed by this ClassTypeInfoManager
+	 * for the successfully resolved types
+	 * @throws CancelledException if the operation is cancelled
+	 * @see #resolve(ClassTypeInfo)
+	 */
+	default List<ClassTypeInfoDB> resolveAll(Collection<? extends ClassTypeInfo> types,
+			Map<ClassTypeInfo, RuntimeException> failures, TaskMonitor monitor)
+			throws CancelledException {
+		List<ClassTypeInfoDB> result = new ArrayList<>(types.size());
+		for (ClassTypeInfo type : types) {
+			monitor.checkCanceled();
+			try {
+				result.add(resolve(type));
+			} catch (RuntimeException e) {
+				failures.put(type, e);
+			}
+			monitor.incrementProgress(1);
+		}
+		return result;
+	}
+
 	/**
 	 * Gets the ClassTypeInfo for the corresponding database key
 	 * @param key the database key
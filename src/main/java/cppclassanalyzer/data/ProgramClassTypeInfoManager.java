@@ -7,6 +7,7 @@ import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.app.cmd.data.rtti.gcc.UnresolvedClassTypeInfoException;
 import ghidra.framework.model.DomainObjectListener;
 
+import cppclassanalyzer.data.manager.caches.InheritanceGraph;
 import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.data.vtable.ArchivedGnuVtable;
@@ -134,6 +135,13 @@ public interface ProgramClassTypeInfoManager extends TypeInfoManager, ClassTypeI
 	 */
 	ClassTypeInfoDB getType(UniversalID id);
 
+	/**
+	 * Gets the index of the inheritance relationships between the managed ClassTypeInfos.
+	 * The index is rebuilt after a type is added, removed or has its parents changed.
+	 * @return the inheritance graph
+	 */
+	InheritanceGraph getInheritanceGraph();
+
 	@Override
 	default void addListener(DomainObjectListener listener) {
 		getProgram().addListener(listener);
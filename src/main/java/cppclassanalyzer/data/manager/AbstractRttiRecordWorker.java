@@ -1,13 +1,22 @@
 package cppclassanalyzer.data.manager;
 
 import java.io.IOException;
-import java.util.stream.LongStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.program.database.DBObjectCache;
 import ghidra.program.database.DatabaseObject;
+import ghidra.util.exception.AssertException;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+import cppclassanalyzer.data.manager.caches.RecordCache;
 import cppclassanalyzer.data.manager.caches.RttiCachePair;
 import cppclassanalyzer.data.manager.recordmanagers.RttiRecordManager;
 import cppclassanalyzer.data.manager.tables.RttiTablePair;
@@ -19,6 +28,8 @@ import cppclassanalyzer.database.utils.TransactionHandler;
 import cppclassanalyzer.plugin.ClassTypeInfoManagerPlugin;
 import cppclassanalyzer.plugin.TypeInfoArchiveChangeRecord;
 import cppclassanalyzer.plugin.TypeInfoArchiveChangeRecord.ChangeType;
+import cppclassanalyzer.utils.AnalysisMetrics;
+import db.Table;
 import db.util.ErrorHandler;
 
 public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
@@ -29,12 +40,24 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 	private final T5 tables;
 	private final RttiCachePair<T1, T2> caches;
 	private final TransactionHandler handler;
+	private final RecordCache<T3> typeRecords;
+	private final RecordCache<T4> vtableRecords;
+
+	// types added while a batch is in progress, null otherwise
+	private List<ClassTypeInfoDB> addedTypes;
+
+	// null unless the records belong to a program being analyzed
+	private AnalysisMetrics metrics;
 
 	AbstractRttiRecordWorker(T5 tables, RttiCachePair<T1, T2> caches, TransactionHandler handler) {
 		this.tables = tables;
 		this.caches = caches;
 		this.handler = handler;
+		this.typeRecords = new RecordCache<>(this::writeTypeRecord);
+		this.vtableRecords = new RecordCache<>(this::writeVtableRecord);
+		handler.setFlusher(this::flushRecords);
 	}
+
 	abstract long getTypeKey(ClassTypeInfo type);
 
 	abstract long getVtableKey(Vtable vtable);
@@ -49,24 +72,84 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 
 	abstract ClassTypeInfoManagerPlugin getPlugin();
 
+	/**
+	 * Invoked when a modified type record has been queued for writing
+	 * @param record the type record
+	 */
+	void typeRecordChanged(T3 record) {
+	}
+
+	/**
+	 * Invoked when a modified vtable record has been queued for writing
+	 * @param record the vtable record
+	 */
+	void vtableRecordChanged(T4 record) {
+	}
+
+	/**
+	 * Invoked before a type record is deleted
+	 * @param record the type record
+	 */
+	void typeRecordRemoved(T3 record) {
+	}
+
+	/**
+	 * Invoked when the table contents may no longer match what has been observed
+	 */
+	void recordsInvalidated() {
+	}
+
+	/**
+	 * Sets the metrics which count the records read and written
+	 * @param metrics the metrics
+	 */
+	final void setMetrics(AnalysisMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	private void count(String counter) {
+		if (metrics != null) {
+			metrics.increment(counter);
+		}
+	}
+
+	private void writeTypeRecord(db.Record record) throws IOException {
+		tables.getTypeTable().putRecord(record);
+		count(AnalysisMetrics.RECORD_WRITES);
+	}
+
+	private void writeVtableRecord(db.Record record) throws IOException {
+		tables.getVtableTable().putRecord(record);
+		count(AnalysisMetrics.RECORD_WRITES);
+	}
+
 	private T3 createTypeRecord(long key) throws IOException {
 		T3 record = tables.getTypeSchema().getNewRecord(key);
-		tables.getTypeTable().putRecord(record.getRecord());
+		writeTypeRecord(record.getRecord());
+		typeRecords.put(record);
 		return record;
 	}
 
 	private T4 createVtableRecord(long key) throws IOException {
 		T4 record = tables.getVtableSchema().getNewRecord(key);
-		tables.getVtableTable().putRecord(record.getRecord());
+		writeVtableRecord(record.getRecord());
+		vtableRecords.put(record);
 		return record;
 	}
 
 	@Override
 	public final T3 getTypeRecord(long key) {
+		T3 result = typeRecords.get(key);
+		if (result != null) {
+			return result;
+		}
 		try {
 			db.Record record = tables.getTypeTable().getRecord(key);
+			count(AnalysisMetrics.RECORD_READS);
 			if (record != null) {
-				return tables.getTypeSchema().getRecord(record);
+				result = tables.getTypeSchema().getRecord(record);
+				typeRecords.put(result);
+				return result;
 			}
 		} catch (IOException e) {
 			dbError(e);
@@ -76,10 +159,17 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 
 	@Override
 	public final T4 getVtableRecord(long key) {
+		T4 result = vtableRecords.get(key);
+		if (result != null) {
+			return result;
+		}
 		try {
 			db.Record record = tables.getVtableTable().getRecord(key);
+			count(AnalysisMetrics.RECORD_READS);
 			if (record != null) {
-				return tables.getVtableSchema().getRecord(record);
+				result = tables.getVtableSchema().getRecord(record);
+				vtableRecords.put(result);
+				return result;
 			}
 		} catch (IOException e) {
 			dbError(e);
@@ -87,32 +177,86 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The record is written when the outermost transaction
+	 * started by this worker's {@link TransactionHandler} ends. Unless such a transaction
+	 * is already open, such as during {@link #resolveAll}, the record is therefore
+	 * written immediately. A transaction opened directly on the program or data type
+	 * manager does not defer the write.
+	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public final void updateRecord(DatabaseRecord<?> record) {
 		if (!record.isDirty()) {
 			return;
 		}
+		handler.startTransaction("Updating Record");
 		try {
-			handler.startTransaction("Updating Record");
 			if (record.hasSameSchema(tables.getTypeSchema())) {
-				tables.getTypeTable().putRecord(record.getRecord());
+				typeRecords.markDirty((T3) record);
+				typeRecordChanged((T3) record);
 			} else if (record.hasSameSchema(tables.getVtableSchema())) {
-				tables.getVtableTable().putRecord(record.getRecord());
+				vtableRecords.markDirty((T4) record);
+				vtableRecordChanged((T4) record);
 			} else {
 				throw new IllegalArgumentException(
 					"Ghidra-Cpp-Class-Analyzer: unexpected record schema");
 			}
-		} catch (IOException e) {
-			dbError(e);
 		} finally {
 			handler.endTransaction();
 		}
 	}
 
+	private void flushRecords(boolean commit) {
+		if (!commit) {
+			// the table contents are no longer known
+			typeRecords.discard();
+			vtableRecords.discard();
+			recordsInvalidated();
+			return;
+		}
+		try {
+			typeRecords.flush();
+			vtableRecords.flush();
+		} catch (IOException e) {
+			dbError(e);
+		}
+	}
+
+	/**
+	 * Gets the tables. Any pending record updates are written
+	 * first so that the tables may be queried directly.
+	 * @return the tables
+	 */
 	final T5 getTables() {
+		if (typeRecords.isDirty() || vtableRecords.isDirty()) {
+			flushRecords(true);
+		}
 		return tables;
 	}
 
+	/**
+	 * Discards the cached database objects and records.
+	 * This must be called after the tables are modified directly or restored.
+	 * Any pending record updates are written first.
+	 */
+	final void invalidate() {
+		if (typeRecords.isDirty() || vtableRecords.isDirty()) {
+			// records are only deferred while one of the handler's transactions is open
+			if (!handler.isTransactionActive()) {
+				throw new AssertException(
+					"Ghidra-Cpp-Class-Analyzer: unwritten records outside of a transaction");
+			}
+			flushRecords(true);
+		}
+		typeRecords.clear();
+		vtableRecords.clear();
+		caches.invalidate();
+		recordsInvalidated();
+	}
+
 	final RttiCachePair<T1, T2> getCaches() {
 		return caches;
 	}
@@ -135,18 +279,7 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 		}
 		try {
 			handler.startTransaction();
-			key = getClassKey();
-			try {
-				T3 record = createTypeRecord(key);
-				T1 typeDb = buildType(type, record);
-				TypeInfoArchiveChangeRecord change =
-					new TypeInfoArchiveChangeRecord(ChangeType.TYPE_ADDED, typeDb);
-				getPlugin().managerChanged(change);
-				return typeDb;
-			} catch (RuntimeException e) {
-				getTables().getTypeTable().deleteRecord(key);
-				throw e;
-			}
+			return createType(type, getClassKey());
 		} catch (IOException e) {
 			dbError(e);
 		} finally {
@@ -174,30 +307,191 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Keys are allocated sequentially from the first free key and the records
+	 * are written once when the transaction ends. A single bulk change
+	 * is sent to the plugin for every type added by the batch. The record
+	 * of a type which fails to build is removed before the next type is resolved.
+	 */
 	@Override
-	public final T1 getType(long key) {
-		T3 record = getTypeRecord(key);
-		if (record == null) {
-			return null;
+	public final List<T1> resolveAll(Collection<? extends ClassTypeInfo> types,
+			Map<ClassTypeInfo, RuntimeException> failures, TaskMonitor monitor)
+			throws CancelledException {
+		List<T1> result = new ArrayList<>(types.size());
+		boolean outermost = addedTypes == null;
+		if (outermost) {
+			addedTypes = new ArrayList<>();
+		}
+		try {
+			handler.startTransaction("Resolving Types");
+			long nextKey = getClassKey();
+			for (ClassTypeInfo type : types) {
+				monitor.checkCanceled();
+				try {
+					long key = getTypeKey(type);
+					if (key != INVALID_KEY) {
+						result.add(getType(key));
+					} else {
+						try {
+							result.add(createType(type, nextKey));
+						} finally {
+							// building a type may resolve its bases with the following keys
+							nextKey = Math.max(nextKey, tables.getTypeTable().getMaxKey() + 1);
+						}
+					}
+				} catch (RuntimeException e) {
+					failures.put(type, e);
+				}
+				monitor.incrementProgress(1);
+			}
+		} catch (IOException e) {
+			dbError(e);
+		} finally {
+			handler.endTransaction();
+			if (outermost) {
+				List<ClassTypeInfoDB> added = addedTypes;
+				addedTypes = null;
+				if (!added.isEmpty()) {
+					getPlugin().managerChanged(
+						new TypeInfoArchiveChangeRecord(ChangeType.TYPES_ADDED, added));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Keys are allocated sequentially from the first free key and the records
+	 * are written once when the transaction ends. The record of a vtable which
+	 * fails to build is removed before the next vtable is resolved.
+	 */
+	@Override
+	public final List<T2> resolveAllVtables(Collection<? extends Vtable> vtables,
+			Map<Vtable, RuntimeException> failures, TaskMonitor monitor)
+			throws CancelledException {
+		List<T2> result = new ArrayList<>(vtables.size());
+		try {
+			handler.startTransaction("Resolving Vtables");
+			long nextKey = getVtableKey();
+			for (Vtable vtable : vtables) {
+				monitor.checkCanceled();
+				try {
+					long key = getVtableKey(vtable);
+					if (key != INVALID_KEY) {
+						result.add(getVtable(key));
+					} else {
+						try {
+							result.add(createVtable(vtable, nextKey));
+						} finally {
+							nextKey = Math.max(nextKey, tables.getVtableTable().getMaxKey() + 1);
+						}
+					}
+				} catch (RuntimeException e) {
+					failures.put(vtable, e);
+				}
+				monitor.incrementProgress(1);
+			}
+		} catch (IOException e) {
+			dbError(e);
+		} finally {
+			handler.endTransaction();
+		}
+		return result;
+	}
+
+	private T2 createVtable(Vtable vtable, long key) throws IOException {
+		try {
+			T4 record = createVtableRecord(key);
+			return buildVtable(vtable, record);
+		} catch (RuntimeException e) {
+			vtableRecords.remove(key);
+			tables.getVtableTable().deleteRecord(key);
+			throw e;
+		}
+	}
+
+	private T1 createType(ClassTypeInfo type, long key) throws IOException {
+		try {
+			T3 record = createTypeRecord(key);
+			T1 typeDb = buildType(type, record);
+			count(AnalysisMetrics.TYPES_RESOLVED);
+			if (addedTypes != null) {
+				addedTypes.add(typeDb);
+			} else {
+				TypeInfoArchiveChangeRecord change =
+					new TypeInfoArchiveChangeRecord(ChangeType.TYPE_ADDED, typeDb);
+				getPlugin().managerChanged(change);
+			}
+			return typeDb;
+		} catch (RuntimeException e) {
+			T3 record = typeRecords.get(key);
+			if (record != null) {
+				typeRecordRemoved(record);
+			}
+			typeRecords.remove(key);
+			tables.getTypeTable().deleteRecord(key);
+			throw e;
+		}
+	}
+
+	private T1 toType(db.Record record) {
+		long key = record.getKey();
+		T3 typeRecord = typeRecords.get(key);
+		if (typeRecord == null) {
+			typeRecord = tables.getTypeSchema().getRecord(record);
+			typeRecords.put(typeRecord);
 		}
-		T1 type = caches.getTypeCache().get(record.getRecord());
+		return getType(typeRecord);
+	}
+
+	private T2 toVtable(db.Record record) {
+		long key = record.getKey();
+		T4 vtableRecord = vtableRecords.get(key);
+		if (vtableRecord == null) {
+			vtableRecord = tables.getVtableSchema().getRecord(record);
+			vtableRecords.put(vtableRecord);
+		}
+		return getVtable(vtableRecord);
+	}
+
+	private T1 getType(T3 record) {
+		T1 type = caches.getType(record.getRecord());
 		if (type == null) {
+			caches.typeMissed(record.getKey(), tables.getTypeTable().getRecordCount());
 			type = buildType(record);
 		}
 		return type;
 	}
 
+	private T2 getVtable(T4 record) {
+		T2 vtable = caches.getVtable(record.getRecord());
+		if (vtable == null) {
+			caches.vtableMissed(record.getKey(), tables.getVtableTable().getRecordCount());
+			vtable = buildVtable(record);
+		}
+		return vtable;
+	}
+
+	@Override
+	public final T1 getType(long key) {
+		T3 record = getTypeRecord(key);
+		if (record == null) {
+			return null;
+		}
+		return getType(record);
+	}
+
 	@Override
 	public final T2 getVtable(long key) {
 		T4 record = getVtableRecord(key);
 		if (record == null) {
 			return null;
 		}
-		T2 vtable = caches.getVtableCache().get(record.getRecord());
-		if (vtable == null) {
-			vtable = buildVtable(record);
-		}
-		return vtable;
+		return getVtable(record);
 	}
 
 	final long getClassKey() {
@@ -212,18 +506,29 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 		return getTypeStream(false);
 	}
 
+	/**
+	 * Gets a stream of the types in key order.
+	 * The stream reads the records directly from the table and supports parallel traversal.
+	 * @param reverse true to stream the types in descending key order
+	 * @return the type stream
+	 */
 	final Stream<ClassTypeInfoDB> getTypeStream(boolean reverse) {
-		long maxKey = tables.getTypeTable().getMaxKey();
-		LongStream keys = reverse ? LongStream.iterate(maxKey, i -> i >= 0, i -> i - 1)
-			: LongStream.rangeClosed(0, maxKey);
-		return keys.filter(this::containsTypeKey)
-		.mapToObj(this::getType);
+		Table table = getTables().getTypeTable();
+		return StreamSupport.stream(new RecordSpliterator(table, reverse, this), false)
+			.<ClassTypeInfoDB>map(this::toType)
+			.filter(Objects::nonNull);
 	}
 
+	/**
+	 * Gets a stream of the vtables in key order.
+	 * The stream reads the records directly from the table and supports parallel traversal.
+	 * @return the vtable stream
+	 */
 	final Stream<T2> getVtableStream() {
-		long maxKey = tables.getVtableTable().getMaxKey();
-		return LongStream.rangeClosed(0, maxKey)
-			.mapToObj(this::getVtable);
+		Table table = getTables().getVtableTable();
+		return StreamSupport.stream(new RecordSpliterator(table, false, this), false)
+			.map(this::toVtable)
+			.filter(Objects::nonNull);
 	}
 
 	final Iterable<ClassTypeInfoDB> getTypes() {
@@ -234,8 +539,4 @@ public abstract class AbstractRttiRecordWorker<T1 extends ClassTypeInfoDB,
 		return () -> getTypeStream(reverse).iterator();
 	}
 
-	private boolean containsTypeKey(long key) {
-		return getType(key) != null;
-	}
-
 }
@@ -2,6 +2,10 @@ package cppclassanalyzer.data.manager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import javax.swing.Icon;
@@ -18,6 +22,7 @@ import ghidra.framework.store.db.PackedDatabase;
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
 import cppclassanalyzer.data.manager.caches.ArchivedRttiCachePair;
 import cppclassanalyzer.data.manager.tables.ArchivedRttiTablePair;
+import cppclassanalyzer.data.manager.tables.ArrayEncodingUpgrader;
 import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.data.typeinfo.GnuClassTypeInfoDB;
@@ -27,6 +32,7 @@ import ghidra.program.model.data.StandAloneDataTypeManager;
 import ghidra.program.model.listing.Function;
 import ghidra.program.model.listing.GhidraClass;
 import ghidra.program.model.symbol.Namespace;
+import ghidra.util.Msg;
 import ghidra.util.exception.AssertException;
 import ghidra.util.exception.CancelledException;
 import ghidra.util.task.TaskMonitor;
@@ -64,6 +70,10 @@ public final class ArchiveClassTypeInfoManager extends StandAloneDataTypeManager
 		super(new ResourceFile(file), openMode);
 		this.plugin = plugin;
 		this.file = file;
+		ArrayEncodingUpgrader.upgradeArchivedClassTable(
+			dbHandle, dbHandle.getTable(ArchivedClassTypeInfo.TABLE_NAME));
+		ArrayEncodingUpgrader.upgradeArchivedVtableTable(
+			dbHandle, dbHandle.getTable(ArchivedGnuVtable.TABLE_NAME));
 		ArchivedClassTypeInfoDatabaseTable classTable = getClassTable();
 		ArchivedGnuVtableDatabaseTable vtableTable = getVtableTable();
 		if (classTable == null) {
@@ -222,19 +232,29 @@ public final class ArchiveClassTypeInfoManager extends StandAloneDataTypeManager
 		try {
 			monitor.initialize(manager.getTypeCount());
 			monitor.setMessage("Populating Data Archive");
+			List<ClassTypeInfo> types = new ArrayList<>(manager.getTypeCount());
+			List<Vtable> vtables = new ArrayList<>();
 			for (ClassTypeInfo type : manager.getTypes()) {
 				monitor.checkCanceled();
 				if (!(type instanceof GnuClassTypeInfoDB)) {
 					monitor.setMessage("Only GNU db are supported");
 					break;
 				}
-				worker.resolve(type);
+				types.add(type);
 				Vtable vtable = type.getVtable();
 				if (Vtable.isValid(vtable)) {
-					worker.resolve(vtable);
+					vtables.add(vtable);
 				}
-				monitor.incrementProgress(1);
 			}
+			monitor.initialize(types.size() + vtables.size());
+			Map<ClassTypeInfo, RuntimeException> typeFailures = new HashMap<>();
+			Map<Vtable, RuntimeException> vtableFailures = new HashMap<>();
+			worker.resolveAll(types, typeFailures, monitor);
+			worker.resolveAllVtables(vtables, vtableFailures, monitor);
+			typeFailures.forEach(
+				(type, e) -> Msg.error(this, "Failed to archive " + type.getName(), e));
+			vtableFailures.forEach(
+				(vtable, e) -> Msg.error(this, "Failed to archive the vtable at " + vtable.getAddress(), e));
 			dbHandle.endTransaction(id, true);
 		} catch (IOException e) {
 			dbError(e);
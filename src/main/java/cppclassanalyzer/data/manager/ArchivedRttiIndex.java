@@ -0,0 +1,377 @@
+package cppclassanalyzer.data.manager;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Predicate;
+
+import cppclassanalyzer.data.ArchivedRttiData;
+import cppclassanalyzer.data.manager.tables.ArchivedRttiTablePair;
+import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
+import cppclassanalyzer.data.vtable.ArchivedGnuVtable;
+import cppclassanalyzer.data.vtable.ArchivedVtable;
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
+import cppclassanalyzer.database.record.ArchivedClassTypeInfoRecord;
+import cppclassanalyzer.database.record.ArchivedGnuVtableRecord;
+import cppclassanalyzer.database.schema.fields.ArchivedClassTypeInfoSchemaFields;
+import cppclassanalyzer.database.schema.fields.ArchivedGnuVtableSchemaFields;
+
+import ghidra.program.database.DatabaseObject;
+
+import db.RecordIterator;
+import db.Table;
+
+/**
+ * An in-memory index from mangled symbol to the archived rtti in every
+ * registered {@link ProjectClassTypeInfoManager}.
+ * The index is built when a project is registered and is kept up to date
+ * as the records of its libraries are written or removed.
+ * <p>
+ * The libraries of a project may instead be served by an attached
+ * {@link MappedRttiArchive} exported from the project, in which case
+ * their symbols are no longer held in memory. This only trims the memory
+ * used by the index: the project archive must still be opened and indexed
+ * before the archive is attached, and the records found through the
+ * archive are still read from the project's database.
+ */
+public final class ArchivedRttiIndex {
+
+	private final Set<ProjectClassTypeInfoManager> projects;
+	private final Map<String, Entry> types;
+	private final Map<String, Entry> vtables;
+	private final List<MappedSource> sources;
+
+	public ArchivedRttiIndex() {
+		this.projects = new HashSet<>();
+		this.types = new HashMap<>();
+		this.vtables = new HashMap<>();
+		this.sources = new ArrayList<>();
+	}
+
+	/**
+	 * Adds all the archived rtti in the project to this index
+	 * @param project the project manager
+	 */
+	public void addProject(ProjectClassTypeInfoManager project) {
+		synchronized (this) {
+			if (!projects.add(project)) {
+				return;
+			}
+		}
+		for (LibraryClassTypeInfoManager lib : project.getLibraries()) {
+			addLibrary(lib);
+		}
+	}
+
+	/**
+	 * Removes all the archived rtti in the project from this index
+	 * @param project the project manager
+	 */
+	public synchronized void removeProject(ProjectClassTypeInfoManager project) {
+		if (projects.remove(project)) {
+			removeIf(types, e -> e.lib.getProjectManager() == project);
+			removeIf(vtables, e -> e.lib.getProjectManager() == project);
+			sources.removeIf(source -> source.project == project);
+		}
+	}
+
+	/**
+	 * Serves the symbols of the libraries of the project which are unchanged
+	 * since the archive was exported from the archive instead of from memory.
+	 * The in-memory symbols of those libraries are released but their records
+	 * are still read from the project's database.
+	 * Any archive previously attached to the project is detached.
+	 * @param project the project manager
+	 * @param archive the archive exported from the project
+	 * @return true if at least one library is served by the archive
+	 */
+	public synchronized boolean attach(ProjectClassTypeInfoManager project,
+			MappedRttiArchive archive) {
+		if (!projects.contains(project) || !project.getName().equals(archive.getProjectName())) {
+			return false;
+		}
+		LibraryClassTypeInfoManager[] libs =
+			new LibraryClassTypeInfoManager[archive.getLibraryCount()];
+		Set<LibraryClassTypeInfoManager> attached = new HashSet<>();
+		for (int i = 0; i < libs.length; i++) {
+			LibraryClassTypeInfoManager lib = project.getLibrary(archive.getLibraryName(i));
+			if (lib != null && isCurrent(lib, archive, i)) {
+				libs[i] = lib;
+				attached.add(lib);
+			}
+		}
+		if (attached.isEmpty()) {
+			return false;
+		}
+		sources.removeIf(source -> source.project == project);
+		removeIf(types, e -> attached.contains(e.lib));
+		removeIf(vtables, e -> attached.contains(e.lib));
+		sources.add(new MappedSource(project, archive, libs));
+		return true;
+	}
+
+	private static boolean isCurrent(LibraryClassTypeInfoManager lib, MappedRttiArchive archive,
+			int library) {
+		ArchivedRttiTablePair tables = lib.getTables();
+		Table typeTable = tables.getTypeTable();
+		Table vtableTable = tables.getVtableTable();
+		return typeTable.getRecordCount() == archive.getTypeCount(library)
+			&& typeTable.getMaxKey() == archive.getTypeMaxKey(library)
+			&& vtableTable.getRecordCount() == archive.getVtableCount(library)
+			&& vtableTable.getMaxKey() == archive.getVtableMaxKey(library);
+	}
+
+	/**
+	 * Checks if the project has been added to this index
+	 * @param project the project manager
+	 * @return true if the project is indexed
+	 */
+	public synchronized boolean containsProject(ProjectClassTypeInfoManager project) {
+		return projects.contains(project);
+	}
+
+	/**
+	 * Gets the archived rtti with the specified mangled symbol
+	 * @param <T> the archived rtti type
+	 * @param clazz the archived rtti class
+	 * @param symbolName the mangled symbol
+	 * @return the archived rtti or null if none exists
+	 */
+	public <T extends ArchivedRttiData> T get(Class<T> clazz, String symbolName) {
+		if (clazz.isAssignableFrom(ArchivedClassTypeInfo.class)) {
+			T result = get(clazz, symbolName, false);
+			if (result != null) {
+				return result;
+			}
+		}
+		if (clazz.isAssignableFrom(ArchivedVtable.class)
+				|| ArchivedVtable.class.isAssignableFrom(clazz)) {
+			return get(clazz, symbolName, true);
+		}
+		return null;
+	}
+
+	private <T extends ArchivedRttiData> T get(Class<T> clazz, String symbolName,
+			boolean vtable) {
+		Entry entry;
+		MappedSource[] mapped;
+		synchronized (this) {
+			entry = (vtable ? vtables : types).get(symbolName);
+			mapped = sources.toArray(MappedSource[]::new);
+		}
+		for (; entry != null; entry = entry.next) {
+			DatabaseObject data = getData(entry.lib, entry.key, vtable);
+			// the record may have been rewritten with another symbol
+			String name = getSymbolName(data);
+			if (name != null && !symbolName.equals(name)) {
+				removeStale(symbolName, entry, vtable);
+				continue;
+			}
+			if (clazz.isInstance(data)) {
+				return clazz.cast(data);
+			}
+		}
+		for (MappedSource source : mapped) {
+			MappedRttiArchive archive = source.archive;
+			for (int i = archive.find(symbolName, vtable); i != -1; i = archive.next(i)) {
+				LibraryClassTypeInfoManager lib = source.libs[archive.getLibrary(i)];
+				if (lib == null) {
+					continue;
+				}
+				DatabaseObject data = getData(lib, archive.getKey(i), vtable);
+				// the record may have been replaced since the archive was exported
+				if (clazz.isInstance(data) && symbolName.equals(getSymbolName(data))) {
+					return clazz.cast(data);
+				}
+			}
+		}
+		return null;
+	}
+
+	private synchronized void removeStale(String symbolName, Entry entry, boolean vtable) {
+		(vtable ? vtables : types).computeIfPresent(
+			symbolName, (k, e) -> e.remove(entry.lib, entry.key));
+	}
+
+	private static DatabaseObject getData(LibraryClassTypeInfoManager lib, long key,
+			boolean vtable) {
+		return vtable ? lib.getVtable(key) : lib.getType(key);
+	}
+
+	private static String getSymbolName(DatabaseObject data) {
+		if (data instanceof ArchivedClassTypeInfo) {
+			return ((ArchivedClassTypeInfo) data).getSymbolName();
+		}
+		if (data instanceof ArchivedGnuVtable) {
+			return ((ArchivedGnuVtable) data).getSymbolName();
+		}
+		return null;
+	}
+
+	void addLibrary(LibraryClassTypeInfoManager lib) {
+		List<String> typeSymbols = new ArrayList<>();
+		List<String> vtableSymbols = new ArrayList<>();
+		long[] typeKeys = readSymbols(lib, lib.getTables().getTypeTable(),
+			ArchivedClassTypeInfoSchemaFields.MANGLED_SYMBOL.ordinal(), typeSymbols);
+		long[] vtableKeys = readSymbols(lib, lib.getTables().getVtableTable(),
+			ArchivedGnuVtableSchemaFields.MANGLED_SYMBOL.ordinal(), vtableSymbols);
+		synchronized (this) {
+			if (!projects.contains(lib.getProjectManager())) {
+				return;
+			}
+			for (int i = 0; i < typeKeys.length; i++) {
+				put(types, typeSymbols.get(i), lib, typeKeys[i]);
+			}
+			for (int i = 0; i < vtableKeys.length; i++) {
+				put(vtables, vtableSymbols.get(i), lib, vtableKeys[i]);
+			}
+		}
+	}
+
+	void reindexLibrary(LibraryClassTypeInfoManager lib) {
+		synchronized (this) {
+			removeIf(types, e -> e.lib == lib);
+			removeIf(vtables, e -> e.lib == lib);
+			for (MappedSource source : sources) {
+				source.detach(lib);
+			}
+		}
+		addLibrary(lib);
+	}
+
+	synchronized void typeChanged(LibraryClassTypeInfoManager lib,
+			ArchivedClassTypeInfoRecord record) {
+		String symbolName =
+			record.getStringValue(ArchivedClassTypeInfoSchemaFields.MANGLED_SYMBOL);
+		if (projects.contains(lib.getProjectManager()) && symbolName != null) {
+			put(types, symbolName, lib, record.getKey());
+		}
+	}
+
+	synchronized void vtableChanged(LibraryClassTypeInfoManager lib,
+			ArchivedGnuVtableRecord record) {
+		String symbolName =
+			record.getStringValue(ArchivedGnuVtableSchemaFields.MANGLED_SYMBOL);
+		if (projects.contains(lib.getProjectManager()) && symbolName != null) {
+			put(vtables, symbolName, lib, record.getKey());
+		}
+	}
+
+	synchronized void typeRemoved(LibraryClassTypeInfoManager lib,
+			ArchivedClassTypeInfoRecord record) {
+		String symbolName =
+			record.getStringValue(ArchivedClassTypeInfoSchemaFields.MANGLED_SYMBOL);
+		if (symbolName != null) {
+			long key = record.getKey();
+			types.computeIfPresent(symbolName, (k, e) -> e.remove(lib, key));
+		}
+	}
+
+	private static long[] readSymbols(LibraryClassTypeInfoManager lib, Table table, int column,
+			List<String> symbols) {
+		long[] keys = new long[table.getRecordCount()];
+		int size = 0;
+		try {
+			for (RecordIterator it = table.iterator(); it.hasNext();) {
+				db.Record record = it.next();
+				if (size == keys.length) {
+					keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+				}
+				keys[size++] = record.getKey();
+				symbols.add(record.getString(column));
+			}
+		} catch (IOException e) {
+			lib.dbError(e);
+		}
+		return Arrays.copyOf(keys, size);
+	}
+
+	private static void put(Map<String, Entry> map, String symbolName,
+			LibraryClassTypeInfoManager lib, long key) {
+		Entry head = map.get(symbolName);
+		for (Entry e = head; e != null; e = e.next) {
+			if (e.lib == lib && e.key == key) {
+				return;
+			}
+		}
+		// the first library to contain a symbol takes precedence
+		Entry entry = new Entry(lib, key);
+		if (head == null) {
+			map.put(symbolName, entry);
+		} else {
+			Entry tail = head;
+			while (tail.next != null) {
+				tail = tail.next;
+			}
+			tail.next = entry;
+		}
+	}
+
+	private static void removeIf(Map<String, Entry> map, Predicate<Entry> predicate) {
+		for (Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Entry> mapEntry = it.next();
+			Entry head = mapEntry.getValue();
+			while (head != null && predicate.test(head)) {
+				head = head.next;
+			}
+			if (head == null) {
+				it.remove();
+				continue;
+			}
+			for (Entry e = head; e.next != null;) {
+				if (predicate.test(e.next)) {
+					e.next = e.next.next;
+				} else {
+					e = e.next;
+				}
+			}
+			mapEntry.setValue(head);
+		}
+	}
+
+	private static final class MappedSource {
+
+		private final ProjectClassTypeInfoManager project;
+		private final MappedRttiArchive archive;
+		private final LibraryClassTypeInfoManager[] libs;
+
+		MappedSource(ProjectClassTypeInfoManager project, MappedRttiArchive archive,
+				LibraryClassTypeInfoManager[] libs) {
+			this.project = project;
+			this.archive = archive;
+			this.libs = libs;
+		}
+
+		void detach(LibraryClassTypeInfoManager lib) {
+			for (int i = 0; i < libs.length; i++) {
+				if (libs[i] == lib) {
+					libs[i] = null;
+				}
+			}
+		}
+	}
+
+	private static final class Entry {
+
+		private final LibraryClassTypeInfoManager lib;
+		private final long key;
+		private volatile Entry next;
+
+		Entry(LibraryClassTypeInfoManager lib, long key) {
+			this.lib = lib;
+			this.key = key;
+		}
+
+		Entry remove(LibraryClassTypeInfoManager lib, long key) {
+			if (this.lib == lib && this.key == key) {
+				return next;
+			}
+			for (Entry e = this; e.next != null; e = e.next) {
+				if (e.next.lib == lib && e.next.key == key) {
+					e.next = e.next.next;
+					break;
+				}
+			}
+			return this;
+		}
+	}
+}
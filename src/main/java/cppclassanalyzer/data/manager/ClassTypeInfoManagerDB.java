@@ -14,8 +14,12 @@ import cppclassanalyzer.plugin.typemgr.node.TypeInfoTreeNodeManager;
 import ghidra.program.database.ManagerDB;
 import ghidra.program.database.ProgramDB;
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.manager.caches.AddressKeyIndex;
+import cppclassanalyzer.data.manager.caches.InheritanceGraph;
 import cppclassanalyzer.data.manager.caches.ProgramRttiCachePair;
+import cppclassanalyzer.data.manager.caches.RttiCacheStatistics;
 import cppclassanalyzer.data.manager.recordmanagers.ProgramRttiRecordManager;
+import cppclassanalyzer.data.manager.tables.ArrayEncodingUpgrader;
 import cppclassanalyzer.data.manager.tables.ProgramRttiTablePair;
 import cppclassanalyzer.data.typeinfo.*;
 import cppclassanalyzer.data.vtable.*;
@@ -43,14 +47,25 @@ import cppclassanalyzer.database.utils.TransactionHandler;
 import cppclassanalyzer.plugin.ClassTypeInfoManagerPlugin;
 import cppclassanalyzer.plugin.TypeInfoArchiveChangeRecord;
 import cppclassanalyzer.plugin.TypeInfoArchiveChangeRecord.ChangeType;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import db.DBHandle;
 import db.LongField;
+import db.RecordIterator;
 import db.Table;
 import resources.ResourceManager;
 import util.CollectionUtils;
 
 public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassTypeInfoManager {
 
+	/**
+	 * The system property which may be set to false to look up
+	 * record keys through the table indices instead of the in-memory address indices
+	 */
+	public static final String ADDRESS_INDEX_PROPERTY = "cppclassanalyzer.address.index";
+
+	private static final boolean USE_ADDRESS_INDEX =
+		Boolean.parseBoolean(System.getProperty(ADDRESS_INDEX_PROPERTY, "true"));
+
 	private static final Icon[] ICONS = new Icon[] {
 		ResourceManager.loadImage("images/openBookRed.png"),
 		ResourceManager.loadImage("images/closedBookRed.png")
@@ -62,11 +77,17 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 	protected final RttiRecordWorker worker;
 	protected final TypeInfoTreeNodeManager treeNodeManager;
 
+	// built lazily from the tables and discarded whenever the worker is invalidated
+	private AddressKeyIndex typeIndex;
+	private AddressKeyIndex vtableIndex;
+	private InheritanceGraph inheritanceGraph;
+
 	protected ClassTypeInfoManagerDB(ClassTypeInfoManagerPlugin plugin, ProgramDB program) {
 		this.plugin = plugin;
 		this.program = program;
 		this.map = program.getAddressMap();
 		DBHandle handle = program.getDBHandle();
+		upgradeTables(handle);
 		ClassTypeInfoDatabaseTable classTable = getClassTable(handle);
 		VtableDatabaseTable vtableTable = getVtableTable(handle);
 		if (shouldResetDatabase(classTable, vtableTable)) {
@@ -90,10 +111,22 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 		ProgramRttiCachePair caches = new ProgramRttiCachePair();
 		ProgramRttiTablePair tables = new ProgramRttiTablePair(classTable, vtableTable);
 		this.worker = getWorker(tables, caches);
+		worker.setMetrics(AnalysisMetrics.getMetrics(program));
 		this.treeNodeManager = new TypeInfoTreeNodeManager(plugin, this);
 		treeNodeManager.generateTree();
 	}
 
+	private void upgradeTables(DBHandle handle) {
+		Table classTable = handle.getTable(AbstractClassTypeInfoDB.CLASS_TYPEINFO_TABLE_NAME);
+		Table vtableTable = handle.getTable(AbstractVtableDB.VTABLE_TABLE_NAME);
+		try {
+			ArrayEncodingUpgrader.upgradeVtableTable(handle, vtableTable, hasVftables());
+			ArrayEncodingUpgrader.upgradeClassTable(handle, classTable);
+		} catch (IOException e) {
+			dbError(e);
+		}
+	}
+
 	private ClassTypeInfoDatabaseTable getClassTable(DBHandle handle) {
 		Table classTable = handle.getTable(AbstractClassTypeInfoDB.CLASS_TYPEINFO_TABLE_NAME);
 		if (classTable != null) {
@@ -124,6 +157,13 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 	protected abstract RttiRecordWorker getWorker(
 		ProgramRttiTablePair tables, ProgramRttiCachePair caches);
 
+	/**
+	 * Checks if the vtable records are Microsoft vftables.
+	 * This is invoked during construction and must not depend upon any state.
+	 * @return true if the vtable records are vftables
+	 */
+	protected abstract boolean hasVftables();
+
 	protected static ClassTypeInfoDatabaseTable getNewClassTable(DBHandle handle) throws IOException {
 		Table classTable = handle.createTable(
 			AbstractClassTypeInfoDB.CLASS_TYPEINFO_TABLE_NAME,
@@ -153,6 +193,9 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 	public final long getTypeKey(Address address) {
 		try {
 			long addrKey = encodeAddress(address);
+			if (USE_ADDRESS_INDEX && AddressKeyIndex.isIndexable(addrKey)) {
+				return getIndexedTypeKey(addrKey);
+			}
 			long[] keys = worker.getTables()
 				.getTypeTable()
 				.findRecords(
@@ -174,6 +217,9 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 	public final long getVtableKey(Address address) {
 		try {
 			long addrKey = encodeAddress(address);
+			if (USE_ADDRESS_INDEX && AddressKeyIndex.isIndexable(addrKey)) {
+				return getIndexedVtableKey(addrKey);
+			}
 			long[] keys = worker.getTables()
 				.getVtableTable()
 				.findRecords(
@@ -191,6 +237,121 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 		return INVALID_KEY;
 	}
 
+	private synchronized long getIndexedTypeKey(long addrKey) throws IOException {
+		if (typeIndex == null) {
+			typeIndex = buildIndex(
+				worker.getTables().getTypeTable(), ClassTypeInfoSchemaFields.ADDRESS.ordinal(),
+				"Ghidra-Cpp-Class-Analyzer: duplicate ClassTypeInfo detected");
+		}
+		long key = typeIndex.get(addrKey);
+		return key != AddressKeyIndex.NO_KEY ? key : INVALID_KEY;
+	}
+
+	private synchronized long getIndexedVtableKey(long addrKey) throws IOException {
+		if (vtableIndex == null) {
+			vtableIndex = buildIndex(
+				worker.getTables().getVtableTable(), VtableSchemaFields.ADDRESS.ordinal(),
+				"Ghidra-Cpp-Class-Analyzer: duplicate Vtable detected");
+		}
+		long key = vtableIndex.get(addrKey);
+		return key != AddressKeyIndex.NO_KEY ? key : INVALID_KEY;
+	}
+
+	private static AddressKeyIndex buildIndex(Table table, int column, String duplicateMsg)
+			throws IOException {
+		AddressKeyIndex index = new AddressKeyIndex(table.getRecordCount());
+		RecordIterator iter = table.iterator();
+		while (iter.hasNext()) {
+			db.Record record = iter.next();
+			long addrKey = record.getLongValue(column);
+			if (!AddressKeyIndex.isIndexable(addrKey)) {
+				continue;
+			}
+			if (index.get(addrKey) != AddressKeyIndex.NO_KEY) {
+				throw new AssertException(duplicateMsg);
+			}
+			index.put(addrKey, record.getKey());
+		}
+		return index;
+	}
+
+	private synchronized void indexType(ClassTypeInfoRecord record) {
+		long addrKey = record.getLongValue(ClassTypeInfoSchemaFields.ADDRESS);
+		if (typeIndex != null && AddressKeyIndex.isIndexable(addrKey)) {
+			typeIndex.put(addrKey, record.getKey());
+		}
+		if (inheritanceGraph != null) {
+			// most changes leave the parents untouched
+			long[] parents = inheritanceGraph.getParents(record.getKey());
+			if (!inheritanceGraph.contains(record.getKey())
+					|| !Arrays.equals(parents, getParentKeys(record))) {
+				inheritanceGraph = null;
+			}
+		}
+	}
+
+	private synchronized void indexVtable(VtableRecord record) {
+		long addrKey = record.getLongValue(VtableSchemaFields.ADDRESS);
+		if (vtableIndex != null && AddressKeyIndex.isIndexable(addrKey)) {
+			vtableIndex.put(addrKey, record.getKey());
+		}
+	}
+
+	private synchronized void unindexType(ClassTypeInfoRecord record) {
+		if (typeIndex != null) {
+			long addrKey = record.getLongValue(ClassTypeInfoSchemaFields.ADDRESS);
+			typeIndex.remove(addrKey, record.getKey());
+		}
+		inheritanceGraph = null;
+	}
+
+	private synchronized void clearIndices() {
+		typeIndex = null;
+		vtableIndex = null;
+		inheritanceGraph = null;
+	}
+
+	@Override
+	public synchronized InheritanceGraph getInheritanceGraph() {
+		if (inheritanceGraph == null) {
+			try {
+				inheritanceGraph = buildInheritanceGraph();
+			} catch (IOException e) {
+				dbError(e);
+				return InheritanceGraph.build(new long[0], new long[0][]);
+			}
+		}
+		return inheritanceGraph;
+	}
+
+	private InheritanceGraph buildInheritanceGraph() throws IOException {
+		Table table = worker.getTables().getTypeTable();
+		int count = table.getRecordCount();
+		long[] keys = new long[count];
+		long[][] parents = new long[count][];
+		RecordIterator iter = table.iterator();
+		int i = 0;
+		while (i < count && iter.hasNext()) {
+			ClassTypeInfoRecord record = new ClassTypeInfoRecord(iter.next());
+			keys[i] = record.getKey();
+			parents[i++] = getParentKeys(record);
+		}
+		if (i < count) {
+			keys = Arrays.copyOf(keys, i);
+			parents = Arrays.copyOf(parents, i);
+		}
+		return InheritanceGraph.build(keys, parents);
+	}
+
+	private static long[] getParentKeys(ClassTypeInfoRecord record) {
+		try {
+			return AbstractClassTypeInfoDB.getBaseKeys(record);
+		} catch (RuntimeException e) {
+			// an incomplete record has no parents yet
+			return new long[0];
+		}
+	}
+
 	public final Address decodeAddress(long offset) {
 		return map.decodeAddress(offset);
 	}
@@ -243,9 +404,25 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 		// do nothing
 	}
 
+	/**
+	 * Gets the statistics for the ClassTypeInfo object cache
+	 * @return the type cache statistics
+	 */
+	public final RttiCacheStatistics getTypeCacheStatistics() {
+		return worker.getCaches().getTypeStatistics();
+	}
+
+	/**
+	 * Gets the statistics for the Vtable object cache
+	 * @return the vtable cache statistics
+	 */
+	public final RttiCacheStatistics getVtableCacheStatistics() {
+		return worker.getCaches().getVtableStatistics();
+	}
+
 	@Override
 	public final void invalidateCache(boolean all) {
-		worker.getCaches().invalidate();
+		worker.invalidate();
 	}
 
 	private LongArrayList getTypeKeys(Address startAddr, Address endAddr, TaskMonitor monitor)
@@ -289,6 +466,8 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 			}
 		} catch (IOException e) {
 			dbError(e);
+		} finally {
+			worker.invalidate();
 		}
 	}
 
@@ -317,6 +496,8 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 			}
 		} catch (IOException e) {
 			dbError(e);
+		} finally {
+			worker.invalidate();
 		}
 	}
 
@@ -397,6 +578,13 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 		return (AbstractClassTypeInfoDB) worker.resolve(type);
 	}
 
+	@Override
+	public List<ClassTypeInfoDB> resolveAll(Collection<? extends ClassTypeInfo> types,
+			Map<ClassTypeInfo, RuntimeException> failures, TaskMonitor monitor)
+			throws CancelledException {
+		return Collections.unmodifiableList(worker.resolveAll(types, failures, monitor));
+	}
+
 	@Override
 	public Vtable resolve(Vtable vtable) {
 		return (Vtable) worker.resolve(vtable);
@@ -572,5 +760,25 @@ public abstract class ClassTypeInfoManagerDB implements ManagerDB, ProgramClassT
 		public final AbstractClassTypeInfoDB resolve(ArchivedClassTypeInfo type) {
 			return getManager().resolve(type);
 		}
+
+		@Override
+		final void typeRecordChanged(ClassTypeInfoRecord record) {
+			indexType(record);
+		}
+
+		@Override
+		final void vtableRecordChanged(VtableRecord record) {
+			indexVtable(record);
+		}
+
+		@Override
+		final void typeRecordRemoved(ClassTypeInfoRecord record) {
+			unindexType(record);
+		}
+
+		@Override
+		final void recordsInvalidated() {
+			clearIndices();
+		}
 	}
 }
@@ -1,13 +1,16 @@
 package cppclassanalyzer.data.manager;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import ghidra.app.cmd.data.rtti.*;
+import ghidra.app.cmd.data.rtti.gcc.GnuVtableDiscovery;
 import ghidra.app.util.importer.MessageLog;
 import ghidra.program.database.ProgramDB;
 import ghidra.program.model.address.Address;
@@ -90,6 +93,11 @@ public final class ItaniumAbiClassTypeInfoManager extends ClassTypeInfoManagerDB
 		return new GnuRttiRecordWorker(tables, caches);
 	}
 
+	@Override
+	protected boolean hasVftables() {
+		return false;
+	}
+
 	private ClassTypeInfoRecord[] getClassRecords() {
 		try {
 			ClassTypeInfoRecord[] keys = new ClassTypeInfoRecord[getTypeCount()];
@@ -112,12 +120,14 @@ public final class ItaniumAbiClassTypeInfoManager extends ClassTypeInfoManagerDB
 	public void findVtables(TaskMonitor monitor, MessageLog log) throws CancelledException {
 		TaskMonitor dummy = new CancelOnlyWrappingTaskMonitor(monitor);
 		sort(monitor);
-		monitor.initialize(getTypeCount());
+		List<GnuClassTypeInfoDB> types = getGnuTypes(getTypes(true));
+		GnuVtableDiscovery discovery = GnuVtableDiscovery.discover(program, types, dummy);
+		monitor.initialize(types.size());
 		monitor.setMessage("Finding vtables");
-		for (ClassTypeInfoDB type : getTypes(true)) {
+		for (GnuClassTypeInfoDB type : types) {
 			monitor.checkCanceled();
 			try {
-				type.findVtable(dummy);
+				type.findVtable(discovery, dummy);
 			} catch (CancelledException e) {
 				throw e;
 			} catch (Exception e) {
@@ -131,6 +141,45 @@ public final class ItaniumAbiClassTypeInfoManager extends ClassTypeInfoManagerDB
 		treeNodeManager.generateTree();
 	}
 
+	/**
+	 * Finds the vtables for the provided types. Unlike {@link #findVtables(TaskMonitor, MessageLog)}
+	 * the type table is not reordered, so the keys of the existing types remain valid.
+	 * @param types the types whose vtables are to be found
+	 * @param monitor the task monitor
+	 * @param log the message log
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public void findVtables(List<? extends ClassTypeInfoDB> types, TaskMonitor monitor,
+			MessageLog log) throws CancelledException {
+		TaskMonitor dummy = new CancelOnlyWrappingTaskMonitor(monitor);
+		List<GnuClassTypeInfoDB> gnuTypes = getGnuTypes(types);
+		GnuVtableDiscovery discovery = GnuVtableDiscovery.discover(program, gnuTypes, dummy);
+		monitor.initialize(gnuTypes.size());
+		monitor.setMessage("Finding vtables");
+		// in reverse key order, the same as the full search
+		for (int i = gnuTypes.size() - 1; i >= 0; i--) {
+			monitor.checkCanceled();
+			try {
+				gnuTypes.get(i).findVtable(discovery, dummy);
+			} catch (CancelledException e) {
+				throw e;
+			} catch (Exception e) {
+				if (log != null) {
+					log.appendException(e);
+				}
+			}
+			monitor.incrementProgress(1);
+		}
+	}
+
+	private static List<GnuClassTypeInfoDB> getGnuTypes(Iterable<? extends ClassTypeInfoDB> types) {
+		List<GnuClassTypeInfoDB> result = new ArrayList<>();
+		for (ClassTypeInfoDB type : types) {
+			result.add((GnuClassTypeInfoDB) type);
+		}
+		return result;
+	}
+
 	private boolean isValidRecord(ClassTypeInfoRecord record) {
 		try {
 			AbstractClassTypeInfoDB.getBaseCount(record);
@@ -239,7 +288,7 @@ public final class ItaniumAbiClassTypeInfoManager extends ClassTypeInfoManagerDB
 				throw new AssertException(e);
 			}
 			worker.getTables().deleteAll();
-			worker.getCaches().invalidate();
+			worker.invalidate();
 			iter = new SchemaRecordIterator<>(
 				tmpTable.getTable().iterator(), ClassTypeInfoRecord::new);
 			while (iter.hasNext()) {
@@ -14,6 +14,9 @@ import cppclassanalyzer.data.manager.caches.ArchivedRttiCachePair;
 import cppclassanalyzer.data.manager.tables.ArchivedRttiTablePair;
 import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
+import cppclassanalyzer.data.vtable.ArchivedGnuVtable;
+import cppclassanalyzer.database.record.ArchivedClassTypeInfoRecord;
+import cppclassanalyzer.database.record.ArchivedGnuVtableRecord;
 import cppclassanalyzer.database.utils.TransactionHandler;
 import cppclassanalyzer.plugin.ClassTypeInfoManagerPlugin;
 
@@ -149,6 +152,15 @@ public final class LibraryClassTypeInfoManager implements ClassTypeInfoManager {
 		return worker.getArchivedData(symbolName);
 	}
 
+	ArchivedGnuVtable getVtable(long key) {
+		return worker.getVtable(key);
+	}
+
+	private ArchivedRttiIndex getIndex() {
+		ClassTypeInfoManagerPlugin plugin = manager.getPlugin();
+		return plugin != null ? plugin.getArchivedRttiIndex() : null;
+	}
+
 	private final class RttiRecordWorker extends ArchiveRttiRecordWorker {
 
 		RttiRecordWorker(ArchivedRttiTablePair tables, ArchivedRttiCachePair caches) {
@@ -164,5 +176,37 @@ public final class LibraryClassTypeInfoManager implements ClassTypeInfoManager {
 		public DataTypeManager getDataTypeManager() {
 			return manager;
 		}
+
+		@Override
+		void typeRecordChanged(ArchivedClassTypeInfoRecord record) {
+			ArchivedRttiIndex index = getIndex();
+			if (index != null) {
+				index.typeChanged(LibraryClassTypeInfoManager.this, record);
+			}
+		}
+
+		@Override
+		void vtableRecordChanged(ArchivedGnuVtableRecord record) {
+			ArchivedRttiIndex index = getIndex();
+			if (index != null) {
+				index.vtableChanged(LibraryClassTypeInfoManager.this, record);
+			}
+		}
+
+		@Override
+		void typeRecordRemoved(ArchivedClassTypeInfoRecord record) {
+			ArchivedRttiIndex index = getIndex();
+			if (index != null) {
+				index.typeRemoved(LibraryClassTypeInfoManager.this, record);
+			}
+		}
+
+		@Override
+		void recordsInvalidated() {
+			ArchivedRttiIndex index = getIndex();
+			if (index != null) {
+				index.reindexLibrary(LibraryClassTypeInfoManager.this);
+			}
+		}
 	}
 }
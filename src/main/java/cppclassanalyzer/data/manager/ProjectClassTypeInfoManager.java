@@ -1,5 +1,6 @@
 package cppclassanalyzer.data.manager;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Stream;
@@ -22,6 +23,7 @@ import cppclassanalyzer.data.ArchivedRttiData;
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
 import cppclassanalyzer.data.manager.tables.ArchivedRttiTablePair;
+import cppclassanalyzer.data.manager.tables.ArrayEncodingUpgrader;
 import cppclassanalyzer.data.typeinfo.ArchivedClassTypeInfo;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.data.vtable.ArchivedGnuVtable;
@@ -40,7 +42,11 @@ import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
 import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.database.schema.ArchivedClassTypeInfoSchema;
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
+import cppclassanalyzer.database.mapped.MappedRttiArchiveWriter;
 import cppclassanalyzer.database.schema.ArchivedGnuVtableSchema;
+import cppclassanalyzer.database.schema.fields.ArchivedClassTypeInfoSchemaFields;
+import cppclassanalyzer.database.schema.fields.ArchivedGnuVtableSchemaFields;
 import cppclassanalyzer.database.tables.ArchivedClassTypeInfoDatabaseTable;
 import cppclassanalyzer.database.tables.ArchivedGnuVtableDatabaseTable;
 import cppclassanalyzer.database.utils.TransactionHandler;
@@ -113,12 +119,16 @@ public final class ProjectClassTypeInfoManager extends ProjectDataTypeManager
 
 	private ArchivedClassTypeInfoDatabaseTable getClassTable(String name)
 			throws IOException {
-		return new ArchivedClassTypeInfoDatabaseTable(dbHandle.getTable(name));
+		Table table = ArrayEncodingUpgrader.upgradeArchivedClassTable(
+			dbHandle, dbHandle.getTable(name));
+		return new ArchivedClassTypeInfoDatabaseTable(table);
 	}
 
 	private ArchivedGnuVtableDatabaseTable getVtableTable(String name)
 			throws IOException {
-		return new ArchivedGnuVtableDatabaseTable(dbHandle.getTable(name));
+		Table table = ArrayEncodingUpgrader.upgradeArchivedVtableTable(
+			dbHandle, dbHandle.getTable(name));
+		return new ArchivedGnuVtableDatabaseTable(table);
 	}
 
 	private ArchivedClassTypeInfoDatabaseTable createClassTable(String name) throws IOException {
@@ -388,6 +398,36 @@ public final class ProjectClassTypeInfoManager extends ProjectDataTypeManager
 		}
 	}
 
+	/**
+	 * Exports the symbol index of the archived rtti in this project to a
+	 * {@link MappedRttiArchive}
+	 * @param file the archive file
+	 * @param monitor the task monitor
+	 * @throws IOException if an error occurs reading the project or writing the file
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public void exportMappedArchive(File file, TaskMonitor monitor)
+			throws IOException, CancelledException {
+		List<LibraryClassTypeInfoManager> libs = new ArrayList<>(libMap.values());
+		long count = 0;
+		for (LibraryClassTypeInfoManager lib : libs) {
+			ArchivedRttiTablePair tables = lib.getTables();
+			count += tables.getTypeTable().getRecordCount();
+			count += tables.getVtableTable().getRecordCount();
+		}
+		monitor.initialize(count);
+		monitor.setMessage("Exporting " + getName());
+		MappedRttiArchiveWriter writer = new MappedRttiArchiveWriter(getName());
+		for (LibraryClassTypeInfoManager lib : libs) {
+			ArchivedRttiTablePair tables = lib.getTables();
+			writer.addLibrary(lib.getName(),
+				tables.getTypeTable(), ArchivedClassTypeInfoSchemaFields.MANGLED_SYMBOL.ordinal(),
+				tables.getVtableTable(), ArchivedGnuVtableSchemaFields.MANGLED_SYMBOL.ordinal(),
+				monitor);
+		}
+		writer.write(file);
+	}
+
 	public <T extends ArchivedRttiData> T getRttiData(Class<T> clazz, String symbolName) {
 		return libMap.values()
 			.stream()
@@ -0,0 +1,106 @@
+package cppclassanalyzer.data.manager;
+
+import java.io.IOException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import db.RecordIterator;
+import db.Table;
+import db.util.ErrorHandler;
+
+/**
+ * A Spliterator over the records of a table within a range of keys.
+ * The range is split in half so that parallel streams may read the table concurrently.
+ * Each record is fetched exactly once.
+ */
+final class RecordSpliterator implements Spliterator<db.Record> {
+
+	// ranges with fewer keys than this are not split
+	private static final long MIN_SPLIT_RANGE = 1024;
+
+	private final Table table;
+	private final ErrorHandler handler;
+	private final boolean reverse;
+	private long minKey;
+	private long maxKey;
+	private long estimate;
+	private RecordIterator iter;
+
+	/**
+	 * Constructs a new RecordSpliterator over all the records in the table
+	 * @param table the table
+	 * @param reverse true to traverse the records in descending key order
+	 * @param handler the database error handler
+	 */
+	RecordSpliterator(Table table, boolean reverse, ErrorHandler handler) {
+		this(table, 0, table.getMaxKey(), table.getRecordCount(), reverse, handler);
+	}
+
+	private RecordSpliterator(Table table, long minKey, long maxKey, long estimate,
+			boolean reverse, ErrorHandler handler) {
+		this.table = table;
+		this.minKey = minKey;
+		this.maxKey = maxKey;
+		this.estimate = estimate;
+		this.reverse = reverse;
+		this.handler = handler;
+	}
+
+	private boolean isEmpty() {
+		return maxKey < minKey;
+	}
+
+	private RecordIterator getIterator() throws IOException {
+		if (iter == null) {
+			iter = table.iterator(minKey, maxKey, reverse ? maxKey : minKey);
+		}
+		return iter;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super db.Record> action) {
+		if (isEmpty()) {
+			return false;
+		}
+		try {
+			RecordIterator it = getIterator();
+			if (reverse ? !it.hasPrevious() : !it.hasNext()) {
+				return false;
+			}
+			action.accept(reverse ? it.previous() : it.next());
+			return true;
+		} catch (IOException e) {
+			handler.dbError(e);
+			return false;
+		}
+	}
+
+	@Override
+	public Spliterator<db.Record> trySplit() {
+		// the range is fixed once traversal has begun
+		if (iter != null || isEmpty() || maxKey - minKey < MIN_SPLIT_RANGE) {
+			return null;
+		}
+		long mid = minKey + ((maxKey - minKey) >>> 1);
+		estimate >>>= 1;
+		RecordSpliterator prefix;
+		if (reverse) {
+			prefix = new RecordSpliterator(table, mid + 1, maxKey, estimate, true, handler);
+			maxKey = mid;
+		} else {
+			prefix = new RecordSpliterator(table, minKey, mid, estimate, false, handler);
+			minKey = mid + 1;
+		}
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		return isEmpty() ? 0 : estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | DISTINCT | NONNULL;
+	}
+}
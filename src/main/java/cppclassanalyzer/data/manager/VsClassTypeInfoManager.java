@@ -37,6 +37,11 @@ public final class VsClassTypeInfoManager extends ClassTypeInfoManagerDB {
 		return new WindowsRttiRecordWorker(tables, caches);
 	}
 
+	@Override
+	protected boolean hasVftables() {
+		return true;
+	}
+
 	private static boolean isRtti4Model(Data data) {
 		if (data == null) {
 			return false;
@@ -0,0 +1,127 @@
+package cppclassanalyzer.data.manager.caches;
+
+import java.util.*;
+
+import ghidra.program.database.DBObjectCache;
+import ghidra.program.database.DatabaseObject;
+import ghidra.util.datastruct.RedBlackLongKeySet;
+
+/**
+ * A {@link DBObjectCache} which is replaced by a larger one as the number of records grows.
+ * Since a DatabaseObject is bound to the cache it was created with, replaced caches
+ * are retained so that their objects may still be found and invalidated. A replaced
+ * cache only holds its objects weakly and is dropped once all of them have been collected.
+ * The memory budget is shared by every live cache so a cache only grows into the part
+ * of the budget not already reserved by the others.
+ */
+final class AdaptiveObjectCache<T extends DatabaseObject> {
+
+	// the number of misses between checks of the desired capacity
+	private static final int CHECK_INTERVAL = 64;
+
+	// the number of built keys tracked per unit of capacity before the set is reset
+	private static final int BUILT_KEYS_PER_CAPACITY = 4;
+
+	// the live caches whose capacities are charged against the shared budget
+	private static final Map<AdaptiveObjectCache<?>, Boolean> CACHES = new WeakHashMap<>();
+
+	private final int minCapacity;
+	private final long objectSize;
+	private final List<DBObjectCache<T>> retired;
+	private final RedBlackLongKeySet built;
+	private final RttiCacheStatistics stats;
+	private volatile DBObjectCache<T> cache;
+	private volatile int capacity;
+	private int missesSinceCheck;
+
+	/**
+	 * Constructs a new AdaptiveObjectCache
+	 * @param minCapacity the minimum capacity
+	 * @param objectSize the estimated size in bytes of a cached object
+	 */
+	AdaptiveObjectCache(int minCapacity, long objectSize) {
+		this.minCapacity = minCapacity;
+		this.objectSize = objectSize;
+		this.retired = new ArrayList<>();
+		this.built = new RedBlackLongKeySet();
+		this.capacity = minCapacity;
+		this.cache = new DBObjectCache<>(minCapacity);
+		this.stats = new RttiCacheStatistics(minCapacity);
+		synchronized (CACHES) {
+			CACHES.put(this, Boolean.TRUE);
+		}
+	}
+
+	DBObjectCache<T> getCache() {
+		return cache;
+	}
+
+	RttiCacheStatistics getStatistics() {
+		return stats;
+	}
+
+	synchronized T get(db.Record record) {
+		T obj = cache.get(record);
+		for (int i = retired.size() - 1; obj == null && i >= 0; i--) {
+			obj = retired.get(i).get(record);
+		}
+		if (obj != null) {
+			stats.hit();
+		}
+		return obj;
+	}
+
+	synchronized void miss(long key, int recordCount, long budget) {
+		boolean evicted = built.containsKey(key);
+		if (!evicted) {
+			if (built.size() >= (long) capacity * BUILT_KEYS_PER_CAPACITY) {
+				// the eviction count is only an estimate once the keys have been reset
+				built.removeAll();
+			}
+			built.put(key);
+		}
+		stats.miss(evicted);
+		if (++missesSinceCheck >= CHECK_INTERVAL || capacity == minCapacity) {
+			missesSinceCheck = 0;
+			retired.removeIf(c -> c.size() == 0);
+			ensureCapacity(recordCount, budget);
+		}
+	}
+
+	private long getReservedSize() {
+		return capacity * objectSize;
+	}
+
+	private long getAvailableBudget(long budget) {
+		long reserved = 0;
+		synchronized (CACHES) {
+			for (AdaptiveObjectCache<?> other : CACHES.keySet()) {
+				if (other != this) {
+					reserved += other.getReservedSize();
+				}
+			}
+		}
+		return budget - reserved;
+	}
+
+	private void ensureCapacity(int recordCount, long budget) {
+		long maxCapacity = Math.max(minCapacity, getAvailableBudget(budget) / objectSize);
+		int desired = (int) Math.min(Math.max(recordCount, minCapacity), maxCapacity);
+		// grow geometrically so the number of retired caches stays small
+		if (desired >= capacity * 2L) {
+			// the new cache keeps the objects in use alive
+			cache.setHardCacheSize(0);
+			retired.add(cache);
+			cache = new DBObjectCache<>(desired);
+			capacity = desired;
+			stats.setCapacity(desired);
+		}
+	}
+
+	synchronized void invalidate() {
+		retired.forEach(DBObjectCache::invalidate);
+		retired.removeIf(c -> c.size() == 0);
+		cache.invalidate();
+		built.removeAll();
+	}
+}
@@ -0,0 +1,176 @@
+package cppclassanalyzer.data.manager.caches;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from an encoded address to a record key.
+ * Lookups are allocation free and use linear probing.
+ * The encoded address 0 marks an empty slot and may not be stored.
+ */
+public final class AddressKeyIndex {
+
+	/** The value returned when an address is not present */
+	public static final long NO_KEY = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] addresses;
+	private long[] keys;
+	private int size;
+	private int mask;
+
+	/**
+	 * Constructs a new AddressKeyIndex
+	 * @param expectedSize the expected number of entries
+	 */
+	public AddressKeyIndex(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		// keep the load factor at or below 0.5
+		long wanted = Math.max(MIN_CAPACITY, (long) expectedSize * 2);
+		return (int) Math.min(1 << 30, Long.highestOneBit(wanted - 1) << 1);
+	}
+
+	private void allocate(int capacity) {
+		addresses = new long[capacity];
+		keys = new long[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private static int hash(long address) {
+		// fmix64 from MurmurHash3
+		address ^= address >>> 33;
+		address *= 0xff51afd7ed558ccdL;
+		address ^= address >>> 33;
+		address *= 0xc4ceb9fe1a85ec53L;
+		address ^= address >>> 33;
+		return (int) address;
+	}
+
+	/**
+	 * Checks if the address may be stored in this index
+	 * @param address the encoded address
+	 * @return true if the address may be stored
+	 */
+	public static boolean isIndexable(long address) {
+		return address != 0;
+	}
+
+	/**
+	 * Gets the record key for the address
+	 * @param address the encoded address
+	 * @return the record key or {@link #NO_KEY} if not present
+	 */
+	public long get(long address) {
+		if (!isIndexable(address)) {
+			return NO_KEY;
+		}
+		for (int i = hash(address) & mask;; i = (i + 1) & mask) {
+			long current = addresses[i];
+			if (current == address) {
+				return keys[i];
+			}
+			if (current == 0) {
+				return NO_KEY;
+			}
+		}
+	}
+
+	/**
+	 * Maps the address to the record key
+	 * @param address the encoded address
+	 * @param key the record key
+	 */
+	public void put(long address, long key) {
+		if (!isIndexable(address)) {
+			throw new IllegalArgumentException(
+				"Ghidra-Cpp-Class-Analyzer: the encoded address 0 cannot be indexed");
+		}
+		if ((size + 1) * 2L > addresses.length) {
+			rehash(addresses.length * 2);
+		}
+		for (int i = hash(address) & mask;; i = (i + 1) & mask) {
+			long current = addresses[i];
+			if (current == address) {
+				keys[i] = key;
+				return;
+			}
+			if (current == 0) {
+				addresses[i] = address;
+				keys[i] = key;
+				size++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes the address if it is mapped to the record key
+	 * @param address the encoded address
+	 * @param key the record key
+	 */
+	public void remove(long address, long key) {
+		if (!isIndexable(address)) {
+			return;
+		}
+		for (int i = hash(address) & mask;; i = (i + 1) & mask) {
+			long current = addresses[i];
+			if (current == 0) {
+				return;
+			}
+			if (current == address) {
+				if (keys[i] == key) {
+					delete(i);
+				}
+				return;
+			}
+		}
+	}
+
+	private void delete(int slot) {
+		// shift the following entries back so no probe sequence is broken
+		int gap = slot;
+		for (int i = (slot + 1) & mask; addresses[i] != 0; i = (i + 1) & mask) {
+			int home = hash(addresses[i]) & mask;
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				addresses[gap] = addresses[i];
+				keys[gap] = keys[i];
+				gap = i;
+			}
+		}
+		addresses[gap] = 0;
+		keys[gap] = 0;
+		size--;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldAddresses = addresses;
+		long[] oldKeys = keys;
+		allocate(capacity);
+		for (int i = 0; i < oldAddresses.length; i++) {
+			if (oldAddresses[i] != 0) {
+				put(oldAddresses[i], oldKeys[i]);
+			}
+		}
+	}
+
+	/**
+	 * Removes every entry
+	 */
+	public void clear() {
+		Arrays.fill(addresses, 0);
+		Arrays.fill(keys, 0);
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of entries
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -8,10 +8,14 @@ public final class ArchivedRttiCachePair
 
 	public static final int DEFAULT_CACHE_SIZE = 10;
 
+	// rough estimates of the retained size of each object used for the memory budget
+	private static final long TYPE_SIZE = 8192;
+	private static final long VTABLE_SIZE = 4096;
+
 	public ArchivedRttiCachePair() {
 		this(DEFAULT_CACHE_SIZE);
 	}
 	public ArchivedRttiCachePair(int capacity) {
-		super(capacity);
+		super(capacity, TYPE_SIZE, VTABLE_SIZE);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package cppclassanalyzer.data.manager.caches;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable index of the inheritance relationships between the types of a manager.
+ * <p>
+ * Each type record key is assigned a dense id in key order. The parents and children
+ * of each id are stored in compressed adjacency arrays and the ancestor and descendant
+ * closures are computed as {@link BitSet}s the first time they are requested.
+ */
+public final class InheritanceGraph {
+
+	private static final long[] EMPTY = new long[0];
+
+	private final long[] keys;
+	private final int[] parentStart;
+	private final int[] parents;
+	private final int[] childStart;
+	private final int[] children;
+	private final BitSet[] ancestors;
+	private final BitSet[] descendants;
+	private long[] order;
+
+	private InheritanceGraph(long[] keys, int[] parentStart, int[] parents) {
+		int n = keys.length;
+		this.keys = keys;
+		this.parentStart = parentStart;
+		this.parents = parents;
+		this.childStart = new int[n + 1];
+		this.children = new int[parents.length];
+		for (int parent : parents) {
+			childStart[parent + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			childStart[i + 1] += childStart[i];
+		}
+		int[] next = Arrays.copyOf(childStart, n);
+		for (int id = 0; id < n; id++) {
+			for (int i = parentStart[id]; i < parentStart[id + 1]; i++) {
+				children[next[parents[i]]++] = id;
+			}
+		}
+		this.ancestors = new BitSet[n];
+		this.descendants = new BitSet[n];
+	}
+
+	/**
+	 * Builds the graph
+	 * @param keys the type record keys
+	 * @param parentKeys the parent record keys of each type in the same order as the keys
+	 * @return the inheritance graph
+	 */
+	public static InheritanceGraph build(long[] keys, long[][] parentKeys) {
+		int n = keys.length;
+		Integer[] indices = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = i;
+		}
+		Arrays.sort(indices, (a, b) -> Long.compare(keys[a], keys[b]));
+		long[] sortedKeys = new long[n];
+		for (int i = 0; i < n; i++) {
+			sortedKeys[i] = keys[indices[i]];
+		}
+		int[] parentStart = new int[n + 1];
+		int[] parents = new int[Arrays.stream(parentKeys).mapToInt(p -> p.length).sum()];
+		int size = 0;
+		for (int id = 0; id < n; id++) {
+			parentStart[id] = size;
+			for (long parentKey : parentKeys[indices[id]]) {
+				int parent = Arrays.binarySearch(sortedKeys, parentKey);
+				// a missing parent is an unresolved type and has no entry
+				if (parent >= 0) {
+					parents[size++] = parent;
+				}
+			}
+		}
+		parentStart[n] = size;
+		return new InheritanceGraph(sortedKeys, parentStart, Arrays.copyOf(parents, size));
+	}
+
+	/**
+	 * Gets the number of types in the graph
+	 * @return the number of types
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Checks if the type is in the graph
+	 * @param key the type record key
+	 * @return true if the type is in the graph
+	 */
+	public boolean contains(long key) {
+		return getId(key) >= 0;
+	}
+
+	private int getId(long key) {
+		return Arrays.binarySearch(keys, key);
+	}
+
+	/**
+	 * Gets the direct parents of the type
+	 * @param key the type record key
+	 * @return the parent record keys
+	 */
+	public long[] getParents(long key) {
+		int id = getId(key);
+		if (id < 0) {
+			return EMPTY;
+		}
+		return toKeys(parents, parentStart[id], parentStart[id + 1]);
+	}
+
+	/**
+	 * Gets the types directly derived from the type
+	 * @param key the type record key
+	 * @return the child record keys
+	 */
+	public long[] getChildren(long key) {
+		int id = getId(key);
+		if (id < 0) {
+			return EMPTY;
+		}
+		return toKeys(children, childStart[id], childStart[id + 1]);
+	}
+
+	/**
+	 * Checks if the type directly inherits the parent
+	 * @param key the type record key
+	 * @param parentKey the parent record key
+	 * @return true if the parent is a direct parent of the type
+	 */
+	public boolean isParent(long key, long parentKey) {
+		int id = getId(key);
+		int parent = getId(parentKey);
+		if (id < 0 || parent < 0) {
+			return false;
+		}
+		for (int i = parentStart[id]; i < parentStart[id + 1]; i++) {
+			if (parents[i] == parent) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if the type is derived from the ancestor
+	 * @param key the type record key
+	 * @param ancestorKey the ancestor record key
+	 * @return true if the type directly or indirectly inherits the ancestor
+	 */
+	public boolean isDerivedFrom(long key, long ancestorKey) {
+		int id = getId(key);
+		int ancestor = getId(ancestorKey);
+		if (id < 0 || ancestor < 0) {
+			return false;
+		}
+		return getClosure(id, ancestors, parentStart, parents).get(ancestor);
+	}
+
+	/**
+	 * Gets all of the direct and indirect parents of the type
+	 * @param key the type record key
+	 * @return the ancestor record keys in key order
+	 */
+	public long[] getAncestors(long key) {
+		int id = getId(key);
+		if (id < 0) {
+			return EMPTY;
+		}
+		return toKeys(getClosure(id, ancestors, parentStart, parents));
+	}
+
+	/**
+	 * Gets all of the types directly or indirectly derived from the type
+	 * @param key the type record key
+	 * @return the descendant record keys in key order
+	 */
+	public long[] getDescendants(long key) {
+		int id = getId(key);
+		if (id < 0) {
+			return EMPTY;
+		}
+		return toKeys(getClosure(id, descendants, childStart, children));
+	}
+
+	/**
+	 * Gets every type ordered such that each type comes after all of its parents
+	 * @return the record keys in inheritance order
+	 */
+	public synchronized long[] getInheritanceOrder() {
+		if (order == null) {
+			order = computeOrder();
+		}
+		return order.clone();
+	}
+
+	private long[] computeOrder() {
+		int n = keys.length;
+		int[] pending = new int[n];
+		int[] queue = new int[n];
+		int tail = 0;
+		for (int id = 0; id < n; id++) {
+			pending[id] = parentStart[id + 1] - parentStart[id];
+			if (pending[id] == 0) {
+				queue[tail++] = id;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int id = queue[head];
+			for (int i = childStart[id]; i < childStart[id + 1]; i++) {
+				if (--pending[children[i]] == 0) {
+					queue[tail++] = children[i];
+				}
+			}
+		}
+		long[] result = new long[n];
+		for (int i = 0; i < tail; i++) {
+			result[i] = keys[queue[i]];
+		}
+		if (tail < n) {
+			// only possible with a corrupt cycle, which is appended in key order
+			for (int id = 0; id < n; id++) {
+				if (pending[id] > 0) {
+					result[tail++] = keys[id];
+				}
+			}
+		}
+		return result;
+	}
+
+	private synchronized BitSet getClosure(int id, BitSet[] closures, int[] start,
+			int[] edges) {
+		BitSet closure = closures[id];
+		if (closure != null) {
+			return closure;
+		}
+		closure = new BitSet();
+		int[] stack = new int[Math.max(1, start[id + 1] - start[id])];
+		int size = 0;
+		for (int i = start[id]; i < start[id + 1]; i++) {
+			stack[size++] = edges[i];
+		}
+		while (size > 0) {
+			int current = stack[--size];
+			if (closure.get(current)) {
+				continue;
+			}
+			closure.set(current);
+			BitSet known = closures[current];
+			if (known != null) {
+				closure.or(known);
+				continue;
+			}
+			for (int i = start[current]; i < start[current + 1]; i++) {
+				if (!closure.get(edges[i])) {
+					if (size == stack.length) {
+						stack = Arrays.copyOf(stack, size * 2);
+					}
+					stack[size++] = edges[i];
+				}
+			}
+		}
+		closures[id] = closure;
+		return closure;
+	}
+
+	private long[] toKeys(int[] ids, int from, int to) {
+		long[] result = new long[to - from];
+		for (int i = from; i < to; i++) {
+			result[i - from] = keys[ids[i]];
+		}
+		return result;
+	}
+
+	private long[] toKeys(BitSet ids) {
+		long[] result = new long[ids.cardinality()];
+		int i = 0;
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			result[i++] = keys[id];
+		}
+		return result;
+	}
+}
@@ -8,11 +8,15 @@ public final class ProgramRttiCachePair
 
 	public static final int DEFAULT_CACHE_SIZE = 100;
 
+	// rough estimates of the retained size of each object used for the memory budget
+	private static final long TYPE_SIZE = 4096;
+	private static final long VTABLE_SIZE = 2048;
+
 	public ProgramRttiCachePair() {
 		this(DEFAULT_CACHE_SIZE);
 	}
 
 	public ProgramRttiCachePair(int capacity) {
-		super(capacity);
+		super(capacity, TYPE_SIZE, VTABLE_SIZE);
 	}
 }
\ No newline at end of file
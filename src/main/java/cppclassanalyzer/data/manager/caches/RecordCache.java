@@ -0,0 +1,156 @@
+package cppclassanalyzer.data.manager.caches;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ghidra.util.datastruct.LongArrayList;
+import ghidra.util.datastruct.RedBlackLongKeySet;
+import ghidra.util.exception.AssertException;
+
+import cppclassanalyzer.database.record.DatabaseRecord;
+
+/**
+ * A bounded write-back cache of decoded database records.
+ * Dirty records are pinned in the cache until they are written by {@link #flush()}.
+ * @param <T> the record type
+ */
+public final class RecordCache<T extends DatabaseRecord<?>> {
+
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final Map<Long, T> records;
+	private final RedBlackLongKeySet dirty;
+	private final RecordWriter writer;
+	private final int capacity;
+
+	/**
+	 * Constructs a new RecordCache
+	 * @param writer the writer used to write dirty records to the table
+	 */
+	public RecordCache(RecordWriter writer) {
+		this(writer, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs a new RecordCache
+	 * @param writer the writer used to write dirty records to the table
+	 * @param capacity the maximum number of clean records to keep
+	 */
+	public RecordCache(RecordWriter writer, int capacity) {
+		this.writer = writer;
+		this.capacity = capacity;
+		this.dirty = new RedBlackLongKeySet();
+		this.records = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+				// dirty records must stay until they are flushed
+				return size() > RecordCache.this.capacity && !dirty.containsKey(eldest.getKey());
+			}
+		};
+	}
+
+	/**
+	 * Gets the cached record
+	 * @param key the record key
+	 * @return the cached record or null if not present
+	 */
+	public synchronized T get(long key) {
+		return records.get(key);
+	}
+
+	/**
+	 * Caches a record which matches the record in the table
+	 * @param record the record
+	 */
+	public synchronized void put(T record) {
+		long key = record.getKey();
+		if (!dirty.containsKey(key)) {
+			records.put(key, record);
+		}
+	}
+
+	/**
+	 * Caches a modified record to be written on the next flush
+	 * @param record the modified record
+	 */
+	public synchronized void markDirty(T record) {
+		long key = record.getKey();
+		records.put(key, record);
+		dirty.put(key);
+	}
+
+	/**
+	 * Removes the record from the cache without writing it
+	 * @param key the record key
+	 */
+	public synchronized void remove(long key) {
+		records.remove(key);
+		dirty.remove(key);
+	}
+
+	/**
+	 * Checks if there are records waiting to be written
+	 * @return true if there are dirty records
+	 */
+	public synchronized boolean isDirty() {
+		return !dirty.isEmpty();
+	}
+
+	/**
+	 * Writes all the dirty records. A transaction must be open.
+	 * @throws IOException if a database error occurs
+	 */
+	public synchronized void flush() throws IOException {
+		if (dirty.isEmpty()) {
+			return;
+		}
+		LongArrayList keys = new LongArrayList();
+		for (long key = dirty.getFirst(); key != -1; key = dirty.getNext(key)) {
+			keys.add(key);
+		}
+		dirty.removeAll();
+		for (int i = 0; i < keys.size(); i++) {
+			T record = records.get(keys.get(i));
+			if (record != null) {
+				writer.write(record.getRecord());
+			}
+		}
+	}
+
+	/**
+	 * Discards every cached record. There must not be any unwritten dirty records.
+	 * @throws AssertException if there are dirty records
+	 * @see #flush()
+	 * @see #discard()
+	 */
+	public synchronized void clear() {
+		if (!dirty.isEmpty()) {
+			throw new AssertException(
+				"Ghidra-Cpp-Class-Analyzer: cleared a record cache with unwritten records");
+		}
+		records.clear();
+	}
+
+	/**
+	 * Discards every cached record including unwritten dirty records.
+	 * This should only be used when the transaction they belong to is rolled back.
+	 */
+	public synchronized void discard() {
+		records.clear();
+		dirty.removeAll();
+	}
+
+	/**
+	 * Gets the number of cached records
+	 * @return the number of cached records
+	 */
+	public synchronized int size() {
+		return records.size();
+	}
+
+	@FunctionalInterface
+	public static interface RecordWriter {
+		void write(db.Record record) throws IOException;
+	}
+}
@@ -3,26 +3,113 @@ package cppclassanalyzer.data.manager.caches;
 import ghidra.program.database.DBObjectCache;
 import ghidra.program.database.DatabaseObject;
 
+/**
+ * A pair of caches for the type and vtable database objects.
+ * The capacity of each cache scales with the number of records in its table
+ * and is limited by the memory budget, which is shared by the caches of every
+ * live RttiCachePair. The budget defaults to an eighth of the
+ * maximum heap size and may be set with the {@value #MEMORY_BUDGET_PROPERTY}
+ * system property in megabytes or with {@link #setMemoryBudget(long)}.
+ */
 public abstract class RttiCachePair<T1 extends DatabaseObject, T2 extends DatabaseObject>  {
 
-	private final DBObjectCache<T1> classCache;
-	private final DBObjectCache<T2> vtableCache;
+	public static final String MEMORY_BUDGET_PROPERTY = "cppclassanalyzer.cache.budget";
 
-	RttiCachePair(int capacity) {
-		this.classCache = new DBObjectCache<>(capacity);
-		this.vtableCache = new DBObjectCache<>(capacity);
+	private static final int HEAP_FRACTION = 8;
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private static volatile long memoryBudget = Long.getLong(MEMORY_BUDGET_PROPERTY, 0) * MEGABYTE;
+
+	private final AdaptiveObjectCache<T1> classCache;
+	private final AdaptiveObjectCache<T2> vtableCache;
+
+	RttiCachePair(int capacity, long typeSize, long vtableSize) {
+		this.classCache = new AdaptiveObjectCache<>(capacity, typeSize);
+		this.vtableCache = new AdaptiveObjectCache<>(capacity, vtableSize);
+	}
+
+	/**
+	 * Sets the memory budget shared by the caches of every RttiCachePair
+	 * @param bytes the budget in bytes or 0 to use a fraction of the maximum heap size
+	 */
+	public static void setMemoryBudget(long bytes) {
+		memoryBudget = Math.max(0, bytes);
+	}
+
+	/**
+	 * Gets the memory budget shared by the caches of every RttiCachePair
+	 * @return the budget in bytes
+	 */
+	public static long getMemoryBudget() {
+		long budget = memoryBudget;
+		if (budget > 0) {
+			return budget;
+		}
+		return Runtime.getRuntime().maxMemory() / HEAP_FRACTION;
 	}
 
 	public final DBObjectCache<T1> getTypeCache() {
-		return classCache;
+		return classCache.getCache();
 	}
 
 	public final DBObjectCache<T2> getVtableCache() {
-		return vtableCache;
+		return vtableCache.getCache();
+	}
+
+	/**
+	 * Gets the cached type for the record
+	 * @param record the type's record
+	 * @return the cached type or null if it must be built
+	 */
+	public final T1 getType(db.Record record) {
+		return classCache.get(record);
+	}
+
+	/**
+	 * Gets the cached vtable for the record
+	 * @param record the vtable's record
+	 * @return the cached vtable or null if it must be built
+	 */
+	public final T2 getVtable(db.Record record) {
+		return vtableCache.get(record);
+	}
+
+	/**
+	 * Notifies the cache that the type had to be built
+	 * @param key the type's key
+	 * @param recordCount the number of records in the type table
+	 */
+	public final void typeMissed(long key, int recordCount) {
+		classCache.miss(key, recordCount, getMemoryBudget());
+	}
+
+	/**
+	 * Notifies the cache that the vtable had to be built
+	 * @param key the vtable's key
+	 * @param recordCount the number of records in the vtable table
+	 */
+	public final void vtableMissed(long key, int recordCount) {
+		vtableCache.miss(key, recordCount, getMemoryBudget());
+	}
+
+	/**
+	 * Gets the statistics for the type cache
+	 * @return the type cache statistics
+	 */
+	public final RttiCacheStatistics getTypeStatistics() {
+		return classCache.getStatistics();
+	}
+
+	/**
+	 * Gets the statistics for the vtable cache
+	 * @return the vtable cache statistics
+	 */
+	public final RttiCacheStatistics getVtableStatistics() {
+		return vtableCache.getStatistics();
 	}
 
 	public final void invalidate() {
 		classCache.invalidate();
 		vtableCache.invalidate();
 	}
-}
\ No newline at end of file
+}
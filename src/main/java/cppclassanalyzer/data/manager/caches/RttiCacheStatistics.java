@@ -0,0 +1,82 @@
+package cppclassanalyzer.data.manager.caches;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and eviction counters for one of the caches in a {@link RttiCachePair}
+ */
+public final class RttiCacheStatistics {
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private volatile int capacity;
+
+	RttiCacheStatistics(int capacity) {
+		this.capacity = capacity;
+	}
+
+	void hit() {
+		hits.incrementAndGet();
+	}
+
+	void miss(boolean evicted) {
+		misses.incrementAndGet();
+		if (evicted) {
+			evictions.incrementAndGet();
+		}
+	}
+
+	void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the number of lookups satisfied by the cache
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups which required the object to be built
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Gets the number of misses for objects which had previously been built
+	 * and were since dropped from the cache
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Gets the ratio of hits to lookups
+	 * @return the hit rate or 1.0 if there have been no lookups
+	 */
+	public double getHitRate() {
+		long hitCount = getHitCount();
+		long total = hitCount + getMissCount();
+		return total == 0 ? 1.0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Gets the current capacity of the cache
+	 * @return the number of objects strongly held by the cache
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("capacity=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f",
+			getCapacity(), getHitCount(), getMissCount(), getEvictionCount(), getHitRate());
+	}
+}
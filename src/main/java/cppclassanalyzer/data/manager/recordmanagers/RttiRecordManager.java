@@ -1,5 +1,9 @@
 package cppclassanalyzer.data.manager.recordmanagers;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.program.database.DBObjectCache;
@@ -7,6 +11,8 @@ import ghidra.program.database.DatabaseObject;
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import ghidra.program.database.map.AddressMap;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.database.record.DatabaseRecord;
 
@@ -34,4 +40,30 @@ public interface RttiRecordManager<T1 extends ClassTypeInfoDB, T2 extends Databa
 	public T1 resolve(ClassTypeInfo type);
 
 	public T2 resolve(Vtable vtable);
+
+	/**
+	 * Resolves all the types within a single transaction.
+	 * A type which cannot be resolved does not prevent the others from being resolved.
+	 * @param types the types to resolve
+	 * @param failures the map to add the types which could not be resolved to
+	 * @param monitor the task monitor
+	 * @return the successfully resolved types in the same order
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public List<T1> resolveAll(Collection<? extends ClassTypeInfo> types,
+		Map<ClassTypeInfo, RuntimeException> failures, TaskMonitor monitor)
+		throws CancelledException;
+
+	/**
+	 * Resolves all the vtables within a single transaction.
+	 * A vtable which cannot be resolved does not prevent the others from being resolved.
+	 * @param vtables the vtables to resolve
+	 * @param failures the map to add the vtables which could not be resolved to
+	 * @param monitor the task monitor
+	 * @return the successfully resolved vtables in the same order
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public List<T2> resolveAllVtables(Collection<? extends Vtable> vtables,
+		Map<Vtable, RuntimeException> failures, TaskMonitor monitor)
+		throws CancelledException;
 }
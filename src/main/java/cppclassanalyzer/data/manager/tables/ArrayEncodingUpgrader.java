@@ -0,0 +1,275 @@
+package cppclassanalyzer.data.manager.tables;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import cppclassanalyzer.data.typeinfo.AbstractClassTypeInfoDB.TypeId;
+import cppclassanalyzer.database.record.ArrayCodec;
+import cppclassanalyzer.database.schema.ArchivedClassTypeInfoSchema;
+import cppclassanalyzer.database.schema.ArchivedGnuVtableSchema;
+import cppclassanalyzer.database.schema.ClassTypeInfoSchema;
+import cppclassanalyzer.database.schema.VtableSchema;
+import cppclassanalyzer.database.schema.fields.ArchivedClassTypeInfoSchemaFields;
+import cppclassanalyzer.database.schema.fields.ArchivedGnuVtableSchemaFields;
+import cppclassanalyzer.database.schema.fields.ClassTypeInfoSchemaFields;
+import cppclassanalyzer.database.schema.fields.VtableSchemaFields;
+import db.*;
+
+/**
+ * Upgrades the rtti tables written with schema version 0, which stored every array
+ * with a fixed width encoding, to the compact encoding of {@link ArrayCodec}.
+ * <p>
+ * The records are copied into a new table with the current schema and the old
+ * table is deleted. Tables which do not need to be upgraded are returned as is.
+ */
+public final class ArrayEncodingUpgrader {
+
+	private static final int FIXED_ARRAY_VERSION = 0;
+
+	private static final int MODEL_DATA = ClassTypeInfoSchemaFields.MODEL_DATA.ordinal();
+	private static final int TYPEINFO_ID = ClassTypeInfoSchemaFields.TYPEINFO_ID.ordinal();
+	private static final int VTABLE_RECORDS = VtableSchemaFields.RECORDS.ordinal();
+	private static final int ARCHIVED_VTABLE_DATA = ArchivedGnuVtableSchemaFields.DATA.ordinal();
+
+	private static final int[] ARCHIVED_LONG_ARRAYS = new int[] {
+		ArchivedClassTypeInfoSchemaFields.BASE_KEYS.ordinal(),
+		ArchivedClassTypeInfoSchemaFields.NON_VIRTUAL_BASE_KEYS.ordinal(),
+		ArchivedClassTypeInfoSchemaFields.VIRTUAL_BASE_KEYS.ordinal()
+	};
+
+	private static final int ARCHIVED_OFFSETS =
+		ArchivedClassTypeInfoSchemaFields.BASE_OFFSETS.ordinal();
+
+	private ArrayEncodingUpgrader() {
+	}
+
+	/**
+	 * Upgrades a program's type table
+	 * @param handle the database handle
+	 * @param table the type table
+	 * @return the upgraded table
+	 * @throws IOException if an error occurs copying the records
+	 */
+	public static Table upgradeClassTable(DBHandle handle, Table table) throws IOException {
+		if (!isUpgradable(table, ClassTypeInfoSchema.SCHEMA)) {
+			return table;
+		}
+		return upgrade(handle, table, ClassTypeInfoSchema.SCHEMA,
+			ClassTypeInfoSchema.INDEXED_COLUMNS, record -> {
+				byte[] data = record.getBinaryData(MODEL_DATA);
+				if (data != null) {
+					record.setBinaryData(MODEL_DATA,
+						upgradeModelData(data, isWrapper(record.getByteValue(TYPEINFO_ID))));
+				}
+				return record;
+			});
+	}
+
+	/**
+	 * Upgrades a program's vtable table
+	 * @param handle the database handle
+	 * @param table the vtable table
+	 * @param vftables true if the table holds Microsoft vftables
+	 * @return the upgraded table
+	 * @throws IOException if an error occurs copying the records
+	 */
+	public static Table upgradeVtableTable(DBHandle handle, Table table, boolean vftables)
+			throws IOException {
+		if (!isUpgradable(table, VtableSchema.SCHEMA)) {
+			return table;
+		}
+		return upgrade(handle, table, VtableSchema.SCHEMA,
+			VtableSchema.INDEXED_COLUMNS, record -> {
+				byte[] data = record.getBinaryData(VTABLE_RECORDS);
+				if (data != null) {
+					record.setBinaryData(VTABLE_RECORDS, upgradeVtableData(data, vftables));
+				}
+				return record;
+			});
+	}
+
+	/**
+	 * Upgrades an archived type table
+	 * @param handle the database handle
+	 * @param table the type table
+	 * @return the upgraded table
+	 * @throws IOException if an error occurs copying the records
+	 */
+	public static Table upgradeArchivedClassTable(DBHandle handle, Table table)
+			throws IOException {
+		if (!isUpgradable(table, ArchivedClassTypeInfoSchema.SCHEMA)) {
+			return table;
+		}
+		return upgrade(handle, table, ArchivedClassTypeInfoSchema.SCHEMA,
+			ArchivedClassTypeInfoSchema.INDEXED_COLUMNS, record -> {
+				for (int column : ARCHIVED_LONG_ARRAYS) {
+					byte[] data = record.getBinaryData(column);
+					if (data != null) {
+						long[] values = ArrayCodec.getFixedLongArray(ByteBuffer.wrap(data));
+						record.setBinaryData(column, new Blob().putLongArray(values).toBytes());
+					}
+				}
+				byte[] data = record.getBinaryData(ARCHIVED_OFFSETS);
+				if (data != null) {
+					int[] values = ArrayCodec.getFixedIntArray(ByteBuffer.wrap(data));
+					record.setBinaryData(ARCHIVED_OFFSETS, new Blob().putIntArray(values).toBytes());
+				}
+				return record;
+			});
+	}
+
+	/**
+	 * Upgrades an archived vtable table
+	 * @param handle the database handle
+	 * @param table the vtable table
+	 * @return the upgraded table
+	 * @throws IOException if an error occurs copying the records
+	 */
+	public static Table upgradeArchivedVtableTable(DBHandle handle, Table table)
+			throws IOException {
+		if (!isUpgradable(table, ArchivedGnuVtableSchema.SCHEMA)) {
+			return table;
+		}
+		return upgrade(handle, table, ArchivedGnuVtableSchema.SCHEMA,
+			ArchivedGnuVtableSchema.INDEXED_COLUMNS, record -> {
+				byte[] data = record.getBinaryData(ARCHIVED_VTABLE_DATA);
+				if (data != null) {
+					record.setBinaryData(ARCHIVED_VTABLE_DATA, upgradeArchivedVtableData(data));
+				}
+				return record;
+			});
+	}
+
+	private static boolean isUpgradable(Table table, Schema schema) {
+		if (table == null) {
+			return false;
+		}
+		Schema current = table.getSchema();
+		if (current.getVersion() != FIXED_ARRAY_VERSION
+				|| schema.getVersion() <= FIXED_ARRAY_VERSION) {
+			return false;
+		}
+		return current.getFieldCount() == schema.getFieldCount()
+			&& Arrays.equals(current.getFieldNames(), schema.getFieldNames());
+	}
+
+	private static Table upgrade(DBHandle handle, Table table, Schema schema, int[] indexed,
+			UnaryOperator<db.Record> upgrader) throws IOException {
+		String name = table.getName();
+		String oldName = name + " v" + FIXED_ARRAY_VERSION;
+		long id = handle.isTransactionActive() ? -1 : handle.startTransaction();
+		boolean success = false;
+		try {
+			if (!table.setName(oldName)) {
+				throw new IOException(
+					"Ghidra-Cpp-Class-Analyzer: unable to upgrade table " + name);
+			}
+			Table result = handle.createTable(name, schema, indexed);
+			for (RecordIterator it = table.iterator(); it.hasNext();) {
+				db.Record old = it.next();
+				db.Record record = schema.createRecord(old.getKey());
+				for (int i = 0; i < old.getColumnCount(); i++) {
+					record.setField(i, old.getFieldValue(i));
+				}
+				result.putRecord(upgrader.apply(record));
+			}
+			handle.deleteTable(oldName);
+			success = true;
+			return result;
+		} catch (RuntimeException e) {
+			throw new IOException("Ghidra-Cpp-Class-Analyzer: unable to upgrade table " + name, e);
+		} finally {
+			if (id != -1) {
+				handle.endTransaction(id, success);
+			}
+		}
+	}
+
+	private static boolean isWrapper(byte id) {
+		TypeId[] ids = TypeId.values();
+		return id >= 0 && id < ids.length && ids[id] == TypeId.RTTI_MODEL_WRAPPER;
+	}
+
+	private static byte[] upgradeModelData(byte[] data, boolean wrapper) {
+		ByteBuffer buf = ByteBuffer.wrap(data);
+		Blob blob = new Blob();
+		if (wrapper) {
+			blob.putLongArray(ArrayCodec.getFixedLongArray(buf))
+				.putIntArray(ArrayCodec.getFixedIntArray(buf));
+		} else {
+			blob.putLongArray(ArrayCodec.getFixedLongArray(buf))
+				.putLongArray(ArrayCodec.getFixedLongArray(buf))
+				.putLongArray(ArrayCodec.getFixedLongArray(buf))
+				.putIntArray(ArrayCodec.getFixedIntArray(buf));
+		}
+		// the remaining fields are not arrays
+		return blob.putRemaining(buf).toBytes();
+	}
+
+	private static byte[] upgradeVtableData(byte[] data, boolean vftable) {
+		ByteBuffer buf = ByteBuffer.wrap(data);
+		int count = buf.getInt();
+		Blob blob = new Blob().putInt(count);
+		for (int i = 0; i < count; i++) {
+			blob.putLong(buf.getLong());
+			if (!vftable) {
+				blob.putLongArray(ArrayCodec.getFixedLongArray(buf));
+			}
+			blob.putLongArray(ArrayCodec.getFixedLongArray(buf));
+		}
+		return blob.toBytes();
+	}
+
+	private static byte[] upgradeArchivedVtableData(byte[] data) {
+		ByteBuffer buf = ByteBuffer.wrap(data);
+		int count = buf.getInt();
+		Blob blob = new Blob().putInt(count);
+		for (int i = 0; i < count; i++) {
+			blob.putLongArray(ArrayCodec.getFixedLongArray(buf))
+				.putLongArray(ArrayCodec.getFixedLongArray(buf));
+		}
+		return blob.toBytes();
+	}
+
+	private static final class Blob {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		Blob putInt(int value) {
+			return put(ByteBuffer.allocate(Integer.BYTES).putInt(value));
+		}
+
+		Blob putLong(long value) {
+			return put(ByteBuffer.allocate(Long.BYTES).putLong(value));
+		}
+
+		Blob putLongArray(long[] values) {
+			ByteBuffer buf = ByteBuffer.allocate(ArrayCodec.getSize(values));
+			ArrayCodec.putLongArray(buf, values);
+			return put(buf);
+		}
+
+		Blob putIntArray(int[] values) {
+			ByteBuffer buf = ByteBuffer.allocate(ArrayCodec.getSize(values));
+			ArrayCodec.putIntArray(buf, values);
+			return put(buf);
+		}
+
+		Blob putRemaining(ByteBuffer buf) {
+			out.write(buf.array(), buf.position(), buf.remaining());
+			return this;
+		}
+
+		private Blob put(ByteBuffer buf) {
+			out.write(buf.array(), 0, buf.position());
+			return this;
+		}
+
+		byte[] toBytes() {
+			return out.toByteArray();
+		}
+	}
+}
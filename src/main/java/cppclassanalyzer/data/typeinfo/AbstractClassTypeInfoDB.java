@@ -121,7 +121,11 @@ public abstract class AbstractClassTypeInfoDB extends ClassTypeInfoDB {
 	protected abstract long[] getBaseKeys();
 	protected abstract int[] getOffsets();
 	protected abstract String getPureVirtualFunctionName();
-	protected abstract AbstractCppClassBuilder getClassBuilder();
+	/**
+	 * Creates a builder for this class's data type
+	 * @return the class builder
+	 */
+	public abstract AbstractCppClassBuilder getClassBuilder();
 	protected abstract void fillModelData(ClassTypeInfoRecord record);
 	protected abstract void fillModelData(ClassTypeInfo type, ClassTypeInfoRecord record);
 
@@ -397,9 +401,24 @@ public abstract class AbstractClassTypeInfoDB extends ClassTypeInfoDB {
 		return struct;
 	}
 
+	/**
+	 * Checks if the class data type has yet to be built
+	 * @return true if the class data type is missing or a placeholder
+	 */
+	public boolean isClassDataTypeRequired() {
+		return struct == null || ClassTypeInfoUtils.isPlaceholder(struct);
+	}
+
 	public void refreshDataType() {
+		refreshDataType(getClassBuilder());
+	}
+
+	/**
+	 * Rebuilds the class data type with the provided builder
+	 * @param builder a builder obtained from {@link #getClassBuilder()}
+	 */
+	public void refreshDataType(AbstractCppClassBuilder builder) {
 		ClassTypeInfoRecord record = getRecord();
-		AbstractCppClassBuilder builder = getClassBuilder();
 		struct = builder.getDataType();
 		record.setLongValue(DATATYPE_ID, struct.getUniversalID().getValue());
 		manager.updateRecord(record);
@@ -14,6 +14,7 @@ import ghidra.app.cmd.data.rtti.GnuVtable;
 import ghidra.app.cmd.data.rtti.Vtable;
 import ghidra.app.cmd.data.rtti.gcc.ClassTypeInfoUtils;
 import ghidra.app.cmd.data.rtti.gcc.GccCppClassBuilder;
+import ghidra.app.cmd.data.rtti.gcc.GnuVtableDiscovery;
 import ghidra.app.cmd.data.rtti.gcc.typeinfo.BaseClassTypeInfoModel;
 import ghidra.app.cmd.data.rtti.gcc.typeinfo.VmiClassTypeInfoModel;
 import ghidra.program.database.DatabaseObject;
@@ -122,6 +123,26 @@ public class GnuClassTypeInfoDB extends AbstractClassTypeInfoDB {
 		}
 		setVtableSearched();
 		Vtable vtable = ClassTypeInfoUtils.findVtable(getProgram(), this, monitor);
+		return setFoundVtable(vtable);
+	}
+
+	/**
+	 * Finds the vtable of this type using the candidates of a bulk discovery
+	 * @param discovery the discovered vtable candidates
+	 * @param monitor the task monitor
+	 * @return this type's vtable
+	 * @throws CancelledException if the search is cancelled
+	 */
+	public Vtable findVtable(GnuVtableDiscovery discovery, TaskMonitor monitor)
+			throws CancelledException {
+		if (isVtableSearched()) {
+			return getVtable();
+		}
+		setVtableSearched();
+		return setFoundVtable(discovery.getVtable(this, monitor));
+	}
+
+	private Vtable setFoundVtable(Vtable vtable) {
 		if (Vtable.isValid(vtable)) {
 			setVtable(vtable);
 			return getVtable();
@@ -151,7 +172,11 @@ public class GnuClassTypeInfoDB extends AbstractClassTypeInfoDB {
 		long[] virtualBaseKeys = ClassTypeInfoRecord.getLongArray(buf);
 		updateKeys(nonVirtualBaseKeys, keyMap);
 		updateKeys(virtualBaseKeys, keyMap);
-		buf = ByteBuffer.allocate(buf.array().length);
+		// the base keys and offsets are left empty to be regenerated
+		buf = ByteBuffer.allocate(ClassTypeInfoRecord.getArraySize(nonVirtualBaseKeys)
+			+ ClassTypeInfoRecord.getArraySize(virtualBaseKeys)
+			+ ClassTypeInfoRecord.getArraySize(new long[0])
+			+ ClassTypeInfoRecord.getArraySize(new int[0]));
 		ClassTypeInfoRecord.setLongArray(buf, nonVirtualBaseKeys);
 		ClassTypeInfoRecord.setLongArray(buf, virtualBaseKeys);
 		record.setBinaryData(MODEL_DATA, buf.array());
@@ -262,7 +287,7 @@ public class GnuClassTypeInfoDB extends AbstractClassTypeInfoDB {
 	}
 
 	@Override
-	protected GccCppClassBuilder getClassBuilder() {
+	public GccCppClassBuilder getClassBuilder() {
 		return new GccCppClassBuilder(this);
 	}
 
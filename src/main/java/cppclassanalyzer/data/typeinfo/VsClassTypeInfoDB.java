@@ -166,7 +166,8 @@ public class VsClassTypeInfoDB extends AbstractClassTypeInfoDB implements VsClas
 		long baseModelAddress = buf.getLong();
 		long hierarchyDescriptorAddress = buf.getLong();
 		updateKeys(baseKeys, keyMap);
-		buf = ByteBuffer.allocate(buf.array().length);
+		buf = ByteBuffer.allocate(ClassTypeInfoRecord.getArraySize(baseKeys)
+			+ ClassTypeInfoRecord.getArraySize(baseOffsets) + Long.BYTES * 3);
 		ClassTypeInfoRecord.setLongArray(buf, baseKeys);
 		ClassTypeInfoRecord.setIntArray(buf, baseOffsets);
 		buf.putLong(baseModelAddress);
@@ -213,7 +214,7 @@ public class VsClassTypeInfoDB extends AbstractClassTypeInfoDB implements VsClas
 	}
 
 	@Override
-	protected VsCppClassBuilder getClassBuilder() {
+	public VsCppClassBuilder getClassBuilder() {
 		return new VsCppClassBuilder(this);
 	}
 
@@ -173,9 +173,8 @@ public class ArchivedGnuVtable extends DatabaseObject implements ArchivedVtable
 		}
 
 		int getSize() {
-			return Integer.BYTES * 2
-				+ Long.BYTES * offsets.length
-				+ Long.BYTES * functions.length;
+			return ArchivedGnuVtableRecord.getArraySize(offsets)
+				+ ArchivedGnuVtableRecord.getArraySize(functions);
 		}
 
 		byte[] toBytes() {
@@ -86,9 +86,7 @@ public class VftableDB extends AbstractVtableDB {
 		}
 
 		public int getSize() {
-			return Long.BYTES
-				+ Integer.BYTES
-				+ Long.BYTES * functions.length;
+			return Long.BYTES + VtableRecord.getArraySize(functions);
 		}
 
 		@Override
@@ -162,8 +162,8 @@ public final class VtableModelDB extends AbstractVtableDB implements GnuVtable {
 		}
 
 		int getSize() {
-			return Long.BYTES + Integer.BYTES * 2 + offsets.length * Long.BYTES +
-				functions.length * Long.BYTES;
+			return Long.BYTES + VtableRecord.getArraySize(offsets)
+				+ VtableRecord.getArraySize(functions);
 		}
 
 		@Override
@@ -0,0 +1,307 @@
+package cppclassanalyzer.database.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A read-only, memory mapped symbol index of the archived rtti records of a project archive.
+ * <p>
+ * The file consists of a header, a table of libraries, a table of entries sorted by
+ * mangled symbol and a pool of UTF-8 strings. A symbol is found by a binary search over
+ * the entry table, which yields the library and key of its record. The records themselves
+ * are not part of the file since they refer to data types by UniversalID and must be
+ * read from the project archive they were exported from. The mapping is shared between
+ * every process which opens the file.
+ */
+public final class MappedRttiArchive {
+
+	public static final String EXTENSION = "crtti";
+
+	static final int MAGIC = 0x43525454;
+	static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 64;
+	static final int LIBRARY_SIZE = 32;
+	static final int ENTRY_SIZE = 24;
+
+	static final byte TYPE_KIND = 0;
+	static final byte VTABLE_KIND = 1;
+
+	// header offsets
+	static final int LIBRARY_COUNT = 8;
+	static final int ENTRY_COUNT = 12;
+	static final int PROJECT_NAME = 16;
+	static final int STRING_POOL = 24;
+	static final int FILE_LENGTH = 32;
+
+	// library offsets
+	static final int LIBRARY_NAME = 0;
+	static final int TYPE_COUNT = 8;
+	static final int VTABLE_COUNT = 12;
+	static final int TYPE_MAX_KEY = 16;
+	static final int VTABLE_MAX_KEY = 24;
+
+	// entry offsets
+	static final int SYMBOL = 0;
+	static final int LIBRARY = 8;
+	static final int KIND = 10;
+	static final int KEY = 16;
+
+	private final File file;
+	private final ByteBuffer buf;
+	private final int libraryCount;
+	private final int entryCount;
+	private final int entryTable;
+	private final int stringPool;
+	private final String projectName;
+
+	private MappedRttiArchive(File file, ByteBuffer buf) throws IOException {
+		this.file = file;
+		this.buf = buf;
+		if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a mapped rtti archive");
+		}
+		if (buf.getInt(4) != VERSION) {
+			throw new IOException("Unsupported mapped rtti archive version " + buf.getInt(4));
+		}
+		this.libraryCount = buf.getInt(LIBRARY_COUNT);
+		this.entryCount = buf.getInt(ENTRY_COUNT);
+		long pool = buf.getLong(STRING_POOL);
+		long entries = HEADER_SIZE + (long) libraryCount * LIBRARY_SIZE;
+		if (libraryCount < 0 || entryCount < 0
+				|| buf.getLong(FILE_LENGTH) != buf.capacity()
+				|| pool != entries + (long) entryCount * ENTRY_SIZE
+				|| pool > buf.capacity()) {
+			throw new IOException(file + " is a corrupt mapped rtti archive");
+		}
+		this.entryTable = (int) entries;
+		this.stringPool = (int) pool;
+		this.projectName = getString(PROJECT_NAME);
+	}
+
+	/**
+	 * Maps the archive into memory
+	 * @param file the archive file
+	 * @return the mapped archive
+	 * @throws IOException if the file cannot be mapped or is not a mapped rtti archive
+	 */
+	public static MappedRttiArchive open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(file + " is too large to be mapped");
+			}
+			// the mapping remains valid once the channel is closed
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new MappedRttiArchive(file, buf);
+		}
+	}
+
+	/**
+	 * Gets the mapped file
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the name of the project archive this archive was exported from
+	 * @return the project archive name
+	 */
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * Gets the number of libraries
+	 * @return the number of libraries
+	 */
+	public int getLibraryCount() {
+		return libraryCount;
+	}
+
+	/**
+	 * Gets the name of the library
+	 * @param library the library index
+	 * @return the library name
+	 */
+	public String getLibraryName(int library) {
+		return getString(getLibraryOffset(library) + LIBRARY_NAME);
+	}
+
+	/**
+	 * Gets the number of type records in the library when it was exported
+	 * @param library the library index
+	 * @return the number of type records
+	 */
+	public int getTypeCount(int library) {
+		return buf.getInt(getLibraryOffset(library) + TYPE_COUNT);
+	}
+
+	/**
+	 * Gets the number of vtable records in the library when it was exported
+	 * @param library the library index
+	 * @return the number of vtable records
+	 */
+	public int getVtableCount(int library) {
+		return buf.getInt(getLibraryOffset(library) + VTABLE_COUNT);
+	}
+
+	/**
+	 * Gets the maximum type record key in the library when it was exported
+	 * @param library the library index
+	 * @return the maximum type record key
+	 */
+	public long getTypeMaxKey(int library) {
+		return buf.getLong(getLibraryOffset(library) + TYPE_MAX_KEY);
+	}
+
+	/**
+	 * Gets the maximum vtable record key in the library when it was exported
+	 * @param library the library index
+	 * @return the maximum vtable record key
+	 */
+	public long getVtableMaxKey(int library) {
+		return buf.getLong(getLibraryOffset(library) + VTABLE_MAX_KEY);
+	}
+
+	/**
+	 * Gets the number of entries
+	 * @return the number of entries
+	 */
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * Finds the first entry with the mangled symbol
+	 * @param symbolName the mangled symbol
+	 * @param vtable true to find a vtable or false to find a type
+	 * @return the entry or -1 if none exists
+	 * @see #next(int)
+	 */
+	public int find(String symbolName, boolean vtable) {
+		byte[] symbol = symbolName.getBytes(StandardCharsets.UTF_8);
+		byte kind = vtable ? VTABLE_KIND : TYPE_KIND;
+		int low = 0;
+		int high = entryCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(mid, symbol, kind) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low < entryCount && compare(low, symbol, kind) == 0 ? low : -1;
+	}
+
+	/**
+	 * Gets the entry following this one if it has the same mangled symbol and kind
+	 * @param entry the entry
+	 * @return the next entry or -1 if none exists
+	 */
+	public int next(int entry) {
+		int next = entry + 1;
+		if (next >= entryCount) {
+			return -1;
+		}
+		int a = getEntryOffset(entry);
+		int b = getEntryOffset(next);
+		if (buf.get(a + KIND) != buf.get(b + KIND)) {
+			return -1;
+		}
+		int length = buf.getInt(a + SYMBOL + 4);
+		if (length != buf.getInt(b + SYMBOL + 4)) {
+			return -1;
+		}
+		int symbolA = stringPool + buf.getInt(a + SYMBOL);
+		int symbolB = stringPool + buf.getInt(b + SYMBOL);
+		for (int i = 0; i < length; i++) {
+			if (buf.get(symbolA + i) != buf.get(symbolB + i)) {
+				return -1;
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Gets the mangled symbol of the entry
+	 * @param entry the entry
+	 * @return the mangled symbol
+	 */
+	public String getSymbolName(int entry) {
+		return getString(getEntryOffset(entry) + SYMBOL);
+	}
+
+	/**
+	 * Checks if the entry is a vtable
+	 * @param entry the entry
+	 * @return true if the entry is a vtable or false if it is a type
+	 */
+	public boolean isVtable(int entry) {
+		return buf.get(getEntryOffset(entry) + KIND) == VTABLE_KIND;
+	}
+
+	/**
+	 * Gets the index of the library containing the entry
+	 * @param entry the entry
+	 * @return the library index
+	 */
+	public int getLibrary(int entry) {
+		return buf.getShort(getEntryOffset(entry) + LIBRARY) & 0xffff;
+	}
+
+	/**
+	 * Gets the record key of the entry
+	 * @param entry the entry
+	 * @return the record key
+	 */
+	public long getKey(int entry) {
+		return buf.getLong(getEntryOffset(entry) + KEY);
+	}
+
+	private int getLibraryOffset(int library) {
+		Objects.checkIndex(library, libraryCount);
+		return HEADER_SIZE + library * LIBRARY_SIZE;
+	}
+
+	private int getEntryOffset(int entry) {
+		Objects.checkIndex(entry, entryCount);
+		return entryTable + entry * ENTRY_SIZE;
+	}
+
+	private String getString(int offset) {
+		int start = stringPool + buf.getInt(offset);
+		int length = buf.getInt(offset + 4);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buf.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int compare(int entry, byte[] symbol, byte kind) {
+		int offset = getEntryOffset(entry);
+		int start = stringPool + buf.getInt(offset + SYMBOL);
+		int length = buf.getInt(offset + SYMBOL + 4);
+		int n = Math.min(length, symbol.length);
+		for (int i = 0; i < n; i++) {
+			int result = Integer.compare(buf.get(start + i) & 0xff, symbol[i] & 0xff);
+			if (result != 0) {
+				return result;
+			}
+		}
+		if (length != symbol.length) {
+			return Integer.compare(length, symbol.length);
+		}
+		return Byte.compare(buf.get(offset + KIND), kind);
+	}
+}
@@ -0,0 +1,203 @@
+package cppclassanalyzer.database.mapped;
+
+import static cppclassanalyzer.database.mapped.MappedRttiArchive.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+import db.RecordIterator;
+import db.Table;
+
+/**
+ * Writes a {@link MappedRttiArchive} from the symbols of the type and vtable tables
+ * of each library.
+ */
+public final class MappedRttiArchiveWriter {
+
+	private static final int MAX_LIBRARIES = 0xffff;
+
+	private final String projectName;
+	private final List<Library> libraries;
+	private final List<Entry> entries;
+
+	/**
+	 * Constructs a new MappedRttiArchiveWriter
+	 * @param projectName the name of the project archive being exported
+	 */
+	public MappedRttiArchiveWriter(String projectName) {
+		this.projectName = projectName;
+		this.libraries = new ArrayList<>();
+		this.entries = new ArrayList<>();
+	}
+
+	/**
+	 * Adds the records of the library
+	 * @param name the library name
+	 * @param typeTable the library's type table
+	 * @param typeSymbolColumn the mangled symbol column of the type table
+	 * @param vtableTable the library's vtable table
+	 * @param vtableSymbolColumn the mangled symbol column of the vtable table
+	 * @param monitor the task monitor
+	 * @throws IOException if an error occurs reading the tables
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public void addLibrary(String name, Table typeTable, int typeSymbolColumn,
+			Table vtableTable, int vtableSymbolColumn, TaskMonitor monitor)
+			throws IOException, CancelledException {
+		if (libraries.size() == MAX_LIBRARIES) {
+			throw new IOException("Ghidra-Cpp-Class-Analyzer: too many libraries to export");
+		}
+		int index = libraries.size();
+		libraries.add(new Library(name, typeTable, vtableTable));
+		addRecords(index, TYPE_KIND, typeTable, typeSymbolColumn, monitor);
+		addRecords(index, VTABLE_KIND, vtableTable, vtableSymbolColumn, monitor);
+	}
+
+	private void addRecords(int library, byte kind, Table table, int symbolColumn,
+			TaskMonitor monitor) throws IOException, CancelledException {
+		for (RecordIterator it = table.iterator(); it.hasNext();) {
+			monitor.checkCanceled();
+			db.Record record = it.next();
+			String symbolName = record.getString(symbolColumn);
+			if (symbolName == null) {
+				continue;
+			}
+			entries.add(new Entry(symbolName.getBytes(StandardCharsets.UTF_8), kind,
+				library, record.getKey()));
+			monitor.incrementProgress(1);
+		}
+	}
+
+	/**
+	 * Writes the archive. An existing file is replaced once the archive is complete.
+	 * @param file the archive file
+	 * @throws IOException if an error occurs writing the file
+	 */
+	public void write(File file) throws IOException {
+		entries.sort(null);
+		StringPool pool = new StringPool();
+		byte[] project = projectName.getBytes(StandardCharsets.UTF_8);
+		int projectOffset = pool.add(project);
+		byte[][] names = new byte[libraries.size()][];
+		int[] nameOffsets = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = libraries.get(i).name.getBytes(StandardCharsets.UTF_8);
+			nameOffsets[i] = pool.add(names[i]);
+		}
+		int[] symbols = new int[entries.size()];
+		for (int i = 0; i < symbols.length; i++) {
+			symbols[i] = pool.add(entries.get(i).symbol);
+		}
+		long stringPool = HEADER_SIZE + (long) libraries.size() * LIBRARY_SIZE
+			+ (long) entries.size() * ENTRY_SIZE;
+		long length = stringPool + pool.size();
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Ghidra-Cpp-Class-Analyzer: mapped archive is too large");
+		}
+
+		File tmp = new File(file.getParentFile(), file.getName() + "_tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(libraries.size());
+			out.writeInt(entries.size());
+			out.writeInt(projectOffset);
+			out.writeInt(project.length);
+			out.writeLong(stringPool);
+			out.writeLong(length);
+			out.write(new byte[HEADER_SIZE - 40]);
+			for (int i = 0; i < names.length; i++) {
+				Library lib = libraries.get(i);
+				out.writeInt(nameOffsets[i]);
+				out.writeInt(names[i].length);
+				out.writeInt(lib.typeCount);
+				out.writeInt(lib.vtableCount);
+				out.writeLong(lib.typeMaxKey);
+				out.writeLong(lib.vtableMaxKey);
+			}
+			for (int i = 0; i < symbols.length; i++) {
+				Entry entry = entries.get(i);
+				out.writeInt(symbols[i]);
+				out.writeInt(entry.symbol.length);
+				out.writeShort(entry.library);
+				out.writeByte(entry.kind);
+				out.write(new byte[KEY - KIND - 1]);
+				out.writeLong(entry.key);
+			}
+			pool.writeTo(out);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static final class Library {
+
+		private final String name;
+		private final int typeCount;
+		private final int vtableCount;
+		private final long typeMaxKey;
+		private final long vtableMaxKey;
+
+		Library(String name, Table typeTable, Table vtableTable) {
+			this.name = name;
+			this.typeCount = typeTable.getRecordCount();
+			this.vtableCount = vtableTable.getRecordCount();
+			this.typeMaxKey = typeTable.getMaxKey();
+			this.vtableMaxKey = vtableTable.getMaxKey();
+		}
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+
+		private final byte[] symbol;
+		private final byte kind;
+		private final int library;
+		private final long key;
+
+		Entry(byte[] symbol, byte kind, int library, long key) {
+			this.symbol = symbol;
+			this.kind = kind;
+			this.library = library;
+			this.key = key;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			// must match the order used by MappedRttiArchive.find
+			int result = Arrays.compareUnsigned(symbol, o.symbol);
+			if (result != 0) {
+				return result;
+			}
+			result = Byte.compare(kind, o.kind);
+			if (result != 0) {
+				return result;
+			}
+			return Integer.compare(library, o.library);
+		}
+	}
+
+	private static final class StringPool {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		int add(byte[] value) {
+			int offset = bytes.size();
+			bytes.write(value, 0, value.length);
+			return offset;
+		}
+
+		int size() {
+			return bytes.size();
+		}
+
+		void writeTo(OutputStream out) throws IOException {
+			bytes.writeTo(out);
+		}
+	}
+}
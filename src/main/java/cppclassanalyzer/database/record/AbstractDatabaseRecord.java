@@ -3,8 +3,6 @@ package cppclassanalyzer.database.record;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.stream.IntStream;
-import java.util.stream.LongStream;
 
 import cppclassanalyzer.database.schema.fields.FieldEnum;
 import db.Buffer;
@@ -38,39 +36,27 @@ abstract class AbstractDatabaseRecord<T extends FieldEnum> implements DatabaseRe
 	}
 
 	public static int getArraySize(int[] data) {
-		return Integer.BYTES + Integer.BYTES * data.length;
+		return ArrayCodec.getSize(data);
 	}
 
 	public static int getArraySize(long[] data) {
-		return Integer.BYTES + Long.BYTES * data.length;
+		return ArrayCodec.getSize(data);
 	}
 
 	public static int[] getIntArray(ByteBuffer buf) {
-		int size = buf.getInt();
-		return IntStream.generate(buf::getInt)
-				.limit(size)
-				.toArray();
+		return ArrayCodec.getIntArray(buf);
 	}
 
 	public static long[] getLongArray(ByteBuffer buf) {
-		int size = buf.getInt();
-		return LongStream.generate(buf::getLong)
-				.limit(size)
-				.toArray();
+		return ArrayCodec.getLongArray(buf);
 	}
 
 	public static void setIntArray(ByteBuffer buf, int[] values) {
-		buf.putInt(values.length);
-		for (int value : values) {
-			buf.putInt(value);
-		}
+		ArrayCodec.putIntArray(buf, values);
 	}
 
 	public static void setLongArray(ByteBuffer buf, long[] values) {
-		buf.putInt(values.length);
-		for (long value : values) {
-			buf.putLong(value);
-		}
+		ArrayCodec.putLongArray(buf, values);
 	}
 
 	public static void putObjectArray(ByteBuffer buf, ByteConvertable[] obj) {
@@ -232,14 +218,14 @@ abstract class AbstractDatabaseRecord<T extends FieldEnum> implements DatabaseRe
 
 	@Override
 	public final synchronized void setLongArray(T type, long[] values) {
-		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + Long.BYTES * values.length);
+		ByteBuffer buf = ByteBuffer.allocate(getArraySize(values));
 		setLongArray(buf, values);
 		record.setBinaryData(type.getIndex(), buf.array());
 	}
 
 	@Override
 	public final synchronized void setIntArray(T type, int[] values) {
-		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + Integer.BYTES * values.length);
+		ByteBuffer buf = ByteBuffer.allocate(getArraySize(values));
 		setIntArray(buf, values);
 		record.setBinaryData(type.getIndex(), buf.array());
 	}
@@ -0,0 +1,298 @@
+package cppclassanalyzer.database.record;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the long and int arrays stored in binary record fields.
+ * <p>
+ * Each array begins with an unsigned varint header holding the length shifted
+ * left by two and the encoding mode in the low two bits. The values follow as
+ * zig-zag varints, as a zig-zag varint followed by the unsigned varint deltas
+ * of an ascending array, or as fixed width big-endian values. The smallest
+ * of the three is chosen for each array. An empty array is the single byte 0.
+ * <p>
+ * Schema version 0 stored every array as an int length followed by fixed
+ * width values. The {@code getFixed} methods decode that layout for upgrades.
+ */
+public final class ArrayCodec {
+
+	private static final int VARINT = 0;
+	private static final int DELTA = 1;
+	private static final int FIXED = 2;
+	private static final int MODE_BITS = 2;
+	private static final int MODE_MASK = (1 << MODE_BITS) - 1;
+
+	private ArrayCodec() {
+	}
+
+	/**
+	 * Gets the number of bytes required to encode the array
+	 * @param values the array
+	 * @return the encoded size
+	 */
+	public static int getSize(long[] values) {
+		int mode = getMode(values, Long.BYTES);
+		return getVarIntSize(getHeader(values.length, mode))
+			+ getDataSize(values, mode, Long.BYTES);
+	}
+
+	/**
+	 * Gets the number of bytes required to encode the array
+	 * @param values the array
+	 * @return the encoded size
+	 */
+	public static int getSize(int[] values) {
+		long[] widened = widen(values);
+		int mode = getMode(widened, Integer.BYTES);
+		return getVarIntSize(getHeader(values.length, mode))
+			+ getDataSize(widened, mode, Integer.BYTES);
+	}
+
+	/**
+	 * Encodes the array into the buffer
+	 * @param buf the buffer
+	 * @param values the array
+	 */
+	public static void putLongArray(ByteBuffer buf, long[] values) {
+		int mode = getMode(values, Long.BYTES);
+		putVarInt(buf, getHeader(values.length, mode));
+		if (mode == FIXED) {
+			for (long value : values) {
+				buf.putLong(value);
+			}
+		} else {
+			putValues(buf, values, mode);
+		}
+	}
+
+	/**
+	 * Encodes the array into the buffer
+	 * @param buf the buffer
+	 * @param values the array
+	 */
+	public static void putIntArray(ByteBuffer buf, int[] values) {
+		long[] widened = widen(values);
+		int mode = getMode(widened, Integer.BYTES);
+		putVarInt(buf, getHeader(values.length, mode));
+		if (mode == FIXED) {
+			for (int value : values) {
+				buf.putInt(value);
+			}
+		} else {
+			putValues(buf, widened, mode);
+		}
+	}
+
+	/**
+	 * Decodes an array from the buffer
+	 * @param buf the buffer
+	 * @return the decoded array
+	 */
+	public static long[] getLongArray(ByteBuffer buf) {
+		long header = getVarInt(buf);
+		int mode = (int) (header & MODE_MASK);
+		int length = getLength(buf, header);
+		long[] values = new long[length];
+		if (mode == FIXED) {
+			for (int i = 0; i < length; i++) {
+				values[i] = buf.getLong();
+			}
+		} else {
+			getValues(buf, values, mode);
+		}
+		return values;
+	}
+
+	/**
+	 * Decodes an array from the buffer
+	 * @param buf the buffer
+	 * @return the decoded array
+	 */
+	public static int[] getIntArray(ByteBuffer buf) {
+		long header = getVarInt(buf);
+		int mode = (int) (header & MODE_MASK);
+		int length = getLength(buf, header);
+		int[] values = new int[length];
+		if (mode == FIXED) {
+			for (int i = 0; i < length; i++) {
+				values[i] = buf.getInt();
+			}
+			return values;
+		}
+		long[] widened = new long[length];
+		getValues(buf, widened, mode);
+		for (int i = 0; i < length; i++) {
+			values[i] = (int) widened[i];
+		}
+		return values;
+	}
+
+	/**
+	 * Decodes an array stored with the fixed width encoding of schema version 0
+	 * @param buf the buffer
+	 * @return the decoded array
+	 */
+	public static long[] getFixedLongArray(ByteBuffer buf) {
+		if (buf.remaining() < Integer.BYTES) {
+			// trailing arrays were sometimes left unwritten
+			return new long[0];
+		}
+		long[] values = new long[checkLength(buf, buf.getInt(), Long.BYTES)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buf.getLong();
+		}
+		return values;
+	}
+
+	/**
+	 * Decodes an array stored with the fixed width encoding of schema version 0
+	 * @param buf the buffer
+	 * @return the decoded array
+	 */
+	public static int[] getFixedIntArray(ByteBuffer buf) {
+		if (buf.remaining() < Integer.BYTES) {
+			return new int[0];
+		}
+		int[] values = new int[checkLength(buf, buf.getInt(), Integer.BYTES)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = buf.getInt();
+		}
+		return values;
+	}
+
+	private static long[] widen(int[] values) {
+		long[] result = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+	private static long getHeader(int length, int mode) {
+		return ((long) length << MODE_BITS) | mode;
+	}
+
+	private static int getLength(ByteBuffer buf, long header) {
+		long length = header >>> MODE_BITS;
+		if ((header & MODE_MASK) > FIXED || length > buf.remaining()) {
+			// every value occupies at least one byte
+			throw new BufferUnderflowException();
+		}
+		return (int) length;
+	}
+
+	private static int checkLength(ByteBuffer buf, int length, int width) {
+		if (length < 0 || (long) length * width > buf.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		return length;
+	}
+
+	private static boolean isAscending(long[] values) {
+		for (int i = 1; i < values.length; i++) {
+			if (values[i] < values[i - 1]) {
+				return false;
+			}
+		}
+		return values.length > 1;
+	}
+
+	private static int getMode(long[] values, int width) {
+		if (values.length == 0) {
+			return VARINT;
+		}
+		int best = VARINT;
+		int size = getDataSize(values, VARINT, width);
+		if (isAscending(values)) {
+			int deltaSize = getDataSize(values, DELTA, width);
+			if (deltaSize < size) {
+				best = DELTA;
+				size = deltaSize;
+			}
+		}
+		if (values.length * width < size) {
+			best = FIXED;
+		}
+		return best;
+	}
+
+	private static int getDataSize(long[] values, int mode, int width) {
+		if (mode == FIXED) {
+			return values.length * width;
+		}
+		int size = 0;
+		long previous = 0;
+		for (int i = 0; i < values.length; i++) {
+			long value = values[i];
+			if (mode == DELTA && i > 0) {
+				size += getVarIntSize(value - previous);
+			} else {
+				size += getVarIntSize(zigZag(value));
+			}
+			previous = value;
+		}
+		return size;
+	}
+
+	private static void putValues(ByteBuffer buf, long[] values, int mode) {
+		long previous = 0;
+		for (int i = 0; i < values.length; i++) {
+			long value = values[i];
+			if (mode == DELTA && i > 0) {
+				putVarInt(buf, value - previous);
+			} else {
+				putVarInt(buf, zigZag(value));
+			}
+			previous = value;
+		}
+	}
+
+	private static void getValues(ByteBuffer buf, long[] values, int mode) {
+		long previous = 0;
+		for (int i = 0; i < values.length; i++) {
+			long value;
+			if (mode == DELTA && i > 0) {
+				value = previous + getVarInt(buf);
+			} else {
+				value = unZigZag(getVarInt(buf));
+			}
+			values[i] = value;
+			previous = value;
+		}
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int getVarIntSize(long value) {
+		// 7 bits per byte, treating the value as unsigned
+		int bits = Long.SIZE - Long.numberOfLeadingZeros(value | 1);
+		return (bits + 6) / 7;
+	}
+
+	private static void putVarInt(ByteBuffer buf, long value) {
+		while ((value & ~0x7fL) != 0) {
+			buf.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		buf.put((byte) value);
+	}
+
+	private static long getVarInt(ByteBuffer buf) {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			byte b = buf.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new BufferUnderflowException();
+	}
+}
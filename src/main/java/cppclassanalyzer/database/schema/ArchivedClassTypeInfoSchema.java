@@ -6,7 +6,7 @@ import cppclassanalyzer.database.schema.fields.ArchivedClassTypeInfoSchemaFields
 public final class ArchivedClassTypeInfoSchema
 		extends AbstractSchema<ArchivedClassTypeInfoRecord> {
 
-	private static final int VERSION = 0;
+	private static final int VERSION = 1;
 	public static final ArchivedClassTypeInfoSchema SCHEMA =
 		new ArchivedClassTypeInfoSchema(VERSION);
 	public static final int[] INDEXED_COLUMNS = new int[] {
@@ -5,7 +5,7 @@ import cppclassanalyzer.database.schema.fields.ArchivedGnuVtableSchemaFields;
 
 public final class ArchivedGnuVtableSchema extends AbstractSchema<ArchivedGnuVtableRecord> {
 
-	private static final int VERSION = 0;
+	private static final int VERSION = 1;
 	public static final ArchivedGnuVtableSchema SCHEMA = new ArchivedGnuVtableSchema(VERSION);
 	public static final int[] INDEXED_COLUMNS = new int[] {
 		ArchivedGnuVtableSchemaFields.MANGLED_SYMBOL.ordinal()
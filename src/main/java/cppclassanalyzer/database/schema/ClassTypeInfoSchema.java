@@ -5,7 +5,7 @@ import cppclassanalyzer.database.schema.fields.ClassTypeInfoSchemaFields;
 
 public final class ClassTypeInfoSchema extends AbstractSchema<ClassTypeInfoRecord> {
 
-	private static final int VERSION = 0;
+	private static final int VERSION = 1;
 	public static final ClassTypeInfoSchema SCHEMA = new ClassTypeInfoSchema(VERSION);
 	public static final int[] INDEXED_COLUMNS = new int[] {
 		ClassTypeInfoSchemaFields.ADDRESS.ordinal(),
@@ -5,7 +5,7 @@ import cppclassanalyzer.database.schema.fields.VtableSchemaFields;
 
 public final class VtableSchema extends AbstractSchema<VtableRecord> {
 
-	private static final int VERSION = 0;
+	private static final int VERSION = 1;
 	public static final VtableSchema SCHEMA = new VtableSchema(VERSION);
 	public static final int[] INDEXED_COLUMNS = new int[] {
 		VtableSchemaFields.ADDRESS.ordinal()
@@ -5,6 +5,7 @@ public class TransactionHandler {
 	private final TransactionStarter starter;
 	private final TransactionEnder ender;
 	private final LongStack transactions;
+	private TransactionFlusher flusher;
 
 	public TransactionHandler(TransactionStarter starter, TransactionEnder ender) {
 		this.starter = starter;
@@ -12,6 +13,22 @@ public class TransactionHandler {
 		this.transactions = new LongStack();
 	}
 
+	/**
+	 * Sets the flusher to be invoked before the outermost transaction is ended
+	 * @param flusher the transaction flusher
+	 */
+	public void setFlusher(TransactionFlusher flusher) {
+		this.flusher = flusher;
+	}
+
+	/**
+	 * Checks if a transaction started by this handler is still open
+	 * @return true if a transaction is open
+	 */
+	public boolean isTransactionActive() {
+		return transactions.size() > 0;
+	}
+
 	public void startTransaction() {
 		startTransaction(null);
 	}
@@ -25,8 +42,14 @@ public class TransactionHandler {
 	}
 
 	public void endTransaction(boolean commit) {
-		long id = transactions.pop();
-		ender.endTransaction(id, commit);
+		try {
+			if (flusher != null && transactions.size() == 1) {
+				flusher.flush(commit);
+			}
+		} finally {
+			long id = transactions.pop();
+			ender.endTransaction(id, commit);
+		}
 	}
 
 	@FunctionalInterface
@@ -38,4 +61,9 @@ public class TransactionHandler {
 	public static interface TransactionEnder {
 		void endTransaction(long id, boolean commit);
 	}
+
+	@FunctionalInterface
+	public static interface TransactionFlusher {
+		void flush(boolean commit);
+	}
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.*;
 
 import ghidra.app.decompiler.*;
 import ghidra.app.decompiler.component.DecompilerUtils;
+import ghidra.framework.Application;
 import ghidra.framework.options.ToolOptions;
 import ghidra.framework.plugintool.PluginTool;
 import ghidra.framework.plugintool.util.OptionsService;
@@ -19,8 +20,11 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheStats;
 
+import cppclassanalyzer.decompiler.cache.FunctionSummary;
+import cppclassanalyzer.decompiler.cache.PersistentDecompilerCache;
 import cppclassanalyzer.decompiler.function.HighFunctionCall;
 import cppclassanalyzer.decompiler.token.ClangNodeUtils;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
 
 /**
@@ -32,6 +36,8 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 	private final PluginTool tool;
 	private final DecompInterface decompiler;
 	private Cache<Function, DecompileResults> cache;
+	private PersistentDecompilerCache persistentCache;
+	private String optionsFingerprint;
 	private TaskMonitor monitor;
 	private int timeout;
 
@@ -75,6 +81,9 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 
 	@Override
 	public void dispose() {
+		if (persistentCache != null) {
+			persistentCache.flush();
+		}
 		if (decompiler != null) {
 			decompiler.dispose();
 		}
@@ -106,6 +115,8 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 		decompiler.toggleSyntaxTree(true);
 		decompiler.setSimplificationStyle("decompile");
 
+		this.optionsFingerprint = getOptionsFingerprint(options);
+		this.persistentCache = PersistentDecompilerCache.getCache(program);
 		return decompiler;
 	}
 
@@ -181,10 +192,23 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 	}
 
 	/**
-	 * Flushes the decompiler cache
+	 * Removes the function's decompilation from the decompiler cache
+	 * so that it is decompiled again when it is next requested
+	 * @param function the function
+	 */
+	public void invalidate(Function function) {
+		cache.invalidate(Objects.requireNonNull(function));
+	}
+
+	/**
+	 * Flushes the decompiler cache. Any new function summaries are
+	 * written to the persistent cache.
 	 */
 	public void clearCache() {
 		cache.invalidateAll();
+		if (persistentCache != null) {
+			persistentCache.flush();
+		}
 	}
 
 	/**
@@ -195,10 +219,17 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 	 */
 	public DecompileResults decompileFunction(Function function) throws CancelledException {
 		DecompileResults results = cache.getIfPresent(Objects.requireNonNull(function));
+		AnalysisMetrics metrics = AnalysisMetrics.getMetrics(function.getProgram());
 		if (results != null) {
+			metrics.increment(AnalysisMetrics.DECOMPILER_CACHE_HITS);
 			return results;
 		}
+		metrics.increment(AnalysisMetrics.DECOMPILER_CACHE_MISSES);
 		results = decompiler.decompileFunction(function, timeout, monitor);
+		metrics.increment(AnalysisMetrics.DECOMPILATIONS);
+		if (results.isTimedOut()) {
+			metrics.increment(AnalysisMetrics.DECOMPILER_TIMEOUTS);
+		}
 		monitor.checkCanceled();
 		cache.put(function, results);
 		return results;
@@ -237,6 +268,41 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 		return ClangNodeUtils.getClangFunctionCalls(results.getCCodeMarkup());
 	}
 
+	/**
+	 * Gets the summary of the decompiled function used by the constructor analysis.
+	 * The summary is obtained from the persistent cache when the function and
+	 * decompiler options are unchanged since it was last decompiled.
+	 * @param function the function to decompile
+	 * @return the function summary or null if the decompilation failed
+	 * @throws CancelledException if the decompilation is cancelled
+	 */
+	public FunctionSummary getFunctionSummary(Function function) throws CancelledException {
+		Objects.requireNonNull(function);
+		byte[] digest = null;
+		if (persistentCache != null) {
+			AnalysisMetrics metrics = AnalysisMetrics.getMetrics(function.getProgram());
+			digest = PersistentDecompilerCache.getDigest(function, optionsFingerprint);
+			FunctionSummary summary = persistentCache.get(function, digest);
+			if (summary != null) {
+				metrics.increment(AnalysisMetrics.SUMMARY_CACHE_HITS);
+				return summary;
+			}
+			metrics.increment(AnalysisMetrics.SUMMARY_CACHE_MISSES);
+		}
+		DecompileResults results = decompileFunction(function);
+		HighFunction hf = results.getHighFunction();
+		if (hf == null) {
+			return null;
+		}
+		List<HighFunctionCall> calls =
+			ClangNodeUtils.getClangFunctionCalls(results.getCCodeMarkup());
+		FunctionSummary summary = FunctionSummary.create(hf, calls);
+		if (persistentCache != null) {
+			persistentCache.put(function, digest, summary);
+		}
+		return summary;
+	}
+
 	/**
 	 * A convience method to get the corresponding Function for a function name
 	 * @param token the function name
@@ -254,6 +320,17 @@ public final class DecompilerAPI implements Disposable, AutoCloseable {
 		return cache.stats();
 	}
 
+	private static String getOptionsFingerprint(DecompileOptions options) {
+		return String.join(";",
+			Application.getApplicationVersion(),
+			options.getProtoEvalModel(),
+			Boolean.toString(options.isEliminateUnreachable()),
+			Boolean.toString(options.isRespectReadOnly()),
+			Boolean.toString(options.isSimplifyDoublePrecision()),
+			Boolean.toString(options.isIgnoreUnimplemented()),
+			Boolean.toString(options.isInferConstantPointers()));
+	}
+
 	private static Cache<Function, DecompileResults> buildCache(int cacheSize) {
 		return CacheBuilder.newBuilder()
            .softValues()
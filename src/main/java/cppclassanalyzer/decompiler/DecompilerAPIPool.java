@@ -0,0 +1,112 @@
+package cppclassanalyzer.decompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import ghidra.program.model.listing.Program;
+import ghidra.util.Disposable;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
+import ghidra.util.task.TaskMonitor;
+
+/**
+ * A bounded pool of {@link DecompilerAPI} instances each backed by their own
+ * {@link ghidra.app.decompiler.DecompInterface DecompInterface}.
+ * A DecompilerAPI may only be used by one thread at a time and must be
+ * returned to the pool with {@link #release(DecompilerAPI)} once finished.
+ */
+public final class DecompilerAPIPool implements Disposable, AutoCloseable {
+
+	private static final long POLL_INTERVAL_MS = 100;
+
+	private final List<DecompilerAPI> apis;
+	private final BlockingQueue<DecompilerAPI> available;
+	private final TaskMonitor monitor;
+
+	/**
+	 * Constructs a new DecompilerAPIPool
+	 * @param program the program to decompile
+	 * @param monitor the monitor used to cancel decompilation
+	 * @param timeout the timeout to use for the decompilers or &lt; 0 to use
+	 * the default timeout provided by user settings.
+	 * @param size the number of decompilers in the pool
+	 */
+	public DecompilerAPIPool(Program program, TaskMonitor monitor, int timeout, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("DecompilerAPIPool size must be at least 1");
+		}
+		// the workers may only check for cancellation, progress belongs to the caller
+		this.monitor = new CancelOnlyWrappingTaskMonitor(monitor);
+		this.apis = new ArrayList<>(size);
+		this.available = new ArrayBlockingQueue<>(size);
+		try {
+			for (int i = 0; i < size; i++) {
+				DecompilerAPI api = new DecompilerAPI(program, this.monitor, timeout);
+				apis.add(api);
+				available.add(api);
+			}
+		} catch (RuntimeException e) {
+			dispose();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the number of decompilers in this pool
+	 * @return the pool size
+	 */
+	public int getSize() {
+		return apis.size();
+	}
+
+	/**
+	 * Takes a DecompilerAPI from the pool, waiting until one becomes available
+	 * @return the DecompilerAPI
+	 * @throws CancelledException if the monitor is cancelled while waiting
+	 */
+	public DecompilerAPI acquire() throws CancelledException {
+		try {
+			DecompilerAPI api = null;
+			while (api == null) {
+				monitor.checkCanceled();
+				api = available.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			}
+			return api;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelledException();
+		}
+	}
+
+	/**
+	 * Returns a DecompilerAPI previously obtained from {@link #acquire()} to the pool
+	 * @param api the DecompilerAPI
+	 */
+	public void release(DecompilerAPI api) {
+		if (!apis.contains(api)) {
+			throw new IllegalArgumentException("DecompilerAPI does not belong to this pool");
+		}
+		available.offer(api);
+	}
+
+	/**
+	 * Flushes the cache of every decompiler in the pool
+	 */
+	public void clearCache() {
+		apis.forEach(DecompilerAPI::clearCache);
+	}
+
+	@Override
+	public void dispose() {
+		apis.forEach(DecompilerAPI::dispose);
+		available.clear();
+	}
+
+	@Override
+	public void close() {
+		dispose();
+	}
+}
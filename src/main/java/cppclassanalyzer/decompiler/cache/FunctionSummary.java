@@ -0,0 +1,288 @@
+package cppclassanalyzer.decompiler.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressFactory;
+import ghidra.program.model.address.AddressSpace;
+import ghidra.program.model.listing.Function;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.pcode.*;
+
+import cppclassanalyzer.decompiler.function.HighFunctionCall;
+import cppclassanalyzer.decompiler.function.HighFunctionCallParameter;
+
+/**
+ * The portion of a decompiled function consumed by the constructor analysis.
+ * Unlike a {@link ghidra.app.decompiler.DecompileResults DecompileResults} this
+ * is small and may be persisted.
+ */
+public final class FunctionSummary {
+
+	/** The offset used for a call whose first parameter is not relative to this */
+	public static final int NO_THIS_OFFSET = Integer.MIN_VALUE;
+
+	private final boolean hasThisParam;
+	private final List<CallSite> calls;
+	private final List<VptrStore> vptrStores;
+
+	private FunctionSummary(boolean hasThisParam, List<CallSite> calls,
+			List<VptrStore> vptrStores) {
+		this.hasThisParam = hasThisParam;
+		this.calls = Collections.unmodifiableList(calls);
+		this.vptrStores = Collections.unmodifiableList(vptrStores);
+	}
+
+	/**
+	 * Creates a summary of the decompiled function
+	 * @param hf the decompiled function
+	 * @param calls the function calls within the decompiled function
+	 * @return the function summary
+	 */
+	public static FunctionSummary create(HighFunction hf, List<HighFunctionCall> calls) {
+		LocalSymbolMap map = hf.getLocalSymbolMap();
+		HighParam thisParam = map.getNumParams() > 0 ? map.getParam(0) : null;
+		List<CallSite> sites = new ArrayList<>(calls.size());
+		for (HighFunctionCall call : calls) {
+			Function callee = call.getFunction();
+			Address entry = callee != null ? callee.getEntryPoint() : null;
+			sites.add(new CallSite(entry, getThisOffset(thisParam, call)));
+		}
+		List<VptrStore> stores = thisParam != null
+				? getVptrStores(hf, thisParam)
+				: Collections.emptyList();
+		return new FunctionSummary(thisParam != null, sites, stores);
+	}
+
+	private static int getThisOffset(HighParam thisParam, HighFunctionCall call) {
+		if (thisParam == null) {
+			return NO_THIS_OFFSET;
+		}
+		List<HighFunctionCallParameter> params = call.getParameters();
+		if (params.isEmpty()) {
+			return NO_THIS_OFFSET;
+		}
+		HighFunctionCallParameter self = params.get(0);
+		if (!self.hasLocalRef()) {
+			return NO_THIS_OFFSET;
+		}
+		HighVariable var = self.getVariableToken().getHighVariable();
+		if (var == null || !var.equals(thisParam)) {
+			return NO_THIS_OFFSET;
+		}
+		if (self.hasFieldToken()) {
+			return self.getOffset() + self.getFieldToken().getOffset();
+		}
+		return self.getOffset();
+	}
+
+	private static List<VptrStore> getVptrStores(HighFunction hf, HighParam thisParam) {
+		List<VptrStore> stores = new ArrayList<>();
+		Iterator<PcodeOpAST> ops = hf.getPcodeOps();
+		while (ops.hasNext()) {
+			PcodeOpAST op = ops.next();
+			if (op.getOpcode() != PcodeOp.STORE) {
+				continue;
+			}
+			Varnode value = op.getInput(2);
+			if (!value.isConstant()) {
+				continue;
+			}
+			int offset = getThisRelativeOffset(op.getInput(1), thisParam);
+			if (offset != NO_THIS_OFFSET) {
+				Address address = op.getSeqnum().getTarget();
+				stores.add(new VptrStore(address, offset, value.getOffset()));
+			}
+		}
+		return stores;
+	}
+
+	private static int getThisRelativeOffset(Varnode pointer, HighParam thisParam) {
+		if (thisParam.equals(pointer.getHigh())) {
+			return 0;
+		}
+		PcodeOp def = pointer.getDef();
+		if (def == null || def.getNumInputs() < 2) {
+			return NO_THIS_OFFSET;
+		}
+		if (!thisParam.equals(def.getInput(0).getHigh())) {
+			return NO_THIS_OFFSET;
+		}
+		switch (def.getOpcode()) {
+			case PcodeOp.INT_ADD:
+			case PcodeOp.PTRSUB:
+				if (def.getInput(1).isConstant()) {
+					return (int) def.getInput(1).getOffset();
+				}
+				break;
+			case PcodeOp.PTRADD:
+				if (def.getInput(1).isConstant() && def.getInput(2).isConstant()) {
+					return (int) (def.getInput(1).getOffset() * def.getInput(2).getOffset());
+				}
+				break;
+			default:
+				break;
+		}
+		return NO_THIS_OFFSET;
+	}
+
+	/**
+	 * Checks if the decompiled function has a this parameter
+	 * @return true if the function has at least one parameter
+	 */
+	public boolean hasThisParam() {
+		return hasThisParam;
+	}
+
+	/**
+	 * Gets the function calls in the order they appear in the decompiled function
+	 * @return the function calls
+	 */
+	public List<CallSite> getCalls() {
+		return calls;
+	}
+
+	/**
+	 * Gets the stores of constants to locations relative to the this parameter
+	 * @return the possible vptr stores
+	 */
+	public List<VptrStore> getVptrStores() {
+		return vptrStores;
+	}
+
+	void write(DataOutput out) throws IOException {
+		out.writeBoolean(hasThisParam);
+		out.writeInt(calls.size());
+		for (CallSite call : calls) {
+			out.writeBoolean(call.callee != null);
+			if (call.callee != null) {
+				writeAddress(out, call.callee);
+			}
+			out.writeInt(call.thisOffset);
+		}
+		out.writeInt(vptrStores.size());
+		for (VptrStore store : vptrStores) {
+			writeAddress(out, store.address);
+			out.writeInt(store.offset);
+			out.writeLong(store.value);
+		}
+	}
+
+	static FunctionSummary read(DataInput in, AddressFactory factory) throws IOException {
+		boolean hasThisParam = in.readBoolean();
+		int size = in.readInt();
+		List<CallSite> calls = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Address callee = in.readBoolean() ? readAddress(in, factory) : null;
+			calls.add(new CallSite(callee, in.readInt()));
+		}
+		size = in.readInt();
+		List<VptrStore> stores = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Address address = readAddress(in, factory);
+			int offset = in.readInt();
+			stores.add(new VptrStore(address, offset, in.readLong()));
+		}
+		return new FunctionSummary(hasThisParam, calls, stores);
+	}
+
+	static void writeAddress(DataOutput out, Address address) throws IOException {
+		out.writeInt(address.getAddressSpace().getSpaceID());
+		out.writeLong(address.getOffset());
+	}
+
+	static Address readAddress(DataInput in, AddressFactory factory) throws IOException {
+		int id = in.readInt();
+		long offset = in.readLong();
+		AddressSpace space = factory.getAddressSpace(id);
+		if (space == null) {
+			throw new IOException("Unknown address space id " + id);
+		}
+		return space.getAddress(offset);
+	}
+
+	/**
+	 * A call to a function from within the summarized function
+	 */
+	public static final class CallSite {
+
+		private final Address callee;
+		private final int thisOffset;
+
+		CallSite(Address callee, int thisOffset) {
+			this.callee = callee;
+			this.thisOffset = thisOffset;
+		}
+
+		/**
+		 * Gets the called function
+		 * @param program the program containing the function
+		 * @return the called function or null if it could not be determined
+		 */
+		public Function getFunction(Program program) {
+			if (callee == null) {
+				return null;
+			}
+			return program.getFunctionManager().getFunctionAt(callee);
+		}
+
+		/**
+		 * Checks if the first parameter of this call is relative to the caller's this parameter
+		 * @return true if the first parameter is relative to this
+		 */
+		public boolean isThisCall() {
+			return thisOffset != NO_THIS_OFFSET;
+		}
+
+		/**
+		 * Gets the offset from the caller's this parameter passed as the first parameter
+		 * @return the offset or {@link FunctionSummary#NO_THIS_OFFSET}
+		 */
+		public int getThisOffset() {
+			return thisOffset;
+		}
+	}
+
+	/**
+	 * A store of a constant to a location relative to the this parameter
+	 */
+	public static final class VptrStore {
+
+		private final Address address;
+		private final int offset;
+		private final long value;
+
+		VptrStore(Address address, int offset, long value) {
+			this.address = address;
+			this.offset = offset;
+			this.value = value;
+		}
+
+		/**
+		 * Gets the address of the store instruction
+		 * @return the address of the store
+		 */
+		public Address getAddress() {
+			return address;
+		}
+
+		/**
+		 * Gets the offset from this being stored to
+		 * @return the offset from this
+		 */
+		public int getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Gets the stored value
+		 * @return the stored value
+		 */
+		public long getValue() {
+			return value;
+		}
+	}
+}
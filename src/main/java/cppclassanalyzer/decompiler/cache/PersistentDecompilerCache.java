@@ -0,0 +1,284 @@
+package cppclassanalyzer.decompiler.cache;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ghidra.framework.model.DomainFile;
+import ghidra.framework.model.ProjectLocator;
+import ghidra.program.model.address.*;
+import ghidra.program.model.data.*;
+import ghidra.program.model.listing.AutoParameterType;
+import ghidra.program.model.listing.Function;
+import ghidra.program.model.listing.Parameter;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.mem.Memory;
+import ghidra.program.model.mem.MemoryAccessException;
+import ghidra.util.Msg;
+import ghidra.util.exception.AssertException;
+import ghidra.util.task.TaskMonitor;
+
+/**
+ * A second level decompiler cache of {@link FunctionSummary} objects persisted
+ * in the project directory alongside the program database. Entries are keyed by
+ * the function entry point and validated against a digest of the function body,
+ * its signature, the layout of its {@code this} datatype, the prototypes of the
+ * functions it calls and the decompiler options so that stale entries are never used.
+ */
+public final class PersistentDecompilerCache {
+
+	private static final String DIRECTORY_NAME = "cppclassanalyzer";
+	private static final String FILE_EXTENSION = ".dcache";
+	private static final int MAGIC = 0x43444343;
+	private static final int VERSION = 1;
+
+	private static final Map<Program, PersistentDecompilerCache> CACHES = new WeakHashMap<>();
+
+	private final Program program;
+	private final File file;
+	private final Map<Address, Entry> entries;
+	private boolean dirty;
+
+	private PersistentDecompilerCache(Program program, File file) {
+		this.program = program;
+		this.file = file;
+		this.entries = new ConcurrentHashMap<>();
+		load();
+	}
+
+	/**
+	 * Gets the cache for the program
+	 * @param program the program
+	 * @return the program's cache or null if the program is not saved in a project
+	 */
+	public static PersistentDecompilerCache getCache(Program program) {
+		synchronized (CACHES) {
+			if (CACHES.containsKey(program)) {
+				return CACHES.get(program);
+			}
+			File file = getCacheFile(program);
+			if (file == null) {
+				return null;
+			}
+			PersistentDecompilerCache cache = new PersistentDecompilerCache(program, file);
+			CACHES.put(program, cache);
+			program.addCloseListener(cache::close);
+			return cache;
+		}
+	}
+
+	private static File getCacheFile(Program program) {
+		DomainFile domainFile = program.getDomainFile();
+		if (domainFile == null || domainFile.getFileID() == null) {
+			return null;
+		}
+		ProjectLocator locator = domainFile.getProjectLocator();
+		if (locator == null || locator.getProjectDir() == null) {
+			return null;
+		}
+		File dir = new File(locator.getProjectDir(), DIRECTORY_NAME);
+		return new File(dir, domainFile.getFileID() + FILE_EXTENSION);
+	}
+
+	/**
+	 * Gets the cached summary for the function
+	 * @param function the function
+	 * @param digest the function's digest
+	 * @return the cached summary or null if not present or stale
+	 * @see #getDigest(Function, String)
+	 */
+	public FunctionSummary get(Function function, byte[] digest) {
+		if (digest == null) {
+			return null;
+		}
+		Entry entry = entries.get(function.getEntryPoint());
+		if (entry == null || !Arrays.equals(digest, entry.digest)) {
+			return null;
+		}
+		return entry.summary;
+	}
+
+	/**
+	 * Caches the summary for the function
+	 * @param function the function
+	 * @param digest the function's digest
+	 * @param summary the function summary
+	 * @see #getDigest(Function, String)
+	 */
+	public void put(Function function, byte[] digest, FunctionSummary summary) {
+		if (digest == null) {
+			return;
+		}
+		entries.put(function.getEntryPoint(), new Entry(digest, summary));
+		synchronized (this) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Gets the number of cached summaries
+	 * @return the number of cached summaries
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Writes any new entries to disk
+	 */
+	public synchronized void flush() {
+		if (!dirty) {
+			return;
+		}
+		File dir = file.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			Msg.warn(this, "Unable to create decompiler cache directory " + dir);
+			return;
+		}
+		try {
+			File tmp = File.createTempFile(file.getName(), null, dir);
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				Map<Address, Entry> snapshot = new HashMap<>(entries);
+				out.writeInt(snapshot.size());
+				for (Map.Entry<Address, Entry> e : snapshot.entrySet()) {
+					FunctionSummary.writeAddress(out, e.getKey());
+					out.writeInt(e.getValue().digest.length);
+					out.write(e.getValue().digest);
+					e.getValue().summary.write(out);
+				}
+			}
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		} catch (IOException e) {
+			Msg.warn(this, "Failed to write decompiler cache " + file, e);
+		}
+	}
+
+	private void close() {
+		flush();
+		synchronized (CACHES) {
+			CACHES.remove(program);
+		}
+	}
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+		AddressFactory factory = program.getAddressFactory();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				// unknown format, it will be replaced on the next flush
+				return;
+			}
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				Address address = FunctionSummary.readAddress(in, factory);
+				byte[] digest = new byte[in.readInt()];
+				in.readFully(digest);
+				entries.put(address, new Entry(digest, FunctionSummary.read(in, factory)));
+			}
+		} catch (IOException e) {
+			Msg.warn(this, "Discarding corrupt decompiler cache " + file, e);
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Computes the digest used to validate the function's cached summary
+	 * @param function the function
+	 * @param options the fingerprint of the decompiler options
+	 * @return the digest or null if the function body could not be read
+	 */
+	public static byte[] getDigest(Function function, String options) {
+		MessageDigest digest = getMessageDigest();
+		update(digest, options);
+		updatePrototype(digest, function);
+		DataType thisType = getThisType(function);
+		if (thisType != null) {
+			updateDataType(digest, thisType);
+		}
+		Set<Function> called = function.getCalledFunctions(TaskMonitor.DUMMY);
+		Function[] callees = called.toArray(new Function[called.size()]);
+		Arrays.sort(callees, Comparator.comparing(Function::getEntryPoint));
+		for (Function callee : callees) {
+			update(digest, callee.getEntryPoint().toString());
+			updatePrototype(digest, callee);
+		}
+		Memory mem = function.getProgram().getMemory();
+		for (AddressRange range : function.getBody()) {
+			byte[] bytes = new byte[(int) range.getLength()];
+			try {
+				if (mem.getBytes(range.getMinAddress(), bytes) != bytes.length) {
+					return null;
+				}
+			} catch (MemoryAccessException e) {
+				return null;
+			}
+			update(digest, range.getMinAddress().toString());
+			digest.update(bytes);
+		}
+		return digest.digest();
+	}
+
+	private static DataType getThisType(Function function) {
+		if (function.getParameterCount() == 0) {
+			return null;
+		}
+		Parameter param = function.getParameter(0);
+		if (param.getAutoParameterType() != AutoParameterType.THIS) {
+			return null;
+		}
+		DataType dt = param.getDataType();
+		return dt instanceof Pointer ? ((Pointer) dt).getDataType() : null;
+	}
+
+	private static void updatePrototype(MessageDigest digest, Function function) {
+		update(digest, function.getSignature().getPrototypeString());
+		update(digest, function.getCallingConventionName());
+	}
+
+	private static void updateDataType(MessageDigest digest, DataType dt) {
+		update(digest, dt.getPathName());
+		update(digest, Integer.toString(dt.getLength()));
+		if (dt instanceof Composite) {
+			for (DataTypeComponent comp : ((Composite) dt).getComponents()) {
+				update(digest, comp.getOffset() + ":" + comp.getDataType().getPathName());
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		// separate the values so that adjacent values cannot be merged
+		digest.update((byte) 0);
+	}
+
+	private static MessageDigest getMessageDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertException(e);
+		}
+	}
+
+	private static final class Entry {
+
+		private final byte[] digest;
+		private final FunctionSummary summary;
+
+		Entry(byte[] digest, FunctionSummary summary) {
+			this.digest = digest;
+			this.summary = summary;
+		}
+	}
+}
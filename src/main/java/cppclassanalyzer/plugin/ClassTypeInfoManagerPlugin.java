@@ -27,6 +27,8 @@ import ghidra.framework.plugintool.PluginInfo;
 import ghidra.framework.plugintool.PluginTool;
 import ghidra.framework.plugintool.util.PluginStatus;
 import cppclassanalyzer.data.manager.ArchiveClassTypeInfoManager;
+import cppclassanalyzer.data.manager.ArchivedRttiIndex;
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
 import cppclassanalyzer.data.ArchivedRttiData;
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.manager.FileArchiveClassTypeInfoManager;
@@ -77,6 +79,7 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 	private final TypeInfoTreeProvider provider;
 	private final Clipboard clipboard;
 	private final FillOutClassAction fillOutClassAction;
+	private final ArchivedRttiIndex archivedIndex;
 	private DataTypeManagerPlugin dtmPlugin;
 	private ProgramClassTypeInfoManager currentManager;
 
@@ -87,6 +90,7 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 		this.managers = Collections.synchronizedList(new ArrayList<>());
 		this.provider = !isInHeadlessMode() ? new TypeInfoTreeProvider(tool, this) : null;
 		this.fillOutClassAction = new FillOutClassAction(this);
+		this.archivedIndex = new ArchivedRttiIndex();
 	}
 
 	@Override
@@ -187,6 +191,31 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 			.anyMatch(name::equals);
 	}
 
+	/**
+	 * Attaches the mapped archive to the open project archive it was exported from.
+	 * This releases the in-memory symbol index of the libraries it covers but
+	 * does not avoid opening or reading the project archive.
+	 * @param file the mapped archive file
+	 * @throws IOException if the file cannot be mapped or its project archive is not open
+	 */
+	public void openMappedArchive(File file) throws IOException {
+		MappedRttiArchive archive = MappedRttiArchive.open(file);
+		String name = archive.getProjectName();
+		ProjectClassTypeInfoManager project = managers.stream()
+			.filter(ProjectClassTypeInfoManager.class::isInstance)
+			.map(ProjectClassTypeInfoManager.class::cast)
+			.filter(m -> m.getName().equals(name))
+			.findFirst()
+			.orElse(null);
+		if (project == null) {
+			throw new IOException("Project archive " + name + " must be open to use "
+				+ file.getName());
+		}
+		if (!archivedIndex.attach(project, archive)) {
+			throw new IOException(file.getName() + " is out of date with " + name);
+		}
+	}
+
 	public void openProjectArchive(ProjectArchive archive) throws IOException {
 		ClassTypeInfoManager manager = ProjectClassTypeInfoManager.open(this, archive);
 		projectManagerOpened(manager);
@@ -194,6 +223,17 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 
 	private void projectManagerOpened(ClassTypeInfoManager manager) {
 		managers.add(manager);
+		if (manager instanceof ProjectClassTypeInfoManager) {
+			archivedIndex.addProject((ProjectClassTypeInfoManager) manager);
+		}
+	}
+
+	/**
+	 * Gets the index of the archived rtti in the open project archives
+	 * @return the archived rtti index
+	 */
+	public ArchivedRttiIndex getArchivedRttiIndex() {
+		return archivedIndex;
 	}
 
 	public Clipboard getClipboard() {
@@ -219,6 +259,9 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 			case TYPE_UPDATED:
 				provider.getTree().typeUpdated(record.getType());
 				break;
+			case TYPES_ADDED:
+				provider.getTree().typesAdded(record.getTypes());
+				break;
 		}
 	}
 
@@ -280,7 +323,7 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 			Msg.error(manager, e);
 		}
 		if (manager != null) {
-			managers.add(manager);
+			projectManagerOpened(manager);
 		}
 	}
 
@@ -302,6 +345,9 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 		ClassTypeInfoManager manager = getManager(archive);
 		if (manager != null) {
 			managers.remove(manager);
+			if (manager instanceof ProjectClassTypeInfoManager) {
+				archivedIndex.removeProject((ProjectClassTypeInfoManager) manager);
+			}
 		}
 	}
 
@@ -341,9 +387,15 @@ public class ClassTypeInfoManagerPlugin extends ProgramPlugin
 	}
 
 	private <T extends ArchivedRttiData> T getArchivedRttiData(Class<T> clazz, String symbolName) {
+		T result = archivedIndex.get(clazz, symbolName);
+		if (result != null) {
+			return result;
+		}
+		// only the projects missing from the index need to be searched
 		return managers.stream()
 			.filter(ProjectClassTypeInfoManager.class::isInstance)
 			.map(ProjectClassTypeInfoManager.class::cast)
+			.filter(m -> !archivedIndex.containsProject(m))
 			.map(m -> m.getRttiData(clazz, symbolName))
 			.filter(Objects::nonNull)
 			.findFirst()
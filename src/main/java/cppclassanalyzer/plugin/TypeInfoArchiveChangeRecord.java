@@ -1,15 +1,22 @@
 package cppclassanalyzer.plugin;
 
+import java.util.Collections;
+import java.util.List;
+
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 
 public class TypeInfoArchiveChangeRecord {
 
 	private final ChangeType changeType;
-	private final ClassTypeInfoDB type;
+	private final List<ClassTypeInfoDB> types;
 
 	public TypeInfoArchiveChangeRecord(ChangeType changeType, ClassTypeInfoDB type) {
+		this(changeType, Collections.singletonList(type));
+	}
+
+	public TypeInfoArchiveChangeRecord(ChangeType changeType, List<ClassTypeInfoDB> types) {
 		this.changeType = changeType;
-		this.type = type;
+		this.types = Collections.unmodifiableList(types);
 	}
 
 	public ChangeType getChangeType() {
@@ -17,12 +24,21 @@ public class TypeInfoArchiveChangeRecord {
 	}
 
 	public ClassTypeInfoDB getType() {
-		return type;
+		return types.get(0);
+	}
+
+	/**
+	 * Gets all the types affected by this change
+	 * @return the affected types
+	 */
+	public List<ClassTypeInfoDB> getTypes() {
+		return types;
 	}
 
 	public static enum ChangeType {
 		TYPE_ADDED,
 		TYPE_REMOVED,
-		TYPE_UPDATED
+		TYPE_UPDATED,
+		TYPES_ADDED
 	};
 }
@@ -1,5 +1,7 @@
 package cppclassanalyzer.plugin;
 
+import java.util.Collection;
+
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 
@@ -14,6 +16,14 @@ public interface TypeInfoManagerListener {
 	 */
 	void typeAdded(ClassTypeInfoDB type);
 
+	/**
+	 * Invoked when a batch of types has been added to a manager
+	 * @param types the added types
+	 */
+	default void typesAdded(Collection<ClassTypeInfoDB> types) {
+		types.forEach(this::typeAdded);
+	}
+
 	/**
 	 * Invoked when a type has been removed to a manager
 	 * @param type the removed type
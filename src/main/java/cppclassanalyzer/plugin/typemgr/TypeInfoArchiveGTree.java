@@ -4,13 +4,19 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import javax.swing.Icon;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.TreePath;
 
 import cppclassanalyzer.plugin.typemgr.node.ProjectArchiveTypeInfoNode;
 import cppclassanalyzer.plugin.typemgr.node.TypeInfoArchiveNode;
 import cppclassanalyzer.plugin.typemgr.node.TypeInfoNode;
+import cppclassanalyzer.plugin.typemgr.node.TypeInfoTreeNodeManager;
 import ghidra.app.plugin.core.datamgr.util.DataTypeUtils;
 import ghidra.util.exception.AssertException;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.manager.LibraryClassTypeInfoManager;
@@ -18,8 +24,10 @@ import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.plugin.ClassTypeInfoManagerPlugin;
 import cppclassanalyzer.plugin.TypeInfoManagerListener;
 import docking.widgets.tree.GTree;
+import docking.widgets.tree.GTreeLazyNode;
 import docking.widgets.tree.GTreeNode;
 import docking.widgets.tree.support.GTreeDragNDropHandler;
+import docking.widgets.tree.tasks.GTreeBulkTask;
 
 public final class TypeInfoArchiveGTree extends GTree implements TypeInfoManagerListener {
 
@@ -33,8 +41,9 @@ public final class TypeInfoArchiveGTree extends GTree implements TypeInfoManager
 		this.dropHandler = new TypeInfoDragNDropHandler();
 		this.plugin = plugin;
 
-		// temporarily disable filter
+		// filtering is done by the type indexes, see setTypeFilter
 		setFilteringEnabled(false);
+		addTreeExpansionListener(new CollapsedNodeEvictor());
 	}
 
 	private TypeInfoArchiveGTreeRootNode getRoot() {
@@ -63,25 +72,52 @@ public final class TypeInfoArchiveGTree extends GTree implements TypeInfoManager
 		getManagerNode(type).addNode(type);
 	}
 
+	@Override
+	public void typesAdded(Collection<ClassTypeInfoDB> types) {
+		runBulkTask(new TypesAddedBulkTask(types));
+	}
+
 	@Override
 	public void typeRemoved(ClassTypeInfoDB type) {
-		GTreeNode node = getNode(type);
-		if (node != null && node.getName().equals(type.getName())) {
-			GTreeNode root = (GTreeNode) getManagerNode(type);
-			root.removeNode(node);
-		}
+		getManagerNode(type).removeNode(type);
 	}
 
 	@Override
 	public void typeUpdated(ClassTypeInfoDB type) {
 		TypeInfoNode node = getNode(type);
-		node.typeUpdated(type);
+		if (node != null) {
+			node.typeUpdated(type);
+		}
 	}
 
 	TypeInfoNode getNode(ClassTypeInfoDB type) {
 		return getManagerNode(type).getNode(type);
 	}
 
+	/**
+	 * Sets the text which the names of the displayed types must contain.
+	 * Only the loaded namespaces are regenerated from the filtered type indexes.
+	 * @param text the filter text or null to display every type
+	 */
+	public void setTypeFilter(String text) {
+		for (GTreeNode node : getModelRoot().getChildren()) {
+			if (node instanceof ProjectArchiveTypeInfoNode) {
+				ProjectArchiveTypeInfoNode project = (ProjectArchiveTypeInfoNode) node;
+				for (LibraryClassTypeInfoManager lib : project.getTypeManager().getLibraries()) {
+					setTypeFilter(lib.getTreeNodeManager(), text);
+				}
+			} else if (node instanceof TypeInfoArchiveNode) {
+				setTypeFilter(((TypeInfoArchiveNode) node).getManager(), text);
+			}
+		}
+	}
+
+	private static void setTypeFilter(TypeInfoTreeNodeManager manager, String text) {
+		if (manager != null) {
+			manager.setFilter(text);
+		}
+	}
+
 	public List<GTreeNode> getSelectedNodes() {
 		TreePath[] selectionPaths = getSelectionPaths();
 		if (selectionPaths == null || selectionPaths.length == 0) {
@@ -94,6 +130,42 @@ public final class TypeInfoArchiveGTree extends GTree implements TypeInfoManager
 			.collect(Collectors.toList());
 	}
 
+	private class TypesAddedBulkTask extends GTreeBulkTask {
+
+		private final Collection<ClassTypeInfoDB> types;
+
+		TypesAddedBulkTask(Collection<ClassTypeInfoDB> types) {
+			super(TypeInfoArchiveGTree.this);
+			this.types = types;
+		}
+
+		@Override
+		public void runBulk(TaskMonitor monitor) throws CancelledException {
+			monitor.initialize(types.size());
+			for (ClassTypeInfoDB type : types) {
+				monitor.checkCanceled();
+				getManagerNode(type).addNode(type);
+				monitor.incrementProgress(1);
+			}
+		}
+	}
+
+	private static class CollapsedNodeEvictor implements TreeExpansionListener {
+
+		@Override
+		public void treeExpanded(TreeExpansionEvent event) {
+		}
+
+		@Override
+		public void treeCollapsed(TreeExpansionEvent event) {
+			Object node = event.getPath().getLastPathComponent();
+			if (node instanceof GTreeLazyNode) {
+				// the nodes of a collapsed subtree are regenerated when expanded again
+				SwingUtilities.invokeLater(((GTreeLazyNode) node)::unloadChildren);
+			}
+		}
+	}
+
 	private static class TypeInfoArchiveGTreeRootNode extends GTreeNode {
 
 		@Override
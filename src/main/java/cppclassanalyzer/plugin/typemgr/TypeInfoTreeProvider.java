@@ -12,6 +12,7 @@ import javax.swing.tree.TreePath;
 
 import cppclassanalyzer.plugin.typemgr.action.TypeInfoArchiveHandler;
 import cppclassanalyzer.plugin.typemgr.node.TypeInfoNode;
+import docking.widgets.filter.FilterTextField;
 import ghidra.framework.plugintool.ComponentProviderAdapter;
 import ghidra.framework.plugintool.PluginTool;
 
@@ -55,6 +56,10 @@ public class TypeInfoTreeProvider extends ComponentProviderAdapter {
 		tree.addMouseListener(mouseListener);
 
 		tree.setRootVisible(true);
+
+		FilterTextField filterField = new FilterTextField(tree);
+		filterField.addFilterListener(tree::setTypeFilter);
+		mainPanel.add(filterField, BorderLayout.SOUTH);
 	}
 
 	private void createActions() {
@@ -72,6 +77,8 @@ public class TypeInfoTreeProvider extends ComponentProviderAdapter {
 		addLocalAction(handler.getEditDataTypeAction());
 		addLocalAction(handler.getRenameAction());
 		addLocalAction(handler.getGoToVtableAction());
+		addLocalAction(handler.getExportMappedArchiveAction());
+		addLocalAction(handler.getOpenMappedArchiveAction());
 	}
 
 	public void dispose() {
@@ -7,6 +7,7 @@ import ghidra.framework.Application;
 import ghidra.framework.preferences.Preferences;
 import ghidra.util.filechooser.ExtensionFileFilter;
 
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
 import generic.jar.ResourceFile;
 import utility.application.ApplicationLayout;
 
@@ -18,6 +19,10 @@ final class CppClassAnalyzerPreferences {
 		new ExtensionFileFilter(
 			new String[]{ CppClassAnalyzerPreferences.ARCHIVE_EXTENSION },
 			"Ghidra Type Info Archive Files");
+	static final ExtensionFileFilter MAPPED_EXTENSION_FILTER =
+		new ExtensionFileFilter(
+			new String[]{ MappedRttiArchive.EXTENSION },
+			"Mapped Type Info Archive Files");
 	static final String LAST_OPENED_TYPE_INFO_ARCHIVE_PATH = "LastOpenedTypeInfoArchiveDirectory";
 	static final String LAST_USER_TYPE_INFO_ARCHIVE_PATH = "LastUserTypeInfoArchiveDirectory";
 	static final File DEFAULT_ARCHIVE_PATH =  new File(getExtensionRoot(), "data");
@@ -0,0 +1,69 @@
+package cppclassanalyzer.plugin.typemgr.action;
+
+import java.io.File;
+import java.io.IOException;
+
+import ghidra.util.Msg;
+import ghidra.util.task.TaskBuilder;
+
+import cppclassanalyzer.data.manager.FileArchiveClassTypeInfoManager;
+import cppclassanalyzer.data.manager.ProjectClassTypeInfoManager;
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
+import docking.ActionContext;
+import docking.widgets.filechooser.GhidraFileChooser;
+
+final class ExportMappedArchiveAction extends AbstractFileArchivePopupAction {
+
+	ExportMappedArchiveAction(TypeInfoArchiveHandler handler) {
+		super("Export Mapped Archive", handler);
+	}
+
+	@Override
+	public String getDescription() {
+		return "Exports the selected project archive to a read-only mapped archive";
+	}
+
+	@Override
+	public boolean isAddToPopup(ActionContext context) {
+		if (super.isAddToPopup(context)) {
+			return getManager(context) instanceof ProjectClassTypeInfoManager;
+		}
+		return false;
+	}
+
+	@Override
+	public void actionPerformed(ActionContext context) {
+		FileArchiveClassTypeInfoManager manager = getManager(context);
+		if (!(manager instanceof ProjectClassTypeInfoManager)) {
+			return;
+		}
+		ProjectClassTypeInfoManager project = (ProjectClassTypeInfoManager) manager;
+		GhidraFileChooser fileChooser = new GhidraFileChooser(getHandler().getTree());
+		fileChooser.setFileFilter(CppClassAnalyzerPreferences.MAPPED_EXTENSION_FILTER);
+		fileChooser.setCurrentDirectory(CppClassAnalyzerPreferences.getLastOpenedArchivePath());
+		fileChooser.setApproveButtonText("Export Mapped Archive");
+		fileChooser.setApproveButtonToolTipText("Export Mapped Archive");
+
+		File selected = fileChooser.getSelectedFile();
+		if (selected == null) {
+			return;
+		}
+		File file = selected.getName().endsWith("." + MappedRttiArchive.EXTENSION) ? selected
+				: new File(selected.getAbsolutePath() + "." + MappedRttiArchive.EXTENSION);
+		TaskBuilder.withRunnable(monitor -> {
+			try {
+				project.exportMappedArchive(file, monitor);
+			} catch (IOException e) {
+				Msg.showError(this, null, "Failed to export " + project.getName(), e);
+			}
+		})
+			.setTitle("Exporting Mapped Archive")
+			.setCanCancel(true)
+			.launchModal();
+	}
+
+	@Override
+	MenuGroupType getGroup() {
+		return MenuGroupType.FILE;
+	}
+}
@@ -0,0 +1,48 @@
+package cppclassanalyzer.plugin.typemgr.action;
+
+import java.io.File;
+import java.io.IOException;
+
+import ghidra.util.Msg;
+
+import docking.ActionContext;
+import docking.widgets.filechooser.GhidraFileChooser;
+
+final class OpenMappedArchiveAction extends AbstractTypeMgrAction {
+
+	OpenMappedArchiveAction(TypeInfoArchiveHandler handler) {
+		super("Open Mapped Archive", handler);
+		setMenuBar();
+	}
+
+	@Override
+	public String getDescription() {
+		return "Opens a mapped archive for the project archive it was exported from";
+	}
+
+	@Override
+	public void actionPerformed(ActionContext context) {
+		GhidraFileChooser fileChooser = new GhidraFileChooser(getHandler().getTree());
+		fileChooser.setFileFilter(CppClassAnalyzerPreferences.MAPPED_EXTENSION_FILTER);
+		fileChooser.setCurrentDirectory(CppClassAnalyzerPreferences.getLastOpenedArchivePath());
+		fileChooser.setApproveButtonText("Open Mapped Archive File");
+		fileChooser.setApproveButtonToolTipText("Open Mapped Archive File");
+
+		File file = fileChooser.getSelectedFile();
+		if (file == null || !file.exists()) {
+			return;
+		}
+		CppClassAnalyzerPreferences.setLastOpenedArchivePath(file.getParentFile());
+
+		try {
+			getHandler().getPlugin().openMappedArchive(file);
+		} catch (IOException e) {
+			Msg.showError(this, null, "Failed to open mapped archive", e);
+		}
+	}
+
+	@Override
+	MenuGroupType getGroup() {
+		return MenuGroupType.ARCHIVE;
+	}
+}
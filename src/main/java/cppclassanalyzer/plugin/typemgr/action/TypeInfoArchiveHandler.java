@@ -88,6 +88,14 @@ public final class TypeInfoArchiveHandler {
 		return new GoToVtableAction(this);
 	}
 
+	public DockingAction getExportMappedArchiveAction() {
+		return new ExportMappedArchiveAction(this);
+	}
+
+	public DockingAction getOpenMappedArchiveAction() {
+		return new OpenMappedArchiveAction(this);
+	}
+
 	private Stream<TypeInfoTreeNode> getSelectedNodes(ActionContext context) {
 		TreePath[] selectionPaths = getTree().getSelectionPaths();
 		if (selectionPaths.length == 0) {
@@ -3,12 +3,17 @@ package cppclassanalyzer.plugin.typemgr.node;
 import java.util.Collections;
 import java.util.List;
 
+import docking.widgets.tree.GTreeLazyNode;
 import docking.widgets.tree.GTreeNode;
 
-abstract class AbstractSortedNode extends GTreeNode {
+abstract class AbstractSortedNode extends GTreeLazyNode {
 
 	@Override
 	public final void addNode(GTreeNode node) {
+		if (!isLoaded()) {
+			// it will be included when the children are generated
+			return;
+		}
 		int index;
 		synchronized (this) {
 			List<GTreeNode> kids = children();
@@ -1,5 +1,7 @@
 package cppclassanalyzer.plugin.typemgr.node;
 
+import java.util.List;
+
 import javax.swing.Icon;
 
 import ghidra.app.plugin.core.symboltree.nodes.NamespaceSymbolNode;
@@ -10,9 +12,11 @@ public final class NamespacePathNode extends AbstractSortedNode implements TypeI
 
 	private final TypeInfoTreeNodeManager manager;
 	private final String name;
+	private final String path;
 
-	NamespacePathNode(String name, TypeInfoTreeNodeManager manager) {
+	NamespacePathNode(String name, String path, TypeInfoTreeNodeManager manager) {
 		this.name = name;
+		this.path = path;
 		this.manager = manager;
 	}
 
@@ -49,4 +53,12 @@ public final class NamespacePathNode extends AbstractSortedNode implements TypeI
 		return false;
 	}
 
+	String getPath() {
+		return path;
+	}
+
+	@Override
+	protected List<GTreeNode> generateChildren() {
+		return manager.generateChildren(path);
+	}
 }
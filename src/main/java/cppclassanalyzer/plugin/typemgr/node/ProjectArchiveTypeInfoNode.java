@@ -1,5 +1,9 @@
 package cppclassanalyzer.plugin.typemgr.node;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
 import cppclassanalyzer.data.manager.LibraryClassTypeInfoManager;
 import cppclassanalyzer.data.manager.ProjectClassTypeInfoManager;
@@ -26,6 +30,23 @@ public final class ProjectArchiveTypeInfoNode extends AbstractManagerNode {
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public void removeNode(ClassTypeInfoDB type) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	protected List<GTreeNode> generateChildren() {
+		return getTypeManager().getLibraries()
+			.stream()
+			.map(LibraryClassTypeInfoManager::getTreeNodeManager)
+			// a library being opened adds its own node once it is ready
+			.filter(Objects::nonNull)
+			.map(TypeInfoTreeNodeManager::getRoot)
+			.sorted()
+			.collect(Collectors.toList());
+	}
+
 	@Override
 	public int compareTo(GTreeNode node) {
 		if (node instanceof TypeInfoRootNode) {
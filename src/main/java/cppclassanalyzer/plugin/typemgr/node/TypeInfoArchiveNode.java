@@ -10,5 +10,7 @@ public interface TypeInfoArchiveNode extends TypeInfoTreeNode {
 
 	TypeInfoNode getNode(ClassTypeInfoDB type);
 
+	void removeNode(ClassTypeInfoDB type);
+
 	boolean isProgramNode();
 }
@@ -23,40 +23,29 @@ import resources.icons.ImageIconWrapper;
 public final class TypeInfoNode extends GTreeLazyNode implements TypeInfoTreeNode {
 
 	private final boolean isVirtual;
+	private final String path;
 	private ClassTypeInfoDB type;
 	private ModifierType modifier;
-	private List<GTreeNode> nested = Collections.synchronizedList(new ArrayList<>());
 
 	TypeInfoNode(ClassTypeInfoDB type) {
-		this(type, (ModifierType) null);
+		this(type, null, null);
 	}
 
-	private TypeInfoNode(ClassTypeInfoDB type, ModifierType modifier) {
+	// a type listed within its namespace which also lists its nested types
+	TypeInfoNode(ClassTypeInfoDB type, String path, boolean nested) {
+		this(type, path, nested ? ModifierType.NESTED : null);
+	}
+
+	private TypeInfoNode(ClassTypeInfoDB type, String path, ModifierType modifier) {
 		this.isVirtual = modifier == ModifierType.VIRTUAL;
+		this.path = path;
 		this.type = type;
+		this.modifier = modifier;
 
 		// will determine if type is also abstract
 		this.modifier = getModifier();
 	}
 
-	// conversion constructor
-	TypeInfoNode(ClassTypeInfoDB type, NamespacePathNode existing) {
-		this.isVirtual = false;
-		this.type = type;
-		this.modifier = getModifier();
-		List<GTreeNode> children = new ArrayList<>(existing.getChildren());
-		children.forEach(existing::removeNode);
-		GTreeNode parent = existing.getParent();
-		parent.removeNode(existing);
-		parent.addNode(this);
-		nested.addAll(children);
-		for (GTreeNode node : nested) {
-			if (node instanceof TypeInfoNode) {
-				((TypeInfoNode) node).modifier = ModifierType.NESTED;
-			}
-		}
-	}
-
 	private ModifierType getModifier() {
 		if (modifier == ModifierType.NESTED) {
 			return modifier;
@@ -118,15 +107,11 @@ public final class TypeInfoNode extends GTreeLazyNode implements TypeInfoTreeNod
 
 	@Override
 	public boolean isLeaf() {
-		return !type.hasParent();
+		return !type.hasParent() && (path == null || !getManager().hasChildren(path));
 	}
 
-	@Override
-	public void addNode(GTreeNode node) {
-		if (node instanceof TypeInfoNode) {
-			((TypeInfoNode) node).modifier = ModifierType.NESTED;
-		}
-		nested.add(node);
+	String getPath() {
+		return path;
 	}
 
 	public ClassTypeInfoDB getType() {
@@ -235,12 +220,14 @@ public final class TypeInfoNode extends GTreeLazyNode implements TypeInfoTreeNod
 			vParents = type.getVirtualParents()
 				.stream()
 				.map(ClassTypeInfoDB.class::cast)
-				.map(p -> new TypeInfoNode(p, ModifierType.VIRTUAL))
+				.map(p -> new TypeInfoNode(p, null, ModifierType.VIRTUAL))
 				.collect(Collectors.toCollection(LinkedHashSet::new));
 		}
 		vParents.addAll(parents);
 		List<GTreeNode> result = new ArrayList<>(vParents);
-		result.addAll(nested);
+		if (path != null) {
+			result.addAll(getManager().generateChildren(path));
+		}
 		result.sort(null);
 		return result;
 	}
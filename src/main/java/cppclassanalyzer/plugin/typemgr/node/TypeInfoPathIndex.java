@@ -0,0 +1,224 @@
+package cppclassanalyzer.plugin.typemgr.node;
+
+import java.util.*;
+
+import ghidra.app.util.SymbolPath;
+
+/**
+ * A namespace prefix index over the types of a manager.
+ * <p>
+ * Each type is stored by its symbol path with the namespaces joined by a separator
+ * which sorts before every printable character. All of the types within a namespace
+ * are therefore a contiguous range of the index and the children of a namespace can
+ * be listed without creating a node for every type beneath it. A filter restricts
+ * the index to the types whose name contains the filter text and the namespaces
+ * which contain them.
+ */
+final class TypeInfoPathIndex {
+
+	static final String ROOT = "";
+
+	private static final char SEPARATOR = '\u0001';
+	private static final char MAX_CHAR = '\uffff';
+
+	private final NavigableMap<String, Long> paths = new TreeMap<>();
+	private NavigableMap<String, Long> matches;
+	private String filter;
+
+	/**
+	 * Gets the index path of the symbol path
+	 * @param path the symbol path
+	 * @return the index path
+	 */
+	static String getPath(SymbolPath path) {
+		return String.join(String.valueOf(SEPARATOR), path.asList());
+	}
+
+	/**
+	 * Gets the index path of a child within a namespace
+	 * @param parent the index path of the namespace
+	 * @param name the name of the child
+	 * @return the index path of the child
+	 */
+	static String getPath(String parent, String name) {
+		return parent.isEmpty() ? name : parent + SEPARATOR + name;
+	}
+
+	/**
+	 * Gets the names of each namespace in the index path
+	 * @param path the index path
+	 * @return the names in the path
+	 */
+	static String[] getNames(String path) {
+		return path.split(String.valueOf(SEPARATOR));
+	}
+
+	private static String getName(String path) {
+		return path.substring(path.lastIndexOf(SEPARATOR) + 1);
+	}
+
+	/**
+	 * Adds a type to the index
+	 * @param path the index path of the type
+	 * @param key the type key
+	 */
+	synchronized void add(String path, long key) {
+		// the first type with a path is the one displayed
+		paths.putIfAbsent(path, key);
+		if (matches != null && isMatch(path)) {
+			matches.putIfAbsent(path, key);
+		}
+	}
+
+	/**
+	 * Removes a type from the index
+	 * @param path the index path of the type
+	 */
+	synchronized void remove(String path) {
+		paths.remove(path);
+		if (matches != null) {
+			matches.remove(path);
+		}
+	}
+
+	/**
+	 * Removes every type from the index
+	 */
+	synchronized void clear() {
+		paths.clear();
+		if (matches != null) {
+			matches.clear();
+		}
+	}
+
+	/**
+	 * Gets the key of the type at the index path
+	 * @param path the index path
+	 * @return the type key or null if the path is only a namespace
+	 */
+	synchronized Long getKey(String path) {
+		return paths.get(path);
+	}
+
+	/**
+	 * Checks if the index path is visible with the current filter
+	 * @param path the index path
+	 * @return true if the path matches the filter or contains a match
+	 */
+	synchronized boolean isVisible(String path) {
+		if (matches == null) {
+			return true;
+		}
+		return matches.containsKey(path) || hasChildren(path);
+	}
+
+	/**
+	 * Checks if any visible type is within the namespace
+	 * @param path the index path of the namespace
+	 * @return true if the namespace contains a visible type
+	 */
+	synchronized boolean hasChildren(String path) {
+		return !getRange(path).isEmpty();
+	}
+
+	/**
+	 * Gets the visible children of the namespace in sorted order.
+	 * Only the types directly within the namespace are visited.
+	 * @param path the index path of the namespace
+	 * @return the children
+	 */
+	synchronized List<Child> getChildren(String path) {
+		NavigableMap<String, Long> range = getRange(path);
+		int start = path.isEmpty() ? 0 : path.length() + 1;
+		List<Child> children = new ArrayList<>();
+		String current = range.isEmpty() ? null : range.firstKey();
+		while (current != null) {
+			int end = current.indexOf(SEPARATOR, start);
+			String name = end < 0 ? current.substring(start) : current.substring(start, end);
+			String childPath = getPath(path, name);
+			children.add(new Child(name, childPath, paths.get(childPath)));
+			// skip the remainder of the child's namespace
+			current = range.higherKey(childPath + SEPARATOR + MAX_CHAR);
+		}
+		return children;
+	}
+
+	private NavigableMap<String, Long> getRange(String path) {
+		NavigableMap<String, Long> view = matches != null ? matches : paths;
+		if (path.isEmpty()) {
+			return view;
+		}
+		String prefix = path + SEPARATOR;
+		return view.subMap(prefix, true, prefix + MAX_CHAR, true);
+	}
+
+	/**
+	 * Sets the text which the visible type names must contain.
+	 * When the text extends the previous filter only the previous matches are searched.
+	 * @param text the filter text or null to clear the filter
+	 */
+	synchronized void setFilter(String text) {
+		if (text == null || text.isEmpty()) {
+			filter = null;
+			matches = null;
+			return;
+		}
+		text = text.toLowerCase();
+		NavigableMap<String, Long> candidates = paths;
+		if (filter != null && text.startsWith(filter)) {
+			candidates = matches;
+		}
+		filter = text;
+		NavigableMap<String, Long> result = new TreeMap<>();
+		for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+			if (isMatch(entry.getKey())) {
+				result.put(entry.getKey(), entry.getValue());
+			}
+		}
+		matches = result;
+	}
+
+	private boolean isMatch(String path) {
+		return getName(path).toLowerCase().contains(filter);
+	}
+
+	/**
+	 * A child of a namespace within the index
+	 */
+	static final class Child {
+
+		private final String name;
+		private final String path;
+		private final Long key;
+
+		private Child(String name, String path, Long key) {
+			this.name = name;
+			this.path = path;
+			this.key = key;
+		}
+
+		/**
+		 * Gets the name of the child
+		 * @return the child's name
+		 */
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the index path of the child
+		 * @return the child's path
+		 */
+		String getPath() {
+			return path;
+		}
+
+		/**
+		 * Gets the key of the type
+		 * @return the type key or null if the child is only a namespace
+		 */
+		Long getKey() {
+			return key;
+		}
+	}
+}
@@ -2,7 +2,6 @@ package cppclassanalyzer.plugin.typemgr.node;
 
 import cppclassanalyzer.data.ClassTypeInfoManager;
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
-import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 
 import docking.widgets.tree.GTreeNode;
 
@@ -12,13 +11,6 @@ public final class TypeInfoRootNode extends AbstractSingleManagerNode {
 		super(manager);
 	}
 
-	public void removeNode(ClassTypeInfoDB type) {
-		GTreeNode node = (GTreeNode) getNode(type);
-		if (node != null) {
-			removeNode(node);
-		}
-	}
-
 	@Override
 	public int compareTo(GTreeNode node) {
 		if (getTypeManager() instanceof ProgramClassTypeInfoManager) {
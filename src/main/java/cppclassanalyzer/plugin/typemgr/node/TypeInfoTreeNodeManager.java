@@ -1,6 +1,8 @@
 package cppclassanalyzer.plugin.typemgr.node;
 
-import ghidra.app.util.SymbolPath;
+import java.util.ArrayList;
+import java.util.List;
+
 import ghidra.framework.model.DomainObject;
 import ghidra.framework.model.DomainObjectChangedEvent;
 import ghidra.framework.model.DomainObjectListener;
@@ -23,6 +25,7 @@ import docking.widgets.tree.tasks.GTreeBulkTask;
 public class TypeInfoTreeNodeManager implements DomainObjectListener, Disposable {
 
 	private final AbstractManagerNode root;
+	private final TypeInfoPathIndex index = new TypeInfoPathIndex();
 
 	private TypeInfoTreeNodeManager(AbstractManagerNode root) {
 		this.root = root;
@@ -53,35 +56,135 @@ public class TypeInfoTreeNodeManager implements DomainObjectListener, Disposable
 		plugin.getTree().getModelRoot().addNode(root);
 	}
 
-	private GTreeNode getParentNode(SymbolPath paths) {
-		if (paths.getParent() == null) {
-			return root;
+	List<GTreeNode> generateChildren(String path) {
+		// a type's children are its nested types
+		boolean nested = !path.isEmpty() && index.getKey(path) != null;
+		ClassTypeInfoManager manager = root.getTypeManager();
+		List<TypeInfoPathIndex.Child> children = index.getChildren(path);
+		List<GTreeNode> result = new ArrayList<>(children.size());
+		for (TypeInfoPathIndex.Child child : children) {
+			result.add(createNode(manager, child.getName(), child.getPath(), child.getKey(), nested));
 		}
+		result.sort(null);
+		return result;
+	}
+
+	private GTreeNode createNode(ClassTypeInfoManager manager, String name, String path, Long key,
+			boolean nested) {
+		ClassTypeInfoDB type = key != null ? manager.getType(key) : null;
+		if (type == null) {
+			return new NamespacePathNode(name, path, this);
+		}
+		return new TypeInfoNode(type, path, nested);
+	}
+
+	boolean hasChildren(String path) {
+		return index.hasChildren(path);
+	}
+
+	// gets the deepest loaded node along the path and the number of names it covers
+	private GTreeNode getLoadedNode(String[] names, int[] depth) {
 		GTreeNode node = root;
-		for (String path : paths.getParent().asList()) {
-			GTreeNode child = node.getChild(path);
+		depth[0] = 0;
+		while (depth[0] < names.length && node.isLoaded()) {
+			GTreeNode child = getChild(node, names[depth[0]]);
 			if (child == null) {
-				child = new NamespacePathNode(path, this);
-				node.addNode(child);
+				break;
 			}
 			node = child;
+			depth[0]++;
 		}
 		return node;
 	}
 
-	GTreeNode createTypeNode(ClassTypeInfoDB type) {
-		SymbolPath path = type.getSymbolPath();
-		GTreeNode parent = getParentNode(path);
-		GTreeNode existing = parent.getChild(path.getName());
-		if (existing instanceof NamespacePathNode) {
-			return new TypeInfoNode(type, (NamespacePathNode) existing);
+	private static GTreeNode getChild(GTreeNode node, String name) {
+		for (GTreeNode child : node.getChildren()) {
+			// the parents of a type are not within its namespace
+			boolean isPath = child instanceof NamespacePathNode
+				|| (child instanceof TypeInfoNode && ((TypeInfoNode) child).getPath() != null);
+			if (isPath && child.getName().equals(name)) {
+				return child;
+			}
 		}
-		if (existing instanceof TypeInfoNode) {
-			return existing;
+		return null;
+	}
+
+	void addType(ClassTypeInfoDB type) {
+		String path = TypeInfoPathIndex.getPath(type.getSymbolPath());
+		index.add(path, type.getKey());
+		if (!index.isVisible(path)) {
+			return;
 		}
-		GTreeNode node = new TypeInfoNode(type);
-		parent.addNode(node);
-		return node;
+		String[] names = TypeInfoPathIndex.getNames(path);
+		int[] depth = new int[1];
+		GTreeNode parent = getLoadedNode(names, depth);
+		if (!parent.isLoaded()) {
+			// it will be listed once the namespace is expanded
+			return;
+		}
+		String parentPath = depth[0] == 0 ? TypeInfoPathIndex.ROOT : getNodePath(parent);
+		if (depth[0] == names.length) {
+			if (parent instanceof NamespacePathNode) {
+				// the namespace is also a type
+				GTreeNode grandParent = parent.getParent();
+				grandParent.removeNode(parent);
+				grandParent.addNode(new TypeInfoNode(type, path, isType(grandParent)));
+			}
+			return;
+		}
+		String name = names[depth[0]];
+		String childPath = TypeInfoPathIndex.getPath(parentPath, name);
+		parent.addNode(
+			createNode(root.getTypeManager(), name, childPath, index.getKey(childPath),
+				isType(parent)));
+	}
+
+	private static boolean isType(GTreeNode node) {
+		return node instanceof TypeInfoNode;
+	}
+
+	private static String getNodePath(GTreeNode node) {
+		if (node instanceof NamespacePathNode) {
+			return ((NamespacePathNode) node).getPath();
+		}
+		return ((TypeInfoNode) node).getPath();
+	}
+
+	TypeInfoNode getNode(ClassTypeInfoDB type) {
+		String[] names = TypeInfoPathIndex.getNames(
+			TypeInfoPathIndex.getPath(type.getSymbolPath()));
+		int[] depth = new int[1];
+		GTreeNode node = getLoadedNode(names, depth);
+		if (depth[0] == names.length && node instanceof TypeInfoNode) {
+			return (TypeInfoNode) node;
+		}
+		// the node has not been loaded
+		return null;
+	}
+
+	void removeType(ClassTypeInfoDB type) {
+		String path = TypeInfoPathIndex.getPath(type.getSymbolPath());
+		TypeInfoNode node = getNode(type);
+		index.remove(path);
+		if (node == null || !node.getType().equals(type)) {
+			return;
+		}
+		GTreeNode parent = node.getParent();
+		parent.removeNode(node);
+		if (index.hasChildren(path)) {
+			// keep the nested types
+			String[] names = TypeInfoPathIndex.getNames(path);
+			parent.addNode(new NamespacePathNode(names[names.length - 1], path, this));
+		}
+	}
+
+	/**
+	 * Sets the text which the names of the displayed types must contain
+	 * @param text the filter text or null to display every type
+	 */
+	public void setFilter(String text) {
+		index.setFilter(text);
+		root.unloadChildren();
 	}
 
 	private TypeInfoArchiveGTree getTree() {
@@ -93,7 +196,7 @@ public class TypeInfoTreeNodeManager implements DomainObjectListener, Disposable
 	}
 
 	public void generateTree() {
-		ManagerLoaderBulkTask task = new ManagerLoaderBulkTask(getTree(), root);
+		IndexLoaderBulkTask task = new IndexLoaderBulkTask(getTree());
 		getTree().runBulkTask(task);
 	}
 
@@ -106,7 +209,6 @@ public class TypeInfoTreeNodeManager implements DomainObjectListener, Disposable
 		if (event.containsEvent(DomainObject.DO_OBJECT_RESTORED)) {
 			DomainObject source = (DomainObject) event.getSource();
 			if (root.getName().equals(source.getName())) {
-				root.removeAll();
 				generateTree();
 			}
 		}
@@ -118,24 +220,24 @@ public class TypeInfoTreeNodeManager implements DomainObjectListener, Disposable
 		root.dispose();
 	}
 
-	private static class ManagerLoaderBulkTask extends GTreeBulkTask {
-
-		private final TypeInfoArchiveNode node;
+	private class IndexLoaderBulkTask extends GTreeBulkTask {
 
-		ManagerLoaderBulkTask(GTree tree, TypeInfoArchiveNode node) {
+		IndexLoaderBulkTask(GTree tree) {
 			super(tree);
-			this.node = node;
 		}
 
 		@Override
 		public void runBulk(TaskMonitor monitor) throws CancelledException {
-			ClassTypeInfoManager manager = node.getTypeManager();
+			ClassTypeInfoManager manager = root.getTypeManager();
 			monitor.initialize(manager.getTypeCount());
+			index.clear();
 			for (ClassTypeInfoDB type : manager.getTypes()) {
 				monitor.checkCanceled();
-				node.addNode(type);
+				index.add(TypeInfoPathIndex.getPath(type.getSymbolPath()), type.getKey());
 				monitor.incrementProgress(1);
 			}
+			// the nodes are only created when expanded
+			root.unloadChildren();
 		}
 	}
 }
@@ -0,0 +1,174 @@
+package cppclassanalyzer.scanner;
+
+import java.util.*;
+
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSetView;
+import ghidra.program.model.address.AddressSpace;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.mem.MemoryAccessException;
+import ghidra.program.model.mem.MemoryBlock;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+
+/**
+ * Locates the direct data references to any number of target addresses
+ * with a single sweep over the initialized data blocks. Each aligned pointer
+ * sized word is checked against a sorted array of the targets within the address
+ * space the pointer refers to, which is the physical space of the block containing it.
+ * The sweep may be restricted to an address set, in which case blocks outside of it
+ * are skipped.
+ */
+public final class DirectReferenceSweep {
+
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final Program program;
+	private final Address[] targetAddresses;
+	private final Map<AddressSpace, SpaceTargets> targets;
+	private final int pointerSize;
+	private final int alignment;
+	private final boolean bigEndian;
+	private final AddressSetView set;
+
+	/**
+	 * Constructs a new DirectReferenceSweep
+	 * @param program the program to search
+	 * @param targets the addresses to locate references to
+	 */
+	public DirectReferenceSweep(Program program, Collection<Address> targets) {
+		this(program, targets, null);
+	}
+
+	/**
+	 * Constructs a new DirectReferenceSweep restricted to the address set
+	 * @param program the program to search
+	 * @param targets the addresses to locate references to
+	 * @param set the addresses to search or null to search all data blocks
+	 */
+	public DirectReferenceSweep(Program program, Collection<Address> targets,
+			AddressSetView set) {
+		this.program = program;
+		this.set = set;
+		this.targetAddresses = targets.stream()
+			.distinct()
+			.toArray(Address[]::new);
+		this.targets = new HashMap<>();
+		for (Address target : targetAddresses) {
+			this.targets.computeIfAbsent(target.getAddressSpace(), k -> new SpaceTargets())
+				.add(target);
+		}
+		this.targets.values().forEach(SpaceTargets::seal);
+		this.pointerSize = program.getDefaultPointerSize();
+		int align = program.getDataTypeManager()
+			.getDataOrganization()
+			.getDefaultPointerAlignment();
+		this.alignment = align > 0 ? align : 1;
+		this.bigEndian = program.getMemory().isBigEndian();
+	}
+
+	/**
+	 * Sweeps the data blocks for references to the targets
+	 * @param monitor the task monitor
+	 * @return a map of each target to the addresses referencing it
+	 * @throws CancelledException if the sweep is cancelled
+	 */
+	public Map<Address, Set<Address>> sweep(TaskMonitor monitor) throws CancelledException {
+		Map<Address, Set<Address>> result = new HashMap<>(targetAddresses.length);
+		for (Address target : targetAddresses) {
+			result.put(target, new HashSet<>());
+		}
+		if (targetAddresses.length == 0) {
+			return result;
+		}
+		List<MemoryBlock> blocks = CppClassAnalyzerUtils.getAllDataBlocks(program);
+		monitor.initialize(blocks.stream().mapToLong(MemoryBlock::getSize).sum());
+		byte[] buf = new byte[CHUNK_SIZE + pointerSize - 1];
+		for (MemoryBlock block : blocks) {
+			monitor.checkCanceled();
+			SpaceTargets spaceTargets = getTargets(block);
+			if (spaceTargets != null && block.isInitialized()
+					&& (set == null || set.intersects(block.getStart(), block.getEnd()))) {
+				sweep(block, spaceTargets, buf, result, monitor);
+			} else {
+				monitor.incrementProgress(block.getSize());
+			}
+		}
+		return result;
+	}
+
+	private SpaceTargets getTargets(MemoryBlock block) {
+		// pointers within an overlay refer to its underlying space
+		return targets.get(block.getStart().getAddressSpace().getPhysicalSpace());
+	}
+
+	private void sweep(MemoryBlock block, SpaceTargets spaceTargets, byte[] buf,
+			Map<Address, Set<Address>> result, TaskMonitor monitor) throws CancelledException {
+		Address start = block.getStart();
+		long size = block.getSize();
+		// the first aligned word within the block
+		long first = (alignment - (start.getOffset() % alignment)) % alignment;
+		for (long pos = first; pos + pointerSize <= size; pos += CHUNK_SIZE) {
+			monitor.checkCanceled();
+			int length = (int) Math.min(buf.length, size - pos);
+			int read;
+			try {
+				read = block.getBytes(start.add(pos), buf, 0, length);
+			} catch (MemoryAccessException e) {
+				monitor.incrementProgress(Math.min(CHUNK_SIZE, size - pos));
+				continue;
+			}
+			int limit = Math.min(CHUNK_SIZE, read - pointerSize + 1);
+			for (int i = 0; i < limit; i += alignment) {
+				Address target = spaceTargets.get(getValue(buf, i));
+				if (target != null) {
+					Address source = start.add(pos + i);
+					if (set == null || set.contains(source)) {
+						result.get(target).add(source);
+					}
+				}
+			}
+			monitor.incrementProgress(Math.min(CHUNK_SIZE, size - pos));
+		}
+	}
+
+	private long getValue(byte[] buf, int offset) {
+		long value = 0;
+		if (bigEndian) {
+			for (int i = 0; i < pointerSize; i++) {
+				value = (value << 8) | (buf[offset + i] & 0xff);
+			}
+		} else {
+			for (int i = pointerSize - 1; i >= 0; i--) {
+				value = (value << 8) | (buf[offset + i] & 0xff);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * The targets within a single address space ordered by offset
+	 */
+	private static final class SpaceTargets {
+
+		private final List<Address> addresses = new ArrayList<>();
+		private long[] offsets;
+
+		void add(Address address) {
+			addresses.add(address);
+		}
+
+		void seal() {
+			// ordered by the signed offset to match the binary search
+			addresses.sort(Comparator.comparingLong(Address::getOffset));
+			offsets = addresses.stream().mapToLong(Address::getOffset).toArray();
+		}
+
+		Address get(long offset) {
+			int index = Arrays.binarySearch(offsets, offset);
+			return index >= 0 ? addresses.get(index) : null;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package cppclassanalyzer.scanner;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import ghidra.app.cmd.data.rtti.ClassTypeInfo;
@@ -13,12 +14,12 @@ import ghidra.app.util.XReferenceUtil;
 import ghidra.app.util.importer.MessageLog;
 import ghidra.program.model.address.Address;
 import ghidra.program.model.address.AddressSet;
+import ghidra.program.model.address.AddressSetView;
 import ghidra.program.model.data.DataTypeManager;
 import ghidra.program.model.listing.Data;
 import ghidra.program.model.listing.Listing;
 import ghidra.program.model.listing.Program;
 import ghidra.program.model.mem.Memory;
-import ghidra.program.model.reloc.Relocation;
 import ghidra.program.model.symbol.*;
 import ghidra.program.util.ProgramMemoryUtil;
 import ghidra.util.exception.CancelledException;
@@ -26,8 +27,10 @@ import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
 import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.data.manager.ItaniumAbiClassTypeInfoManager;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
-import util.CollectionUtils;
+import cppclassanalyzer.utils.DemanglerCache;
+import cppclassanalyzer.utils.RelocationIndex;
 
 import static ghidra.program.model.data.DataTypeConflictHandler.REPLACE_HANDLER;
 
@@ -54,23 +57,22 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 	private final ItaniumAbiClassTypeInfoManager manager;
 	private TaskMonitor monitor;
 	private MessageLog log;
-	private Set<Relocation> relocations;
+	private RelocationIndex relocations;
 	private boolean relocatable;
+	private boolean singlePass;
+	private int validationThreads = 1;
+	private Map<String, Set<Address>> staticReferences;
+	private AddressSetView scanSet;
 
 	public ItaniumAbiRttiScanner(Program program) {
 		this.manager =
 				(ItaniumAbiClassTypeInfoManager) CppClassAnalyzerUtils.getManager(program);
-		this.relocations = new HashSet<>();
 	}
 
 	protected String getDynamicSymbol(String symbol) {
 		return symbol;
 	}
 
-	protected String getDynamicSymbol(Relocation relocation) {
-		return relocation.getSymbolName();
-	}
-
 	protected final ItaniumAbiClassTypeInfoManager getManager() {
 		return manager;
 	}
@@ -91,6 +93,10 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 		return manager.getProgram();
 	}
 
+	protected final AnalysisMetrics getMetrics() {
+		return AnalysisMetrics.getMetrics(getProgram());
+	}
+
 	public boolean isTypeInfo(Address address) {
 		return TypeInfoFactory.isTypeInfo(getProgram(), address);
 	}
@@ -99,7 +105,7 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 		return TypeInfoFactory.getTypeInfo(getProgram(), address);
 	}
 
-	protected final Set<Relocation> getRelocations() {
+	protected final RelocationIndex getRelocations() {
 		return relocations;
 	}
 
@@ -111,14 +117,52 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 		this.monitor = monitor;
 	}
 
+	/**
+	 * Sets whether the references to all of the typeinfo vtables are to be located with
+	 * a single sweep of the program's data blocks instead of one sweep per vtable.
+	 * This only applies to programs without relocations for the typeinfo vtables.
+	 * @param singlePass true to locate all the references in a single pass
+	 */
+	public void setSinglePass(boolean singlePass) {
+		this.singlePass = singlePass;
+	}
+
+	/**
+	 * Sets the number of threads used to validate the typeinfo candidates
+	 * @param threads the number of threads
+	 */
+	public void setValidationThreads(int threads) {
+		this.validationThreads = Math.max(1, threads);
+	}
+
+	@Override
+	public boolean scan(AddressSetView set, MessageLog log, TaskMonitor monitor)
+			throws CancelledException {
+		this.scanSet = set;
+		try {
+			return scan(log, monitor);
+		} finally {
+			scanSet = null;
+		}
+	}
+
 	@Override
 	public boolean scan(MessageLog log, TaskMonitor monitor) throws CancelledException {
 		this.log = log;
 		this.monitor = monitor;
-		relocations.addAll(getRelocations(CLASS_TYPESTRINGS));
-		if (!relocations.isEmpty()) {
+		try (RelocationIndex index = RelocationIndex.open(getProgram(), monitor)) {
+			relocations = index;
+			return scanClasses();
+		} finally {
+			relocations = null;
+		}
+	}
+
+	private boolean scanClasses() throws CancelledException {
+		Set<Address> vtableRelocations = getRelocations(CLASS_TYPESTRINGS);
+		if (!vtableRelocations.isEmpty()) {
 			relocatable = true;
-			createOffcutVtableRefs(relocations);
+			createOffcutVtableRefs(vtableRelocations);
 		}
 		if (!relocatable) {
 			TypeInfo ti = TypeInfoUtils.findTypeInfo(
@@ -129,6 +173,12 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 			}
 		}
 		try {
+			if (!relocatable && singlePass && staticReferences == null) {
+				List<String> typeStrings = new ArrayList<>(CLASS_TYPESTRINGS.size() + 1);
+				typeStrings.add(TypeInfoModel.ID_STRING);
+				typeStrings.addAll(CLASS_TYPESTRINGS);
+				findStaticReferences(typeStrings);
+			}
 			/* Create the vmi replacement base to prevent a
 			   placeholder struct from being generated  */
 			addDataTypes();
@@ -136,23 +186,42 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 			for (String typeString : CLASS_TYPESTRINGS) {
 				applyTypeInfoTypes(typeString);
 			}
-			relocations.clear();
 			return true;
 		} catch (CancelledException e) {
 			throw e;
 		} catch (Exception e) {
 			log.appendException(e);
 			return false;
+		} finally {
+			staticReferences = null;
 		}
 	}
 
 	@Override
 	public Set<Address> scanFundamentals(MessageLog log, TaskMonitor monitor)
 			throws CancelledException {
-		relocations.addAll(getRelocations(CLASS_TYPESTRINGS));
-		if (!relocations.isEmpty()) {
+		try (RelocationIndex index = RelocationIndex.open(getProgram(), monitor)) {
+			relocations = index;
+			return scanFundamentalTypes();
+		} finally {
+			relocations = null;
+		}
+	}
+
+	private Set<Address> scanFundamentalTypes() throws CancelledException {
+		Set<Address> vtableRelocations = getRelocations(CLASS_TYPESTRINGS);
+		if (!vtableRelocations.isEmpty()) {
 			relocatable = true;
-			createOffcutVtableRefs(relocations);
+			createOffcutVtableRefs(vtableRelocations);
+		}
+		if (!relocatable && singlePass) {
+			// the class typestrings are included so the following scan may reuse the sweep
+			List<String> typeStrings = new ArrayList<>(
+				FUNDAMENTAL_TYPESTRINGS.size() + CLASS_TYPESTRINGS.size() + 1);
+			typeStrings.addAll(FUNDAMENTAL_TYPESTRINGS);
+			typeStrings.add(TypeInfoModel.ID_STRING);
+			typeStrings.addAll(CLASS_TYPESTRINGS);
+			findStaticReferences(typeStrings);
 		}
 		Set<Address> addresses = new TreeSet<>();
 		for (String typeString : FUNDAMENTAL_TYPESTRINGS) {
@@ -165,7 +234,6 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 				log.appendException(e);
 			}
 		}
-		relocations.clear();
 		return addresses;
 	}
 
@@ -205,18 +273,20 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 			return;
 		}
 		Namespace typeClass = TypeInfoUtils.getNamespaceFromTypeName(program, typeString);
-		monitor.initialize(types.size());
+		List<Address> candidates = validateCandidates(typeClass, types);
+		getMetrics().add(AnalysisMetrics.TYPES_SCANNED, candidates.size());
+		prewarmDemangler(candidates);
+		monitor.initialize(candidates.size());
 		monitor.setMessage(
 				"Scanning for "+typeClass.getName()+" structures");
-		for (Address reference : types) {
+		List<ClassTypeInfo> classTypes = new ArrayList<>(isClass ? candidates.size() : 0);
+		for (Address reference : candidates) {
 			monitor.checkCanceled();
 			try {
 				TypeInfo type = getTypeInfo(reference);
 				if (type != null) {
 					if (isClass) {
-						ClassTypeInfo classType = ((ClassTypeInfo) type);
-						manager.resolve(classType);
-						classType.getGhidraClass();
+						classTypes.add((ClassTypeInfo) type);
 					}
 				}
 			} catch (UnresolvedClassTypeInfoException e) {
@@ -229,13 +299,72 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 			}
 			monitor.incrementProgress(1);
 		}
+		if (!classTypes.isEmpty()) {
+			resolveClassTypes(typeClass, classTypes);
+		}
+	}
+
+	private void prewarmDemangler(List<Address> candidates) {
+		Program program = getProgram();
+		List<String> names = candidates.stream()
+			.map(a -> TypeInfoUtils.getTypeName(program, a))
+			.filter(Predicate.not(String::isEmpty))
+			.map(name -> "_ZTI" + name)
+			.collect(Collectors.toList());
+		try (AnalysisMetrics.Phase phase = getMetrics().startPhase("demangle typenames")) {
+			DemanglerCache.prewarm(program, names, validationThreads);
+		}
 	}
 
-	private void createOffcutVtableRefs(Set<Relocation> relocs) throws CancelledException {
+	private void resolveClassTypes(Namespace typeClass, List<ClassTypeInfo> types)
+			throws CancelledException {
+		monitor.initialize(types.size());
+		monitor.setMessage("Resolving "+typeClass.getName()+" structures");
+		Map<ClassTypeInfo, RuntimeException> failures = new LinkedHashMap<>();
+		manager.resolveAll(types, failures, monitor);
+		for (RuntimeException e : failures.values()) {
+			if (e instanceof UnresolvedClassTypeInfoException) {
+				log.appendMsg(e.getMessage());
+			} else {
+				log.appendException(e);
+			}
+		}
+		for (ClassTypeInfo type : types) {
+			monitor.checkCanceled();
+			try {
+				type.getGhidraClass();
+			} catch (UnresolvedClassTypeInfoException e) {
+				log.appendMsg(e.getMessage());
+			} catch (Exception e) {
+				//log.appendException(e);
+			}
+		}
+	}
+
+	private List<Address> validateCandidates(Namespace typeClass, Set<Address> candidates)
+			throws CancelledException {
+		monitor.initialize(candidates.size());
+		monitor.setMessage("Validating "+typeClass.getName()+" candidates");
+		TypeInfoCandidateValidator validator =
+			new TypeInfoCandidateValidator(getProgram(), validationThreads, monitor);
+		long start = System.nanoTime();
+		List<Address> result;
+		try (AnalysisMetrics.Phase phase = getMetrics().startPhase("validate candidates")) {
+			result = validator.validate(candidates);
+		}
+		long elapsed = Math.max(System.nanoTime() - start, 1);
+		long rate = (long) (candidates.size() / (elapsed / 1e9));
+		log.appendMsg(String.format(
+			"Validated %d %s candidates (%d valid) in %d ms using %d thread(s): %d candidates/sec",
+			candidates.size(), typeClass.getName(), result.size(),
+			elapsed / 1000000, validationThreads, rate));
+		return result;
+	}
+
+	private void createOffcutVtableRefs(Set<Address> relocs) throws CancelledException {
 		Listing listing = getProgram().getListing();
 		AddressSet addresses = new AddressSet();
 		relocs.stream()
-			.map(Relocation::getAddress)
 			.map(listing::getDataAt)
 			.filter(Objects::nonNull)
 			.forEach(d -> addresses.add(d.getMinAddress(), d.getMaxAddress()));
@@ -256,51 +385,79 @@ public class ItaniumAbiRttiScanner implements RttiScanner {
 
 	private Set<Address> getDynamicReferences(String typeString) throws CancelledException {
 		String target = getDynamicSymbol(VtableModel.MANGLED_PREFIX+typeString);
-		Set<Address> result = relocations.stream()
-			.filter(r -> target.equals(getDynamicSymbol(r)))
-			.map(Relocation::getAddress)
+		Address[] addresses = relocations.getAddresses(target);
+		if (addresses.length == 1) {
+			return getClangDynamicReferences(addresses[0]);
+		}
+		return new HashSet<>(Arrays.asList(addresses));
+	}
+
+	private Set<Address> getReferences(String typeString) throws Exception {
+		Set<Address> references = relocatable
+			? getDynamicReferences(typeString)
+			: getStaticReferences(typeString);
+		if (scanSet == null || references == null) {
+			return references;
+		}
+		return references.stream()
+			.filter(scanSet::contains)
 			.collect(Collectors.toSet());
-		if (result.size() == 1) {
-			return getClangDynamicReferences(result.toArray(Address[]::new)[0]);
+	}
+
+	private Set<Address> getRelocations(List<String> names) {
+		Set<Address> result = new HashSet<>();
+		for (String name : names) {
+			String symbol = getDynamicSymbol(VtableModel.MANGLED_PREFIX+name);
+			result.addAll(Arrays.asList(relocations.getAddresses(symbol)));
 		}
 		return result;
 	}
 
-	private Set<Address> getReferences(String typeString) throws Exception {
-		if (relocatable) {
-			return getDynamicReferences(typeString);
+	private Address findVtableAddress(String typeString) throws Exception {
+		Program program = getProgram();
+		TaskMonitor dummy = getDummyMonitor();
+		ClassTypeInfo typeinfo = (ClassTypeInfo) TypeInfoUtils.findTypeInfo(
+			program, typeString, dummy);
+		monitor.setMessage("Locating vtable for "+typeinfo.getName());
+		Vtable vtable = typeinfo.findVtable(dummy);
+		if (!Vtable.isValid(vtable)) {
+			throw new Exception("Vtable for "+typeinfo.getFullName()+" not found");
 		}
-		return getStaticReferences(typeString);
+		return vtable.getTableAddresses()[0];
 	}
 
-	private Set<Relocation> getRelocations(List<String> names) {
-		Set<String> symbols = names.stream()
-			.map(n -> VtableModel.MANGLED_PREFIX+n)
-			.map(this::getDynamicSymbol)
-			.collect(Collectors.toSet());
-		Iterator<Relocation> relocations = getProgram().getRelocationTable()
-			.getRelocations();
-		List<Relocation> relocs = CollectionUtils.asStream(relocations)
-			.filter(r -> r.getSymbolName() != null)
-			.collect(Collectors.toList());
-		return relocs.stream()
-			.filter(r -> symbols.contains(getDynamicSymbol(r)))
-			.collect(Collectors.toSet());
+	private void findStaticReferences(List<String> typeStrings) throws CancelledException {
+		Map<String, Address> targets = new HashMap<>(typeStrings.size());
+		Map<String, Set<Address>> result = new HashMap<>(typeStrings.size());
+		for (String typeString : typeStrings) {
+			monitor.checkCanceled();
+			try {
+				targets.put(typeString, findVtableAddress(typeString));
+			} catch (CancelledException e) {
+				throw e;
+			} catch (NullPointerException e) {
+				result.put(typeString, Collections.emptySet());
+			} catch (Exception e) {
+				// leave it to be reported when it is requested
+			}
+		}
+		monitor.setMessage("Locating typeinfo references");
+		DirectReferenceSweep sweep = new DirectReferenceSweep(getProgram(), targets.values(), scanSet);
+		Map<Address, Set<Address>> references;
+		try (AnalysisMetrics.Phase phase = getMetrics().startPhase("reference sweep")) {
+			references = sweep.sweep(monitor);
+		}
+		targets.forEach((typeString, target) -> result.put(typeString, references.get(target)));
+		staticReferences = result;
 	}
 
 	private Set<Address> getStaticReferences(String typeString) throws Exception {
+		if (staticReferences != null && staticReferences.containsKey(typeString)) {
+			return staticReferences.get(typeString);
+		}
 		try {
-			Program program = getProgram();
-			TaskMonitor dummy = getDummyMonitor();
-			ClassTypeInfo typeinfo = (ClassTypeInfo) TypeInfoUtils.findTypeInfo(
-				program, typeString, dummy);
-			monitor.setMessage("Locating vtable for "+typeinfo.getName());
-			Vtable vtable = typeinfo.findVtable(dummy);
-			if (!Vtable.isValid(vtable)) {
-				throw new Exception("Vtable for "+typeinfo.getFullName()+" not found");
-			}
-			return GnuUtils.getDirectDataReferences(
-				program, vtable.getTableAddresses()[0], dummy);
+			Address address = findVtableAddress(typeString);
+			return GnuUtils.getDirectDataReferences(getProgram(), address, getDummyMonitor());
 		} catch (NullPointerException e) {
 			return Collections.emptySet();
 		}
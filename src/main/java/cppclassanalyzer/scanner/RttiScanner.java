@@ -4,6 +4,7 @@ import java.util.Set;
 
 import ghidra.app.util.importer.MessageLog;
 import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSetView;
 import ghidra.program.model.listing.Program;
 import ghidra.util.classfinder.ClassSearcher;
 import ghidra.util.exception.AssertException;
@@ -21,6 +22,20 @@ public interface RttiScanner {
 	 */
 	public boolean scan(MessageLog log, TaskMonitor monitor) throws CancelledException;
 
+	/**
+	 * Scan the provided addresses for the ClassTypeInfo's. Scanners which cannot
+	 * restrict their search scan the entire program.
+	 * @param set the addresses to scan
+	 * @param log the log to use for logging errors
+	 * @param monitor the task monitor
+	 * @return true if the scan was successful
+	 * @throws CancelledException if the scan is cancelled
+	 */
+	public default boolean scan(AddressSetView set, MessageLog log, TaskMonitor monitor)
+			throws CancelledException {
+		return scan(log, monitor);
+	}
+
 	/**
 	 * Scans the program for Fundamental TypeInfo's
 	 * @param monitor the task monitor
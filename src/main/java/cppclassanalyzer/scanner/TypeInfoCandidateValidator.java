@@ -0,0 +1,136 @@
+package cppclassanalyzer.scanner;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import ghidra.program.model.address.Address;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.mem.Memory;
+import ghidra.program.model.mem.MemoryBlock;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+/**
+ * Validates typeinfo candidates concurrently. The candidates are partitioned by
+ * their containing memory block and each partition is checked on a fork-join pool.
+ * Only read-only checks against the program's memory are performed.
+ */
+final class TypeInfoCandidateValidator {
+
+	// partitions larger than this are split in half
+	private static final int PARTITION_SIZE = 512;
+
+	private final Program program;
+	private final int threads;
+	private final TaskMonitor monitor;
+
+	/**
+	 * Constructs a new TypeInfoCandidateValidator
+	 * @param program the program containing the candidates
+	 * @param threads the number of threads to use
+	 * @param monitor the task monitor
+	 */
+	TypeInfoCandidateValidator(Program program, int threads, TaskMonitor monitor) {
+		this.program = program;
+		this.threads = Math.max(1, threads);
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Validates the candidates
+	 * @param candidates the typeinfo candidates
+	 * @return the valid candidates in address order
+	 * @throws CancelledException if the validation is cancelled
+	 */
+	List<Address> validate(Collection<Address> candidates) throws CancelledException {
+		List<Address[]> partitions = partition(candidates);
+		if (threads == 1) {
+			List<Address> result = new ArrayList<>();
+			for (Address[] partition : partitions) {
+				result.addAll(new ValidationTask(partition, 0, partition.length).compute());
+			}
+			monitor.checkCanceled();
+			return result;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<Address> result = new ArrayList<>();
+			for (ValidationTask task : submitAll(pool, partitions)) {
+				result.addAll(task.join());
+			}
+			monitor.checkCanceled();
+			return result;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private List<ValidationTask> submitAll(ForkJoinPool pool, List<Address[]> partitions) {
+		List<ValidationTask> tasks = new ArrayList<>(partitions.size());
+		for (Address[] partition : partitions) {
+			ValidationTask task = new ValidationTask(partition, 0, partition.length);
+			pool.execute(task);
+			tasks.add(task);
+		}
+		return tasks;
+	}
+
+	private List<Address[]> partition(Collection<Address> candidates) {
+		Memory mem = program.getMemory();
+		Map<MemoryBlock, List<Address>> blocks = new LinkedHashMap<>();
+		for (Address address : new TreeSet<>(candidates)) {
+			MemoryBlock block = mem.getBlock(address);
+			if (block != null) {
+				blocks.computeIfAbsent(block, b -> new ArrayList<>()).add(address);
+			}
+		}
+		List<Address[]> partitions = new ArrayList<>(blocks.size());
+		for (List<Address> addresses : blocks.values()) {
+			partitions.add(addresses.toArray(Address[]::new));
+		}
+		return partitions;
+	}
+
+	private boolean isValid(Address address) {
+		try {
+			return TypeInfoFactory.isTypeInfo(program, address);
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private final class ValidationTask extends RecursiveTask<List<Address>> {
+
+		private final Address[] candidates;
+		private final int start;
+		private final int end;
+
+		ValidationTask(Address[] candidates, int start, int end) {
+			this.candidates = candidates;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected List<Address> compute() {
+			if (end - start > PARTITION_SIZE) {
+				int mid = (start + end) >>> 1;
+				ValidationTask left = new ValidationTask(candidates, start, mid);
+				ValidationTask right = new ValidationTask(candidates, mid, end);
+				left.fork();
+				List<Address> result = new ArrayList<>(right.compute());
+				result.addAll(0, left.join());
+				return result;
+			}
+			List<Address> result = new ArrayList<>();
+			for (int i = start; i < end && !monitor.isCancelled(); i++) {
+				if (isValid(candidates[i])) {
+					result.add(candidates[i]);
+				}
+				monitor.incrementProgress(1);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package cppclassanalyzer.utils;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ghidra.app.util.importer.MessageLog;
+import ghidra.framework.Application;
+import ghidra.framework.model.DomainFile;
+import ghidra.framework.model.ProjectLocator;
+import ghidra.program.model.listing.Program;
+
+/**
+ * The phase timings and event counts of the analysis of a program.
+ * <p>
+ * Each program has a single instance obtained through {@link #getMetrics(Program)}
+ * which is shared by the analyzers, the scanner, the decompiler and the record worker.
+ * The wall and cpu time of a phase is recorded by closing the {@link Phase} returned
+ * from {@link #startPhase(String)}. The cpu time only includes the thread which
+ * started the phase. A phase started while another phase of the same thread is still
+ * running is recorded as a sub-phase named {@code "outer/inner"} whose time is also
+ * included in the outer phase.
+ */
+public final class AnalysisMetrics {
+
+	public static final String TYPES_SCANNED = "types scanned";
+	public static final String TYPES_RESOLVED = "types resolved";
+	public static final String VTABLES_CREATED = "vtables created";
+	public static final String VTTS_CREATED = "vtts created";
+	public static final String DECOMPILATIONS = "decompilations";
+	public static final String DECOMPILER_TIMEOUTS = "decompiler timeouts";
+	public static final String DECOMPILATIONS_AVOIDED = "decompilations avoided";
+	public static final String DECOMPILER_CACHE_HITS = "decompiler cache hits";
+	public static final String DECOMPILER_CACHE_MISSES = "decompiler cache misses";
+	public static final String SUMMARY_CACHE_HITS = "summary cache hits";
+	public static final String SUMMARY_CACHE_MISSES = "summary cache misses";
+	public static final String DEMANGLER_CACHE_HITS = "demangler cache hits";
+	public static final String DEMANGLER_CACHE_MISSES = "demangler cache misses";
+	public static final String RELOCATIONS_INDEXED = "relocations indexed";
+	public static final String RECORD_READS = "record reads";
+	public static final String RECORD_WRITES = "record writes";
+
+	private static final String FILE_SUFFIX = ".cppclassanalyzer.json";
+	private static final String DIRECTORY_NAME = "cppclassanalyzer";
+	private static final String METRICS_DIRECTORY_NAME = "metrics";
+
+	private static final Map<Program, AnalysisMetrics> METRICS =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final String programName;
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, PhaseTotal> phases = new LinkedHashMap<>();
+	private final ThreadLocal<Phase> running = new ThreadLocal<>();
+
+	private AnalysisMetrics(Program program) {
+		this.programName = program.getName();
+	}
+
+	/**
+	 * Gets the metrics for the program
+	 * @param program the program
+	 * @return the program's metrics
+	 */
+	public static AnalysisMetrics getMetrics(Program program) {
+		return METRICS.computeIfAbsent(program, AnalysisMetrics::new);
+	}
+
+	/**
+	 * Starts timing a phase. Phases with the same name are accumulated.
+	 * The phase is nested within the phase already running on the current thread, if any.
+	 * @param name the phase name
+	 * @return the phase to close once it has completed
+	 */
+	public Phase startPhase(String name) {
+		return new Phase(name);
+	}
+
+	/**
+	 * Increments the counter by one
+	 * @param counter the counter name
+	 */
+	public void increment(String counter) {
+		add(counter, 1);
+	}
+
+	/**
+	 * Adds the amount to the counter
+	 * @param counter the counter name
+	 * @param amount the amount to add
+	 */
+	public void add(String counter, long amount) {
+		counters.computeIfAbsent(counter, k -> new LongAdder()).add(amount);
+	}
+
+	/**
+	 * Gets the current value of the counter
+	 * @param counter the counter name
+	 * @return the counter value
+	 */
+	public long getCount(String counter) {
+		LongAdder adder = counters.get(counter);
+		return adder != null ? adder.sum() : 0;
+	}
+
+	/**
+	 * Clears all phases and counters
+	 */
+	public synchronized void reset() {
+		counters.clear();
+		phases.clear();
+	}
+
+	/**
+	 * Appends the phases and counters to the message log
+	 * @param log the message log
+	 */
+	public void publish(MessageLog log) {
+		StringBuilder builder = new StringBuilder("Analysis metrics for ");
+		builder.append(programName);
+		for (Map.Entry<String, PhaseTotal> entry : getPhases().entrySet()) {
+			PhaseTotal total = entry.getValue();
+			builder.append(String.format("%n  %-32s %10.3fs wall %10.3fs cpu %6d runs",
+				entry.getKey(), toSeconds(total.wall), toSeconds(total.cpu), total.runs));
+		}
+		for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+			builder.append(String.format("%n  %-32s %10d", entry.getKey(), entry.getValue()));
+		}
+		log.appendMsg(builder.toString());
+	}
+
+	/**
+	 * Writes the phases and counters to the file as json
+	 * @param file the file
+	 * @throws IOException if an error occurs writing the file
+	 */
+	public void write(File file) throws IOException {
+		File dir = file.getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Unable to create " + dir);
+		}
+		StringBuilder builder = new StringBuilder("{\n");
+		builder.append("  \"program\": ").append(quote(programName)).append(",\n");
+		builder.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+		builder.append("  \"phases\": {");
+		String separator = "\n";
+		for (Map.Entry<String, PhaseTotal> entry : getPhases().entrySet()) {
+			PhaseTotal total = entry.getValue();
+			builder.append(separator)
+				.append("    ")
+				.append(quote(entry.getKey()))
+				.append(String.format(": {\"wallNanos\": %d, \"cpuNanos\": %d, \"runs\": %d}",
+					total.wall, total.cpu, total.runs));
+			separator = ",\n";
+		}
+		builder.append("\n  },\n  \"counters\": {");
+		separator = "\n";
+		for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+			builder.append(separator)
+				.append("    ")
+				.append(quote(entry.getKey()))
+				.append(": ")
+				.append(entry.getValue());
+			separator = ",\n";
+		}
+		builder.append("\n  }\n}\n");
+		try (Writer writer = new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(builder.toString());
+		}
+	}
+
+	/**
+	 * Gets the json file for the program. The file is placed in the project directory
+	 * when the program belongs to a project and in the user settings directory otherwise.
+	 * @param program the program
+	 * @return the metrics file
+	 */
+	public static File getMetricsFile(Program program) {
+		DomainFile domainFile = program.getDomainFile();
+		ProjectLocator locator = domainFile != null ? domainFile.getProjectLocator() : null;
+		File dir;
+		String name = program.getName();
+		if (locator != null && locator.getProjectDir() != null) {
+			dir = new File(locator.getProjectDir(), DIRECTORY_NAME);
+			if (domainFile.getFileID() != null) {
+				// programs in different folders may share a name
+				name += "." + domainFile.getFileID();
+			}
+		} else {
+			dir = new File(Application.getUserSettingsDirectory(), DIRECTORY_NAME);
+		}
+		return new File(new File(dir, METRICS_DIRECTORY_NAME), name + FILE_SUFFIX);
+	}
+
+	private synchronized Map<String, PhaseTotal> getPhases() {
+		Map<String, PhaseTotal> result = new LinkedHashMap<>(phases.size());
+		phases.forEach((k, v) -> result.put(k, v.copy()));
+		return result;
+	}
+
+	private Map<String, Long> getCounters() {
+		Map<String, Long> result = new TreeMap<>();
+		counters.forEach((k, v) -> result.put(k, v.sum()));
+		return result;
+	}
+
+	private synchronized void addPhase(String name, long wall, long cpu) {
+		PhaseTotal total = phases.computeIfAbsent(name, k -> new PhaseTotal());
+		total.wall += wall;
+		total.cpu += cpu;
+		total.runs++;
+	}
+
+	private static long getThreadCpuTime() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+	}
+
+	private static double toSeconds(long nanos) {
+		return nanos / 1e9;
+	}
+
+	private static String quote(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			} else if (c < 0x20) {
+				builder.append(String.format("\\u%04x", (int) c));
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.append('"').toString();
+	}
+
+	/**
+	 * A running phase
+	 */
+	public final class Phase implements AutoCloseable {
+
+		private final Phase parent;
+		private final String name;
+		private final long wallStart;
+		private final long cpuStart;
+
+		private Phase(String name) {
+			this.parent = running.get();
+			this.name = parent != null ? parent.name + "/" + name : name;
+			running.set(this);
+			this.wallStart = System.nanoTime();
+			this.cpuStart = getThreadCpuTime();
+		}
+
+		@Override
+		public void close() {
+			addPhase(name, System.nanoTime() - wallStart, getThreadCpuTime() - cpuStart);
+			if (parent != null) {
+				running.set(parent);
+			} else {
+				running.remove();
+			}
+		}
+	}
+
+	private static final class PhaseTotal {
+
+		private long wall;
+		private long cpu;
+		private int runs;
+
+		PhaseTotal copy() {
+			PhaseTotal result = new PhaseTotal();
+			result.wall = wall;
+			result.cpu = cpu;
+			result.runs = runs;
+			return result;
+		}
+	}
+}
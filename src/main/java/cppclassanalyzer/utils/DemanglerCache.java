@@ -0,0 +1,163 @@
+package cppclassanalyzer.utils;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import ghidra.app.util.demangler.DemangledObject;
+import ghidra.app.util.demangler.DemanglerUtil;
+import ghidra.program.model.listing.Program;
+
+/**
+ * A bounded cache of the demangled objects of a program's mangled names.
+ * <p>
+ * Each program has a single instance shared by the scanner and the vtable and VTT
+ * commands. The least recently used names are evicted once the capacity is reached.
+ * Names which fail to demangle are cached as well. The cached objects are shared and
+ * must not be modified.
+ */
+public final class DemanglerCache {
+
+	private static final int CAPACITY = 1 << 15;
+
+	private static final Map<Program, DemanglerCache> CACHES =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final Map<String, Optional<DemangledObject>> cache;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private DemanglerCache(int capacity) {
+		this.cache = new LinkedHashMap<>(capacity / 4, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Optional<DemangledObject>> e) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Gets the cache for the program
+	 * @param program the program
+	 * @return the program's cache
+	 */
+	public static DemanglerCache getCache(Program program) {
+		return CACHES.computeIfAbsent(program, p -> new DemanglerCache(CAPACITY));
+	}
+
+	/**
+	 * Demangles the mangled name with the program's demangler
+	 * @param program the program
+	 * @param mangled the mangled name
+	 * @return the demangled object or null if it could not be demangled
+	 */
+	public static DemangledObject demangle(Program program, String mangled) {
+		return getCache(program).get(program, mangled);
+	}
+
+	/**
+	 * Demangles the mangled names so that later lookups are cache hits
+	 * @param program the program
+	 * @param names the mangled names
+	 * @param threads the number of threads to demangle with, 1 to demangle serially
+	 */
+	public static void prewarm(Program program, Collection<String> names, int threads) {
+		DemanglerCache demanglerCache = getCache(program);
+		Set<String> distinct = new LinkedHashSet<>(names);
+		if (threads <= 1) {
+			for (String name : distinct) {
+				if (!demanglerCache.contains(name)) {
+					demanglerCache.get(program, name);
+				}
+			}
+			return;
+		}
+		// a parallel stream started from within the pool runs on the pool's threads
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.submit(() -> distinct.parallelStream()
+				.filter(name -> !demanglerCache.contains(name))
+				.forEach(name -> demanglerCache.get(program, name)))
+				.join();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private DemangledObject get(Program program, String mangled) {
+		Optional<DemangledObject> result;
+		synchronized (cache) {
+			result = cache.get(mangled);
+		}
+		AnalysisMetrics metrics = AnalysisMetrics.getMetrics(program);
+		if (result != null) {
+			hits.increment();
+			metrics.increment(AnalysisMetrics.DEMANGLER_CACHE_HITS);
+			return result.orElse(null);
+		}
+		misses.increment();
+		metrics.increment(AnalysisMetrics.DEMANGLER_CACHE_MISSES);
+		// demangled outside of the lock so that names may be demangled concurrently
+		result = Optional.ofNullable(DemanglerUtil.demangle(program, mangled));
+		synchronized (cache) {
+			cache.putIfAbsent(mangled, result);
+		}
+		return result.orElse(null);
+	}
+
+	private boolean contains(String mangled) {
+		synchronized (cache) {
+			return cache.containsKey(mangled);
+		}
+	}
+
+	/**
+	 * Gets the number of cached names
+	 * @return the number of cached names
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Gets the number of lookups which were found in the cache
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of lookups which had to be demangled
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the fraction of lookups which were found in the cache
+	 * @return the hit rate or 0 if there have been no lookups
+	 */
+	public double getHitRate() {
+		long hitCount = getHits();
+		long total = hitCount + getMisses();
+		return total != 0 ? (double) hitCount / total : 0;
+	}
+
+	/**
+	 * Removes every cached name and resets the statistics
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+		hits.reset();
+		misses.reset();
+	}
+}
@@ -0,0 +1,247 @@
+package cppclassanalyzer.utils;
+
+import java.util.*;
+
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSpace;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.reloc.Relocation;
+import ghidra.program.model.reloc.RelocationTable;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+/**
+ * An index of a program's relocations which is built with a single pass over the
+ * relocation table.
+ * <p>
+ * The relocations are looked up by address with a binary search over the sorted
+ * offsets of each address space and the addresses of the relocations to each symbol
+ * are kept in sorted order. An index is opened for the duration of a scan and every
+ * lookup made through {@link #getRelocation(Program, Address)} while it is open uses
+ * it. Opening an index for a program which already has one open shares the existing
+ * index. The index is discarded once it has been closed as many times as it was opened.
+ */
+public final class RelocationIndex implements AutoCloseable {
+
+	private static final Address[] NO_ADDRESSES = new Address[0];
+
+	private static final Map<Program, RelocationIndex> INDEXES =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final Program program;
+	private final Map<AddressSpace, SpaceTable> tables;
+	private final Map<String, Address[]> symbols;
+	private final int size;
+	private int openCount;
+
+	private RelocationIndex(Program program, Map<AddressSpace, SpaceTable> tables,
+			Map<String, Address[]> symbols, int size) {
+		this.program = program;
+		this.tables = tables;
+		this.symbols = symbols;
+		this.size = size;
+	}
+
+	/**
+	 * Opens the relocation index for the program. The index must be closed once the
+	 * scan has completed.
+	 * @param program the program
+	 * @param monitor the task monitor
+	 * @return the program's relocation index
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public static RelocationIndex open(Program program, TaskMonitor monitor)
+			throws CancelledException {
+		synchronized (INDEXES) {
+			RelocationIndex index = INDEXES.get(program);
+			if (index == null) {
+				index = build(program, monitor);
+				INDEXES.put(program, index);
+			}
+			index.openCount++;
+			return index;
+		}
+	}
+
+	/**
+	 * Gets the open relocation index for the program
+	 * @param program the program
+	 * @return the program's relocation index or null if none is open
+	 */
+	public static RelocationIndex getIndex(Program program) {
+		return INDEXES.get(program);
+	}
+
+	/**
+	 * Gets the relocation at the address using the open index if there is one
+	 * @param program the program
+	 * @param address the address
+	 * @return the relocation or null if there is none at the address
+	 */
+	public static Relocation getRelocation(Program program, Address address) {
+		RelocationIndex index = INDEXES.get(program);
+		if (index != null) {
+			return index.getRelocation(address);
+		}
+		return program.getRelocationTable().getRelocation(address);
+	}
+
+	private static RelocationIndex build(Program program, TaskMonitor monitor)
+			throws CancelledException {
+		try (AnalysisMetrics.Phase phase =
+				AnalysisMetrics.getMetrics(program).startPhase("index relocations")) {
+			RelocationTable table = program.getRelocationTable();
+			monitor.setMessage("Indexing relocations");
+			Map<AddressSpace, SpaceTable> tables = new HashMap<>();
+			Map<String, List<Address>> symbols = new HashMap<>();
+			int size = 0;
+			Iterator<Relocation> relocations = table.getRelocations();
+			while (relocations.hasNext()) {
+				monitor.checkCanceled();
+				Relocation reloc = relocations.next();
+				Address address = reloc.getAddress();
+				tables.computeIfAbsent(address.getAddressSpace(), k -> new SpaceTable())
+					.add(address.getOffset(), reloc);
+				String name = reloc.getSymbolName();
+				if (name != null) {
+					symbols.computeIfAbsent(name, k -> new ArrayList<>()).add(address);
+				}
+				size++;
+			}
+			for (SpaceTable spaceTable : tables.values()) {
+				spaceTable.seal();
+			}
+			Map<String, Address[]> symbolAddresses = new HashMap<>(symbols.size());
+			for (Map.Entry<String, List<Address>> entry : symbols.entrySet()) {
+				monitor.checkCanceled();
+				Address[] addresses = entry.getValue().toArray(NO_ADDRESSES);
+				Arrays.sort(addresses);
+				symbolAddresses.put(entry.getKey(), addresses);
+			}
+			AnalysisMetrics.getMetrics(program).add(AnalysisMetrics.RELOCATIONS_INDEXED, size);
+			return new RelocationIndex(program, tables, symbolAddresses, size);
+		}
+	}
+
+	/**
+	 * Gets the relocation at the address
+	 * @param address the address
+	 * @return the relocation or null if there is none at the address
+	 */
+	public Relocation getRelocation(Address address) {
+		SpaceTable table = tables.get(address.getAddressSpace());
+		return table != null ? table.get(address.getOffset()) : null;
+	}
+
+	/**
+	 * Gets the addresses of the relocations to the symbol in ascending order
+	 * @param symbol the symbol name
+	 * @return the relocation addresses
+	 */
+	public Address[] getAddresses(String symbol) {
+		Address[] addresses = symbols.get(symbol);
+		return addresses != null ? addresses.clone() : NO_ADDRESSES;
+	}
+
+	/**
+	 * Gets the names of the symbols with at least one relocation
+	 * @return the symbol names
+	 */
+	public Set<String> getSymbolNames() {
+		return Collections.unmodifiableSet(symbols.keySet());
+	}
+
+	/**
+	 * Checks if the program has any relocations
+	 * @return true if the program has no relocations
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the number of indexed relocations
+	 * @return the number of relocations
+	 */
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void close() {
+		synchronized (INDEXES) {
+			if (--openCount == 0) {
+				INDEXES.remove(program);
+			}
+		}
+	}
+
+	/**
+	 * The relocations within a single address space ordered by offset
+	 */
+	private static final class SpaceTable {
+
+		private long[] offsets = new long[16];
+		private Relocation[] relocations = new Relocation[16];
+		private int size;
+		private boolean sorted = true;
+
+		void add(long offset, Relocation reloc) {
+			if (size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				relocations = Arrays.copyOf(relocations, size * 2);
+			}
+			if (size > 0 && Long.compareUnsigned(offsets[size - 1], offset) > 0) {
+				sorted = false;
+			}
+			offsets[size] = offset;
+			relocations[size++] = reloc;
+		}
+
+		void seal() {
+			if (!sorted) {
+				// the relocation table is normally iterated in address order
+				Integer[] order = new Integer[size];
+				for (int i = 0; i < size; i++) {
+					order[i] = i;
+				}
+				long[] unsortedOffsets = offsets;
+				// stable so the first relocation at an address remains first
+				Arrays.sort(order, (a, b) -> Long.compareUnsigned(
+					unsortedOffsets[a], unsortedOffsets[b]));
+				long[] sortedOffsets = new long[size];
+				Relocation[] sortedRelocations = new Relocation[size];
+				for (int i = 0; i < size; i++) {
+					sortedOffsets[i] = offsets[order[i]];
+					sortedRelocations[i] = relocations[order[i]];
+				}
+				offsets = sortedOffsets;
+				relocations = sortedRelocations;
+				sorted = true;
+			} else {
+				offsets = Arrays.copyOf(offsets, size);
+				relocations = Arrays.copyOf(relocations, size);
+			}
+		}
+
+		Relocation get(long offset) {
+			int low = 0;
+			int high = size - 1;
+			int found = -1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = Long.compareUnsigned(offsets[mid], offset);
+				if (cmp < 0) {
+					low = mid + 1;
+				} else {
+					if (cmp == 0) {
+						// keep searching for the first relocation at the offset
+						found = mid;
+					}
+					high = mid - 1;
+				}
+			}
+			return found >= 0 ? relocations[found] : null;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package cppclassanalyzer.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import ghidra.framework.model.DomainObject;
+import ghidra.framework.model.DomainObjectChangedEvent;
+import ghidra.framework.model.DomainObjectListener;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.listing.Program;
+import ghidra.program.util.ChangeManager;
+
+/**
+ * A cache of the typenames of a program's typeinfo keyed by the typeinfo address.
+ * <p>
+ * Each program has a single instance shared by the scanner, the typeinfo factory and
+ * the vtable and VTT validation. The cache is cleared whenever the program's memory
+ * bytes or memory blocks change since either may change the typename string or the
+ * pointer to it. Invalid typenames are cached as the empty string.
+ */
+public final class TypeNameCache implements DomainObjectListener {
+
+	private static final int CAPACITY = 1 << 18;
+
+	private static final int[] INVALIDATING_EVENTS = new int[] {
+		ChangeManager.DOCR_MEMORY_BYTES_CHANGED,
+		ChangeManager.DOCR_MEMORY_BLOCK_ADDED,
+		ChangeManager.DOCR_MEMORY_BLOCK_REMOVED,
+		ChangeManager.DOCR_MEMORY_BLOCK_CHANGED,
+		ChangeManager.DOCR_MEMORY_BLOCK_MOVED,
+		ChangeManager.DOCR_MEMORY_BLOCK_SPLIT,
+		ChangeManager.DOCR_MEMORY_BLOCKS_JOINED,
+		ChangeManager.DOCR_IMAGE_BASE_CHANGED,
+		DomainObject.DO_OBJECT_RESTORED
+	};
+
+	private static final Map<Program, TypeNameCache> CACHES =
+		Collections.synchronizedMap(new WeakHashMap<>());
+
+	// the cache must not reference the program or it will never be collected
+	private final Map<Address, String> names = new ConcurrentHashMap<>();
+
+	private TypeNameCache() {
+	}
+
+	/**
+	 * Gets the cache for the program
+	 * @param program the program
+	 * @return the program's cache
+	 */
+	public static TypeNameCache getCache(Program program) {
+		synchronized (CACHES) {
+			TypeNameCache cache = CACHES.get(program);
+			if (cache == null) {
+				cache = new TypeNameCache();
+				program.addListener(cache);
+				CACHES.put(program, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Removes every cached typename of the program
+	 * @param program the program
+	 */
+	public static void invalidate(Program program) {
+		TypeNameCache cache = CACHES.get(program);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Gets the typename of the typeinfo reading it if it is not already cached
+	 * @param address the typeinfo address
+	 * @param reader the function which reads the typename at a typeinfo address
+	 * @return the typename or "" if invalid
+	 */
+	public String get(Address address, Function<Address, String> reader) {
+		String name = names.get(address);
+		if (name != null) {
+			return name;
+		}
+		name = reader.apply(address);
+		if (names.size() >= CAPACITY) {
+			// the candidates of a scan are rarely revisited once it has completed
+			names.clear();
+		}
+		names.putIfAbsent(address, name);
+		return name;
+	}
+
+	/**
+	 * Gets the number of cached typenames
+	 * @return the number of cached typenames
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	/**
+	 * Removes every cached typename
+	 */
+	public void clear() {
+		names.clear();
+	}
+
+	@Override
+	public void domainObjectChanged(DomainObjectChangedEvent event) {
+		for (int eventType : INVALIDATING_EVENTS) {
+			if (event.containsEvent(eventType)) {
+				clear();
+				return;
+			}
+		}
+	}
+}
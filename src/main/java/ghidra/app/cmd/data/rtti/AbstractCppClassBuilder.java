@@ -13,6 +13,7 @@ import ghidra.program.model.data.DataTypeConflictHandler;
 import ghidra.program.model.data.DataTypeManager;
 import ghidra.program.model.data.DataTypePath;
 import ghidra.program.model.data.Structure;
+import ghidra.program.model.data.StructureDataType;
 import ghidra.program.model.listing.GhidraClass;
 import ghidra.program.model.listing.Program;
 import ghidra.program.model.util.CompositeDataTypeElementInfo;
@@ -31,6 +32,8 @@ public abstract class AbstractCppClassBuilder {
 	private ClassTypeInfo type;
 
 	private Map<CompositeDataTypeElementInfo, String> dtComps = Collections.emptyMap();
+	private Map<ClassTypeInfo, Integer> baseMap;
+	private Map<ClassTypeInfo, Structure> superStructs = new HashMap<>();
 
 	protected AbstractCppClassBuilder(ClassTypeInfo type) {
 		this.type = type;
@@ -55,10 +58,6 @@ public abstract class AbstractCppClassBuilder {
 		return program;
 	}
 
-	private String getSuperName() {
-		return SUPER + type.getName();
-	}
-
 	protected final void addVptr() {
 		addVptr(struct);
 	}
@@ -66,21 +65,62 @@ public abstract class AbstractCppClassBuilder {
 	protected abstract Map<ClassTypeInfo, Integer> getBaseOffsets();
 	protected abstract void addVptr(Structure struct);
 
+	/**
+	 * Sets the super structures of the previously built classes.
+	 * The map is shared with the builder and the super structure of
+	 * this class is added to it once it has been built.
+	 * @param superStructs the super structures by class
+	 */
+	public void setSuperStructures(Map<ClassTypeInfo, Structure> superStructs) {
+		this.superStructs = superStructs;
+	}
+
+	/**
+	 * Reads the user defined fields and base offsets of the class.
+	 */
+	public void prepare() {
+		prepareBaseOffsets();
+		prepareComponents();
+	}
+
+	/**
+	 * Resolves the base classes and their offsets.
+	 * Resolving a base class may create its type and namespace so this
+	 * must be called from the thread which owns the program's transaction.
+	 */
+	public void prepareBaseOffsets() {
+		baseMap = getBaseOffsets();
+	}
+
+	/**
+	 * Reads the user defined fields of the class.
+	 * This does not modify the program and may be called
+	 * concurrently for different classes.
+	 */
+	public void prepareComponents() {
+		stashComponents();
+	}
+
 	public Structure getDataType() {
 		if (struct.isDeleted()) {
 			struct = ClassTypeInfoUtils.getPlaceholderStruct(
 				type, program.getDataTypeManager());
+			baseMap = null;
 		}
 		Integer id = null;
 		if (program.getCurrentTransaction() == null) {
 			id = program.startTransaction("creating datatype for "+type.getName());
 		}
-		stashComponents();
-		Map<ClassTypeInfo, Integer> baseMap = getBaseOffsets();
+		if (baseMap == null) {
+			prepare();
+		}
+		// the layout is built in memory and applied to the structure at once
+		Structure layout = new StructureDataType(
+			struct.getCategoryPath(), struct.getName(), 0, program.getDataTypeManager());
+		layout.setDescription(struct.getDescription());
 		boolean primaryBaseSet = false;
 		for (ClassTypeInfo parent : baseMap.keySet()) {
-			AbstractCppClassBuilder parentBuilder = getParentBuilder(parent);
-			Structure parentStruct = parentBuilder.getSuperClassDataType();
+			Structure parentStruct = getParentDataType(parent);
 			String memberName = SUPER + parent.getName();
 			int offset = baseMap.get(parent);
 			if (offset == 0) {
@@ -89,7 +129,7 @@ public abstract class AbstractCppClassBuilder {
 					continue;
 				}
 				if (!primaryBaseSet) {
-					replaceComponent(struct, parentStruct, memberName, 0);
+					replaceComponent(layout, parentStruct, memberName, 0);
 					primaryBaseSet = true;
 				}
 			} else if (offset < 0) {
@@ -97,18 +137,33 @@ public abstract class AbstractCppClassBuilder {
 				// or unable to resolve and already reported
 				continue;
 			} else {
-				replaceComponent(struct, parentStruct, memberName, offset);
+				replaceComponent(layout, parentStruct, memberName, offset);
 			}
 		}
-		addVptr();
-		fixComponents();
-		getSuperClassDataType();
+		addVptr(layout);
+		fixComponents(layout);
+		if (struct.isInternallyAligned()) {
+			struct.setInternallyAligned(false);
+		}
+		struct.replaceWith(layout);
+		dtComps = Collections.emptyMap();
+		baseMap = null;
+		superStructs.put(type, getSuperClassDataType());
 		if (id != null) {
 			program.endTransaction(id, true);
 		}
 		return struct;
 	}
 
+	private Structure getParentDataType(ClassTypeInfo parent) {
+		Structure parentStruct = superStructs.get(parent);
+		if (parentStruct == null || parentStruct.isDeleted()) {
+			parentStruct = getParentBuilder(parent).getSuperClassDataType();
+			superStructs.put(parent, parentStruct);
+		}
+		return parentStruct;
+	}
+
 	protected void setSuperStructureCategoryPath(Structure parent) {
 		try {
 			parent.setCategoryPath(path);
@@ -127,15 +182,15 @@ public abstract class AbstractCppClassBuilder {
 		DataTypePath dtPath = new DataTypePath(path, SUPER+type.getName());
 		DataType dt = dtm.getDataType(dtPath);
 		if (dt == null) {
+			// trimmed before it is resolved to avoid modifying the database copy
 			Structure superStruct = (Structure) struct.copy(dtm);
 			setSuperStructureCategoryPath(superStruct);
-			superStruct = resolveStruct(superStruct);
 			deleteVirtualComponents(superStruct);
 			addVptr(superStruct);
 			if (!superStruct.isMachineAligned()) {
 				trimStructure(superStruct);
 			}
-			return superStruct;
+			return resolveStruct(superStruct);
 		}
 		return (Structure) dt;
 	}
@@ -184,8 +239,7 @@ public abstract class AbstractCppClassBuilder {
 	protected void deleteVirtualComponents(Structure superStruct) {
 		Set<String> parents = type.getVirtualParents()
 			.stream()
-			.map(this::getParentBuilder)
-			.map(AbstractCppClassBuilder::getSuperName)
+			.map(parent -> SUPER + parent.getName())
 			.collect(Collectors.toSet());
 		DataTypeComponent[] comps = superStruct.getDefinedComponents();
 		DataTypeComponent comp = getReverseIndexStream(comps.length)
@@ -211,39 +265,35 @@ public abstract class AbstractCppClassBuilder {
 	}
 
 	private void stashComponents() {
-		if (struct.isInternallyAligned()) {
-			struct.setInternallyAligned(false);
-		}
-		if(dtComps.isEmpty()) {
-			dtComps = new HashMap<>(struct.getNumDefinedComponents());
-			for (DataTypeComponent comp : struct.getDefinedComponents()) {
-				if (comp.getDataType() == null) {
-					String msg = struct.getDataTypePath().toString()
-						+ " is corrupted and must be deleted through the user interface";
-					throw new AssertException(msg);
-				}
-				String fieldName = comp.getFieldName();
-				if (validFieldName(fieldName)) {
-					if (!comp.getDataType().isNotYetDefined()) {
-						CompositeDataTypeElementInfo savedComp = new CompositeDataTypeElementInfo(
-							comp.getDataType(), comp.getOffset(),
-							comp.getLength(), comp.getDataType().getAlignment());
-						dtComps.put(savedComp, comp.getFieldName());
-					}
+		Map<CompositeDataTypeElementInfo, String> comps =
+			new HashMap<>(struct.getNumDefinedComponents());
+		for (DataTypeComponent comp : struct.getDefinedComponents()) {
+			if (comp.getDataType() == null) {
+				String msg = struct.getDataTypePath().toString()
+					+ " is corrupted and must be deleted through the user interface";
+				throw new AssertException(msg);
+			}
+			String fieldName = comp.getFieldName();
+			if (validFieldName(fieldName)) {
+				if (!comp.getDataType().isNotYetDefined()) {
+					CompositeDataTypeElementInfo savedComp = new CompositeDataTypeElementInfo(
+						comp.getDataType(), comp.getOffset(),
+						comp.getLength(), comp.getDataType().getAlignment());
+					comps.put(savedComp, comp.getFieldName());
 				}
 			}
-			struct.deleteAll();
 		}
+		dtComps = comps;
 	}
 
-	private void fixComponents() {
+	private void fixComponents(Structure layout) {
 		for (CompositeDataTypeElementInfo comp : dtComps.keySet()) {
 			int offset = comp.getDataTypeOffset();
-			DataTypeComponent replaced = struct.getComponentAt(offset);
+			DataTypeComponent replaced = layout.getComponentAt(offset);
 			if (replaced != null && !validFieldName(replaced.getFieldName())) {
 				continue;
 			}
-			replaceComponent(struct, (DataType) comp.getDataTypeHandle(),
+			replaceComponent(layout, (DataType) comp.getDataTypeHandle(),
 							 dtComps.get(comp), offset);
 		}
 	}
@@ -1,6 +1,7 @@
 package ghidra.app.cmd.data.rtti.gcc;
 
 import java.util.List;
+import java.util.Map;
 
 import ghidra.util.Msg;
 import ghidra.util.task.TaskMonitor;
@@ -10,12 +11,13 @@ import ghidra.program.model.address.Address;
 import ghidra.program.model.data.DataType;
 import ghidra.program.model.data.DataTypeConflictHandler;
 import ghidra.program.model.data.DataTypeManager;
+import ghidra.program.model.data.DataTypePath;
 import ghidra.framework.model.DomainObject;
 import ghidra.program.model.listing.Program;
 import ghidra.app.cmd.data.rtti.GnuVtable;
 import ghidra.app.util.demangler.DemangledObject;
 import ghidra.app.util.demangler.DemanglerOptions;
-import ghidra.app.util.demangler.DemanglerUtil;
+import cppclassanalyzer.utils.DemanglerCache;
 import ghidra.framework.cmd.BackgroundCommand;
 import ghidra.program.model.data.DataUtilities;
 import ghidra.program.model.data.InvalidDataTypeException;
@@ -29,6 +31,7 @@ public abstract class AbstractCreateVtableBackgroundCmd extends BackgroundComman
 	private GnuVtable vtable;
 	private TaskMonitor monitor;
 	private Program program;
+	private Map<DataTypePath, DataType> resolvedTypes;
 
 	private static final DemanglerOptions OPTIONS = new DemanglerOptions();
 
@@ -37,6 +40,14 @@ public abstract class AbstractCreateVtableBackgroundCmd extends BackgroundComman
 		this.vtable = vtable;
 	}
 
+	/**
+	 * Sets the data types already resolved by previous commands
+	 * @param resolvedTypes the resolved data types keyed by their original path
+	 */
+	void setResolvedDataTypes(Map<DataTypePath, DataType> resolvedTypes) {
+		this.resolvedTypes = resolvedTypes;
+	}
+
 	@Override
 	public boolean applyTo(DomainObject obj, TaskMonitor taskMonitor) {
 		try {
@@ -70,7 +81,7 @@ public abstract class AbstractCreateVtableBackgroundCmd extends BackgroundComman
 		DataTypeManager dtm = program.getDataTypeManager();
 		Address currentAddress = vtable.getAddress();
 		for (DataType dt : dataTypes) {
-			dt = dtm.resolve(dt, DataTypeConflictHandler.KEEP_HANDLER);
+			dt = resolve(dtm, dt);
 			Data data = listing.getDataContaining(currentAddress);
 			if (data != null && data.getDataType().equals(dt)) {
 				currentAddress = currentAddress.add(data.getLength());
@@ -83,12 +94,24 @@ public abstract class AbstractCreateVtableBackgroundCmd extends BackgroundComman
 		}
 	}
 
+	private DataType resolve(DataTypeManager dtm, DataType dt) {
+		if (resolvedTypes == null) {
+			return dtm.resolve(dt, DataTypeConflictHandler.KEEP_HANDLER);
+		}
+		DataType resolved = resolvedTypes.get(dt.getDataTypePath());
+		if (resolved == null) {
+			resolved = dtm.resolve(dt, DataTypeConflictHandler.KEEP_HANDLER);
+			resolvedTypes.put(dt.getDataTypePath(), resolved);
+		}
+		return resolved;
+	}
+
 	protected abstract String getMangledString() throws InvalidDataTypeException;
 	protected abstract String getSymbolName();
 
 	private boolean createAssociatedData() {
 		try {
-			DemangledObject demangled = DemanglerUtil.demangle(program, getMangledString());
+			DemangledObject demangled = DemanglerCache.demangle(program, getMangledString());
 			return demangled.applyTo(program, vtable.getAddress(), OPTIONS, monitor);
 		} catch (Exception e) {
 			return false;
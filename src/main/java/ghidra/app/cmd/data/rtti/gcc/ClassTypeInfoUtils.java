@@ -5,6 +5,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
+import cppclassanalyzer.data.typeinfo.ClassTypeInfoDB;
 import cppclassanalyzer.data.typeinfo.GnuClassTypeInfoDB;
 import cppclassanalyzer.data.typeinfo.AbstractClassTypeInfoDB.TypeId;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
@@ -123,12 +124,18 @@ public class ClassTypeInfoUtils {
 
 	private static Vtable getValidVtable(Program program, Set<Address> references,
 		TaskMonitor monitor, ClassTypeInfo typeinfo) throws CancelledException {
+		boolean hasPureVirtual = program.getSymbolTable().getSymbols(
+			PURE_VIRTUAL_FUNCTION_NAME).hasNext();
+		return getValidVtable(program, references, monitor, typeinfo, hasPureVirtual);
+	}
+
+	static Vtable getValidVtable(Program program, Collection<Address> references,
+		TaskMonitor monitor, ClassTypeInfo typeinfo, boolean hasPureVirtual)
+		throws CancelledException {
 		Listing listing = program.getListing();
 		Memory mem = program.getMemory();
 		DataType ptrDiff = GnuUtils.getPtrDiff_t(program.getDataTypeManager());
 		Scalar zero = new Scalar(ptrDiff.getLength(), 0);
-		boolean hasPureVirtual = program.getSymbolTable().getSymbols(
-			PURE_VIRTUAL_FUNCTION_NAME).hasNext();
 		for (Address reference : references) {
 			monitor.checkCanceled();
 			MemBuffer buf = new DumbMemBufferImpl(mem, reference.subtract(ptrDiff.getLength()));
@@ -301,12 +308,19 @@ public class ClassTypeInfoUtils {
 	 */
 	public static void sortByMostDerived(Program program, List<ClassTypeInfo> classes,
 		TaskMonitor monitor) throws CancelledException {
+			ProgramClassTypeInfoManager manager = CppClassAnalyzerUtils.getManager(program);
+			if (manager != null && isManaged(manager, classes)) {
+				sortByInheritanceOrder(manager, classes, monitor);
+				return;
+			}
 			Set<ClassTypeInfo> classSet = new LinkedHashSet<>(classes);
 			List<ClassTypeInfo> sortedClasses = new ArrayList<>(classes.size());
-			Iterator<ClassTypeInfo> classIterator = classSet.iterator();
-			while (classIterator.hasNext()) {
+			for (ClassTypeInfo type : classes) {
 				monitor.checkCanceled();
-				ClassTypeInfo type = classIterator.next();
+				if (!classSet.contains(type)) {
+					// already added as the parent of a previous class
+					continue;
+				}
 				ArrayDeque<ClassTypeInfo> stack = new ArrayDeque<>();
 				stack.push(type);
 				while(!stack.isEmpty()) {
@@ -320,14 +334,40 @@ public class ClassTypeInfoUtils {
 							continue;
 						}
 					}
-					sortedClasses.add(classType);
-					classSet.remove(classType);
-				} classIterator = classSet.iterator();
+					if (classSet.remove(classType)) {
+						sortedClasses.add(classType);
+					}
+				}
 			}
 			classes.clear();
 			classes.addAll(sortedClasses);
 	}
 
+	private static boolean isManaged(ProgramClassTypeInfoManager manager,
+			List<ClassTypeInfo> classes) {
+		return classes.stream()
+			.allMatch(c -> c instanceof ClassTypeInfoDB
+				&& ((ClassTypeInfoDB) c).getManager() == manager);
+	}
+
+	private static void sortByInheritanceOrder(ProgramClassTypeInfoManager manager,
+			List<ClassTypeInfo> classes, TaskMonitor monitor) throws CancelledException {
+		Map<Long, ClassTypeInfo> types = new HashMap<>(classes.size());
+		for (ClassTypeInfo type : classes) {
+			types.putIfAbsent(((ClassTypeInfoDB) type).getKey(), type);
+		}
+		List<ClassTypeInfo> sortedClasses = new ArrayList<>(types.size());
+		for (long key : manager.getInheritanceGraph().getInheritanceOrder()) {
+			monitor.checkCanceled();
+			ClassTypeInfo type = types.get(key);
+			if (type != null) {
+				sortedClasses.add(type);
+			}
+		}
+		classes.clear();
+		classes.addAll(sortedClasses);
+	}
+
 	/**
 	 * Gets the DataType representation of the _vptr for the specified ClassTypeInfo.
 	 * @param program the program containing the ClassTypeInfo
@@ -15,7 +15,7 @@ import ghidra.app.cmd.data.rtti.TypeInfo;
 import ghidra.app.cmd.data.rtti.gcc.typeinfo.VmiClassTypeInfoModel;
 import ghidra.app.util.demangler.DemangledObject;
 import ghidra.app.util.demangler.DemanglerOptions;
-import ghidra.app.util.demangler.DemanglerUtil;
+import cppclassanalyzer.utils.DemanglerCache;
 import ghidra.program.model.util.CodeUnitInsertionException;
 
 import static ghidra.app.util.datatype.microsoft.MSDataTypeUtils.getAbsoluteAddress;
@@ -84,11 +84,11 @@ public class CreateTypeInfoBackgroundCmd extends BackgroundCommand {
 			program, type.getAddress().add(program.getDefaultPointerSize()));
 		String typename = type.getTypeName();
 		try {
-			DemangledObject demangled = DemanglerUtil.demangle(program, "_ZTI" +typename);
+			DemangledObject demangled = DemanglerCache.demangle(program, "_ZTI" +typename);
 			if (demangled != null) {
 				demangled.applyTo(program, type.getAddress(), OPTIONS, monitor);
 			}
-			demangled = DemanglerUtil.demangle(program, "_ZTS" +typename);
+			demangled = DemanglerCache.demangle(program, "_ZTS" +typename);
 			if (demangled != null) {
 				demangled.applyTo(program, typenameAddress, OPTIONS, monitor);
 			}
@@ -1,11 +1,14 @@
 package ghidra.app.cmd.data.rtti.gcc;
 
+import java.util.Map;
+
 import ghidra.util.Msg;
 import ghidra.util.task.TaskMonitor;
 
 import ghidra.program.model.listing.Data;
 import ghidra.program.model.data.Array;
 import ghidra.program.model.data.DataType;
+import ghidra.program.model.data.DataTypePath;
 import ghidra.framework.model.DomainObject;
 import ghidra.program.model.address.Address;
 import ghidra.program.model.listing.Program;
@@ -15,7 +18,7 @@ import ghidra.app.cmd.data.rtti.ClassTypeInfo;
 import ghidra.app.cmd.data.rtti.GnuVtable;
 import ghidra.app.util.demangler.DemangledObject;
 import ghidra.app.util.demangler.DemanglerOptions;
-import ghidra.app.util.demangler.DemanglerUtil;
+import cppclassanalyzer.utils.DemanglerCache;
 import ghidra.framework.cmd.BackgroundCommand;
 import ghidra.program.model.data.DataUtilities;
 import ghidra.program.model.data.InvalidDataTypeException;
@@ -32,6 +35,7 @@ public class CreateVttBackgroundCmd extends BackgroundCommand {
 	private ClassTypeInfo child;
 	private TaskMonitor monitor;
 	private Program program;
+	private Map<DataTypePath, DataType> resolvedTypes;
 
 	private static final String PREFIX = "_ZTT";
 	private static final String VTT = "VTT";
@@ -43,6 +47,14 @@ public class CreateVttBackgroundCmd extends BackgroundCommand {
 		this.child = child;
 	}
 
+	/**
+	 * Sets the data types already resolved by previous commands
+	 * @param resolvedTypes the resolved data types keyed by their original path
+	 */
+	void setResolvedDataTypes(Map<DataTypePath, DataType> resolvedTypes) {
+		this.resolvedTypes = resolvedTypes;
+	}
+
 	@Override
 	public final boolean applyTo(DomainObject obj, TaskMonitor taskMonitor) {
 		try {
@@ -92,12 +104,14 @@ public class CreateVttBackgroundCmd extends BackgroundCommand {
 			if (model instanceof VtableModel && ((VtableModel) model).isConstruction()) {
 					CreateConstructionVtableBackgroundCmd cmd =
 					new CreateConstructionVtableBackgroundCmd(model, child);
+					cmd.setResolvedDataTypes(resolvedTypes);
 					if (!cmd.applyTo(program, monitor)) {
 						return false;
 					}
 			} else {
 				CreateVtableBackgroundCmd cmd =
 				new CreateVtableBackgroundCmd(model);
+				cmd.setResolvedDataTypes(resolvedTypes);
 				if (!cmd.applyTo(program, monitor)) {
 					return false;
 				}
@@ -108,7 +122,7 @@ public class CreateVttBackgroundCmd extends BackgroundCommand {
 			return true;
 		}
 		try {
-			DemangledObject demangled = DemanglerUtil.demangle(program, PREFIX+child.getTypeName());
+			DemangledObject demangled = DemanglerCache.demangle(program, PREFIX+child.getTypeName());
 			if (!demangled.applyTo(program, vtt.getAddress(), OPTIONS, monitor)) {
 				return false;
 			}
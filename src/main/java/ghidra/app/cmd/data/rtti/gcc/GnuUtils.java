@@ -15,7 +15,6 @@ import ghidra.framework.plugintool.PluginTool;
 import ghidra.program.model.address.Address;
 import ghidra.program.model.mem.*;
 import ghidra.program.model.reloc.Relocation;
-import ghidra.program.model.reloc.RelocationTable;
 import ghidra.program.model.symbol.*;
 import ghidra.program.model.listing.Library;
 import ghidra.program.model.listing.Listing;
@@ -28,6 +27,7 @@ import ghidra.util.task.DummyCancellableTaskMonitor;
 import ghidra.util.task.TaskMonitor;
 
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+import cppclassanalyzer.utils.RelocationIndex;
 
 import static ghidra.app.util.datatype.microsoft.MSDataTypeUtils.getAbsoluteAddress;
 import static ghidra.app.util.demangler.DemanglerUtil.demangle;
@@ -147,9 +147,8 @@ public final class GnuUtils {
 	 * @return true if a function pointer is located at the specified address
 	 */
 	public static boolean isFunctionPointer(Program program, Address address) {
-		RelocationTable table = program.getRelocationTable();
-		if (table.isRelocatable()) {
-			Relocation reloc = table.getRelocation(address);
+		if (program.getRelocationTable().isRelocatable()) {
+			Relocation reloc = RelocationIndex.getRelocation(program, address);
 			if (reloc != null) {
 				String name = reloc.getSymbolName();
 				if (name != null) {
@@ -0,0 +1,192 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.util.*;
+
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.cmd.data.rtti.Vtable;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.address.AddressSet;
+import ghidra.program.model.address.SpecialAddress;
+import ghidra.program.model.data.DataType;
+import ghidra.program.model.data.InvalidDataTypeException;
+import ghidra.program.model.listing.Program;
+import ghidra.program.model.mem.DumbMemBufferImpl;
+import ghidra.program.model.mem.Memory;
+import ghidra.program.model.scalar.Scalar;
+import ghidra.program.model.symbol.*;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.TaskMonitor;
+
+import cppclassanalyzer.scanner.DirectReferenceSweep;
+
+import static ghidra.app.cmd.data.rtti.GnuVtable.PURE_VIRTUAL_FUNCTION_NAME;
+
+/**
+ * Locates the vtables of a group of classes at once.
+ * <p>
+ * The vtable symbols are read with a single symbol table query and the data
+ * references to every typeinfo are collected with a single {@link DirectReferenceSweep}
+ * of the program's memory. Only the references preceded by an offset to top of zero are kept as the
+ * candidate vtables of each class. Finding the vtable of a class is then a lookup
+ * followed by the validation of its candidates.
+ */
+public final class GnuVtableDiscovery {
+
+	private final Program program;
+	private final Map<Namespace, Address> symbols;
+	private final Map<Address, List<Address>> candidates;
+	private final boolean hasPureVirtual;
+
+	private GnuVtableDiscovery(Program program, Map<Namespace, Address> symbols,
+			Map<Address, List<Address>> candidates) {
+		this.program = program;
+		this.symbols = symbols;
+		this.candidates = candidates;
+		this.hasPureVirtual = program.getSymbolTable().getSymbols(
+			PURE_VIRTUAL_FUNCTION_NAME).hasNext();
+	}
+
+	/**
+	 * Collects the candidate vtables of the provided types
+	 * @param program the program containing the types
+	 * @param types the types whose vtables are to be found
+	 * @param monitor the task monitor
+	 * @return the discovered candidates
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public static GnuVtableDiscovery discover(Program program,
+			Collection<? extends ClassTypeInfo> types, TaskMonitor monitor)
+			throws CancelledException {
+		monitor.setMessage("Collecting vtable candidates");
+		AddressSet typeAddresses = new AddressSet();
+		for (ClassTypeInfo type : types) {
+			monitor.checkCanceled();
+			typeAddresses.add(type.getAddress());
+		}
+		Map<Address, List<Address>> candidates = new HashMap<>(types.size());
+		if (!typeAddresses.isEmpty()) {
+			collectReferences(program, typeAddresses, candidates, monitor);
+			collectDirectReferences(program, typeAddresses, candidates, monitor);
+			filterCandidates(program, candidates, monitor);
+		}
+		return new GnuVtableDiscovery(program, getVtableSymbols(program, monitor), candidates);
+	}
+
+	private static Map<Namespace, Address> getVtableSymbols(Program program,
+			TaskMonitor monitor) throws CancelledException {
+		Map<Namespace, Address> symbols = new HashMap<>();
+		for (Symbol symbol : program.getSymbolTable().getSymbols(VtableModel.SYMBOL_NAME)) {
+			monitor.checkCanceled();
+			symbols.putIfAbsent(symbol.getParentNamespace(), symbol.getAddress());
+		}
+		return symbols;
+	}
+
+	private static void collectReferences(Program program, AddressSet typeAddresses,
+			Map<Address, List<Address>> candidates, TaskMonitor monitor)
+			throws CancelledException {
+		ReferenceManager refMan = program.getReferenceManager();
+		for (Address address : typeAddresses.getAddresses(true)) {
+			monitor.checkCanceled();
+			for (Reference ref : refMan.getReferencesTo(address)) {
+				Address from = ref.getFromAddress();
+				if (!(from instanceof SpecialAddress)) {
+					addCandidate(candidates, address, from);
+				}
+			}
+		}
+	}
+
+	private static void collectDirectReferences(Program program, AddressSet typeAddresses,
+			Map<Address, List<Address>> candidates, TaskMonitor monitor)
+			throws CancelledException {
+		List<Address> targets = new ArrayList<>((int) typeAddresses.getNumAddresses());
+		typeAddresses.getAddresses(true).forEach(targets::add);
+		DirectReferenceSweep sweep = new DirectReferenceSweep(program, targets);
+		for (Map.Entry<Address, Set<Address>> entry : sweep.sweep(monitor).entrySet()) {
+			monitor.checkCanceled();
+			for (Address reference : entry.getValue()) {
+				addCandidate(candidates, entry.getKey(), reference);
+			}
+		}
+	}
+
+	private static void addCandidate(Map<Address, List<Address>> candidates, Address type,
+			Address reference) {
+		candidates.computeIfAbsent(type, k -> new ArrayList<>()).add(reference);
+	}
+
+	private static void filterCandidates(Program program,
+			Map<Address, List<Address>> candidates, TaskMonitor monitor)
+			throws CancelledException {
+		Memory mem = program.getMemory();
+		DataType ptrDiff = GnuUtils.getPtrDiff_t(program.getDataTypeManager());
+		Scalar zero = new Scalar(ptrDiff.getLength(), 0);
+		Iterator<List<Address>> it = candidates.values().iterator();
+		while (it.hasNext()) {
+			monitor.checkCanceled();
+			List<Address> references = it.next();
+			references.removeIf(reference -> {
+				Address offsetToTop = reference.subtract(ptrDiff.getLength());
+				DumbMemBufferImpl buf = new DumbMemBufferImpl(mem, offsetToTop);
+				Object value = ptrDiff.getValue(
+					buf, ptrDiff.getDefaultSettings(), ptrDiff.getLength());
+				return !zero.equals(value);
+			});
+			if (references.isEmpty()) {
+				it.remove();
+			} else {
+				// the references are collected from two sources
+				Collections.sort(references);
+				Address previous = null;
+				for (Iterator<Address> refIt = references.iterator(); refIt.hasNext();) {
+					Address reference = refIt.next();
+					if (reference.equals(previous)) {
+						refIt.remove();
+					}
+					previous = reference;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of types with at least one candidate vtable
+	 * @return the number of types with candidates
+	 */
+	public int getCandidateCount() {
+		return candidates.size();
+	}
+
+	/**
+	 * Checks if the program contains __cxa_pure_virtual
+	 * @return true if the pure virtual function is present
+	 */
+	public boolean hasPureVirtualFunction() {
+		return hasPureVirtual;
+	}
+
+	/**
+	 * Finds the vtable of the type
+	 * @param type the type
+	 * @param monitor the task monitor
+	 * @return the type's vtable or {@link Vtable#NO_VTABLE} if none was found
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public Vtable getVtable(ClassTypeInfo type, TaskMonitor monitor) throws CancelledException {
+		Address address = symbols.get(type.getNamespace());
+		if (address != null) {
+			try {
+				return new VtableModel(program, address, type);
+			} catch (InvalidDataTypeException e) {
+				// fallthrough and check the candidates
+			}
+		}
+		List<Address> references = candidates.get(type.getAddress());
+		if (references == null) {
+			return Vtable.NO_VTABLE;
+		}
+		return ClassTypeInfoUtils.getValidVtable(
+			program, references, monitor, type, hasPureVirtual);
+	}
+}
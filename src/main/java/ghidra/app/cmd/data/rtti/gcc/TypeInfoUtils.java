@@ -1,14 +1,16 @@
 package ghidra.app.cmd.data.rtti.gcc;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import ghidra.program.model.listing.Data;
 import cppclassanalyzer.data.TypeInfoManager;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+import cppclassanalyzer.utils.DemanglerCache;
+import cppclassanalyzer.utils.RelocationIndex;
+import cppclassanalyzer.utils.TypeNameCache;
 import util.CollectionUtils;
 
 import ghidra.program.model.address.Address;
@@ -17,9 +19,7 @@ import ghidra.program.model.address.AddressSetView;
 import ghidra.program.model.listing.Program;
 import ghidra.program.model.mem.*;
 import ghidra.program.model.reloc.Relocation;
-import ghidra.program.model.reloc.RelocationTable;
 import ghidra.program.model.symbol.*;
-import ghidra.util.StringUtilities;
 import ghidra.util.exception.AssertException;
 import ghidra.util.exception.CancelledException;
 import ghidra.util.exception.InvalidInputException;
@@ -34,23 +34,22 @@ import ghidra.app.util.NamespaceUtils;
 import ghidra.app.util.datatype.microsoft.MSDataTypeUtils;
 import ghidra.app.util.demangler.Demangled;
 import ghidra.app.util.demangler.DemangledObject;
-import ghidra.app.util.demangler.DemanglerUtil;
-import ghidra.docking.settings.Settings;
 
 public class TypeInfoUtils {
 
-	private static Pattern LAMBDA_PATTERN = Pattern.compile("[\\$\\.]_");
+	// the longest typename which is read before the string is assumed to be invalid
+	private static final int MAX_TYPENAME_LENGTH = 1 << 14;
+	private static final int READ_SIZE = 256;
+
+	private static final ThreadLocal<byte[]> NAME_BUFFER =
+		ThreadLocal.withInitial(() -> new byte[READ_SIZE]);
 
 	private TypeInfoUtils() {
 	}
 
-	private static boolean isValidTypeName(String s) {
-		Matcher matcher = LAMBDA_PATTERN.matcher(s);
-		if (matcher.find()) {
-			// lambda
-			return true;
-		}
-		return s.chars().allMatch(c -> StringUtilities.isValidCLanguageChar((char) c));
+	private static boolean isValidCLanguageChar(byte b) {
+		return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+			|| (b >= '0' && b <= '9') || b == '_';
 	}
 
 	/**
@@ -60,30 +59,62 @@ public class TypeInfoUtils {
 	 * @return the TypeInfo's typename string or "" if invalid
 	 */
 	public static String getTypeName(Program program, Address address) {
+		return TypeNameCache.getCache(program).get(address, a -> readTypeName(program, a));
+	}
+
+	private static String readTypeName(Program program, Address address) {
 		try {
 			int pointerSize = program.getDefaultPointerSize();
 			Address nameAddress = getAbsoluteAddress(program, address.add(pointerSize));
 			if (nameAddress == null) {
 				return "";
 			}
-			DataType dt = TerminatedStringDataType.dataType;
-			Settings settings = dt.getDefaultSettings();
-			MemoryBufferImpl buf = new MemoryBufferImpl(program.getMemory(), nameAddress);
-			StringDataInstance string = new StringDataInstance(dt, settings, buf, -1);
-			if (string.getStringLength() != -1) {
-				string = new StringDataInstance(dt, settings, buf, string.getStringLength());
-				String result = string.getStringValue();
-
-				/*
-				 * Some anonymous namespaces typename strings start with * Unfortunately the *
-				 * causes issues with demangling so exclude it
-				 */
-				result = result.startsWith("*") ? result.substring(1) : result;
-				if (isValidTypeName(result)) {
-					return result;
+			Memory mem = program.getMemory();
+			byte[] bytes = NAME_BUFFER.get();
+			int length = 0;
+			int terminator = -1;
+			while (terminator < 0) {
+				if (length == bytes.length) {
+					if (length >= MAX_TYPENAME_LENGTH) {
+						return "";
+					}
+					bytes = Arrays.copyOf(bytes, length * 2);
+					NAME_BUFFER.set(bytes);
+				}
+				int read = mem.getBytes(
+					nameAddress.add(length), bytes, length, bytes.length - length);
+				for (int i = length; i < length + read; i++) {
+					if (bytes[i] == 0) {
+						terminator = i;
+						break;
+					}
+				}
+				if (terminator < 0 && read < bytes.length - length) {
+					// the string is not terminated within the initialized memory
+					return "";
+				}
+				length += read;
+			}
+
+			/*
+			 * Some anonymous namespaces typename strings start with * Unfortunately the *
+			 * causes issues with demangling so exclude it
+			 */
+			int start = terminator > 0 && bytes[0] == '*' ? 1 : 0;
+			boolean valid = true;
+			for (int i = start; i < terminator; i++) {
+				byte b = bytes[i];
+				if (b == '_' && i > start && (bytes[i - 1] == '$' || bytes[i - 1] == '.')) {
+					// lambda
+					valid = true;
+					break;
 				}
+				valid &= isValidCLanguageChar(b);
+			}
+			if (valid) {
+				return new String(bytes, start, terminator - start, StandardCharsets.US_ASCII);
 			}
-		} catch (AddressOutOfBoundsException e) {
+		} catch (AddressOutOfBoundsException | MemoryAccessException e) {
 			// occured while reading assumed string, not a problem
 		}
 		return "";
@@ -185,8 +216,7 @@ public class TypeInfoUtils {
 	 * @see TypeInfoModel#ID_STRING
 	 */
 	public static String getIDString(Program program, Address address) {
-		RelocationTable table = program.getRelocationTable();
-		Relocation reloc = table.getRelocation(address);
+		Relocation reloc = RelocationIndex.getRelocation(program, address);
 		if (reloc != null && reloc.getSymbolName() != null) {
 			if (reloc.getSymbolName().startsWith(VtableModel.MANGLED_PREFIX)) {
 				return reloc.getSymbolName().substring(VtableModel.MANGLED_PREFIX.length());
@@ -207,7 +237,7 @@ public class TypeInfoUtils {
 			if (relocAddress != null) {
 				Data data = program.getListing().getDataContaining(relocAddress);
 				if (data != null) {
-					reloc = table.getRelocation(data.getAddress());
+					reloc = RelocationIndex.getRelocation(program, data.getAddress());
 					if (reloc != null) {
 						String name = relocationToID(reloc);
 						if (name != null) {
@@ -314,7 +344,7 @@ public class TypeInfoUtils {
 	private static Namespace getFundamentalNamespace(Program program, String typename)
 			throws InvalidInputException {
 		String mangled = typename.startsWith("_ZTI") ? typename : "_ZTI" + typename;
-		Demangled demangled = DemanglerUtil.demangle(program, mangled);
+		Demangled demangled = DemanglerCache.demangle(program, mangled);
 		String signature = demangled.getNamespace().getSignature().replaceAll("_\\[", "[");
 		signature = SymbolUtilities.replaceInvalidChars(signature, true);
 		return NamespaceUtils.createNamespaceHierarchy(
@@ -329,7 +359,7 @@ public class TypeInfoUtils {
 	 */
 	public static Namespace getNamespaceFromTypeName(Program program, String typename) {
 		String mangled = typename.startsWith("_ZTI") ? typename : "_ZTI" + typename;
-		Demangled demangled = DemanglerUtil.demangle(program, mangled);
+		Demangled demangled = DemanglerCache.demangle(program, mangled);
 		if (demangled == null) {
 			throw new AssertException("Failed to demangle " + typename);
 		}
@@ -375,7 +405,7 @@ public class TypeInfoUtils {
 						  id))
 			   .append("Potential typename: ")
 			   .append(getTypeName(program, address));
-		Relocation reloc = program.getRelocationTable().getRelocation(address);
+		Relocation reloc = RelocationIndex.getRelocation(program, address);
 		if (reloc != null) {
 			builder.append(String.format(
 				"\nrelocation at %s to symbol %s", reloc.getAddress(), reloc.getSymbolName()));
@@ -1,7 +1,7 @@
 package ghidra.app.cmd.data.rtti.gcc;
 
 import ghidra.app.util.demangler.Demangled;
-import ghidra.app.util.demangler.DemanglerUtil;
+import cppclassanalyzer.utils.DemanglerCache;
 import ghidra.program.model.address.Address;
 import ghidra.program.model.listing.Program;
 
@@ -33,7 +33,7 @@ public class UnresolvedClassTypeInfoException extends RuntimeException {
 	}
 
 	private static String buildMessage(Program program, String mangled) {
-		Demangled d = DemanglerUtil.demangle(program, mangled);
+		Demangled d = DemanglerCache.demangle(program, mangled);
 		String name = d != null ? d.getNamespaceString() : mangled;
 		return "Unable to locate archived data for " + name;
 	}
@@ -0,0 +1,208 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.util.*;
+
+import ghidra.app.cmd.data.rtti.ClassTypeInfo;
+import ghidra.app.cmd.data.rtti.GnuVtable;
+import ghidra.app.cmd.data.rtti.Vtable;
+import ghidra.app.util.importer.MessageLog;
+import ghidra.docking.settings.SettingsDefinition;
+import ghidra.program.model.address.Address;
+import ghidra.program.model.data.DataType;
+import ghidra.program.model.data.DataTypePath;
+import ghidra.program.model.data.MutabilitySettingsDefinition;
+import ghidra.program.model.listing.*;
+import ghidra.util.exception.CancelledException;
+import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
+import ghidra.util.task.TaskMonitor;
+
+/**
+ * Creates the listing markup of many vtables or VTTs at once.
+ * <p>
+ * The objects are marked up in address order within a single transaction. The vtable
+ * prefix data types are resolved once and shared by every command. The data is marked
+ * as constant and the bookmarks are set after all of the data has been created.
+ */
+public final class VtableMarkupBatch {
+
+	private static final String VTABLE_BOOKMARK = "vtable located";
+	private static final String VTT_BOOKMARK = "vtt located";
+	private static final String CONSTRUCTION_BOOKMARK = "construction vtable located";
+
+	private final Program program;
+	private final boolean createBookmarks;
+	private final Map<DataTypePath, DataType> resolvedTypes = new HashMap<>();
+	private final List<GnuVtable> vtables = new ArrayList<>();
+	private final List<VttEntry> vtts = new ArrayList<>();
+	private final SortedSet<Address> constants = new TreeSet<>();
+	private final SortedMap<Address, String> bookmarks = new TreeMap<>();
+
+	/**
+	 * Constructs a new VtableMarkupBatch
+	 * @param program the program
+	 * @param createBookmarks true if an analysis bookmark should be set for each object
+	 */
+	public VtableMarkupBatch(Program program, boolean createBookmarks) {
+		this.program = program;
+		this.createBookmarks = createBookmarks;
+	}
+
+	/**
+	 * Adds a vtable to be created
+	 * @param vtable the vtable
+	 */
+	public void add(GnuVtable vtable) {
+		if (vtable != Vtable.NO_VTABLE) {
+			vtables.add(vtable);
+		}
+	}
+
+	/**
+	 * Adds a VTT to be created
+	 * @param vtt the VTT
+	 * @param child the class which the VTT belongs to
+	 */
+	public void add(VttModel vtt, ClassTypeInfo child) {
+		vtts.add(new VttEntry(vtt, child));
+	}
+
+	/**
+	 * Gets the number of objects to be created
+	 * @return the number of vtables and VTTs
+	 */
+	public int size() {
+		return vtables.size() + vtts.size();
+	}
+
+	/**
+	 * Creates the markup of every added object
+	 * @param monitor the task monitor
+	 * @param log the message log for the objects which could not be created
+	 * @return the number of objects which were created
+	 * @throws CancelledException if the operation is cancelled
+	 */
+	public int apply(TaskMonitor monitor, MessageLog log) throws CancelledException {
+		vtables.sort(Comparator.comparing(Vtable::getAddress));
+		vtts.sort(Comparator.comparing(entry -> entry.vtt.getAddress()));
+		// the commands only share the cancellation of the monitor
+		TaskMonitor dummy = new CancelOnlyWrappingTaskMonitor(monitor);
+		int count = 0;
+		int id = program.startTransaction("Creating vtables");
+		try {
+			for (GnuVtable vtable : vtables) {
+				monitor.checkCanceled();
+				if (createVtable(vtable, dummy, log)) {
+					count++;
+				}
+				monitor.incrementProgress(1);
+			}
+			for (VttEntry entry : vtts) {
+				monitor.checkCanceled();
+				if (createVtt(entry, dummy, log)) {
+					count++;
+				}
+				monitor.incrementProgress(1);
+			}
+			markDataAsConstant(monitor);
+			setBookmarks(monitor);
+		} finally {
+			program.endTransaction(id, true);
+		}
+		return count;
+	}
+
+	private boolean createVtable(GnuVtable vtable, TaskMonitor monitor, MessageLog log) {
+		try {
+			CreateVtableBackgroundCmd cmd = new CreateVtableBackgroundCmd(vtable);
+			cmd.setResolvedDataTypes(resolvedTypes);
+			if (!cmd.applyTo(program, monitor)) {
+				log.appendMsg("Unable to create vtable for "+vtable.getTypeInfo().getFullName()
+					+": "+cmd.getStatusMsg());
+				return false;
+			}
+			constants.add(vtable.getAddress());
+			addBookmark(vtable.getAddress(), VTABLE_BOOKMARK);
+			if (!vtable.getTypeInfo().isAbstract()) {
+				constants.addAll(Arrays.asList(vtable.getTableAddresses()));
+			}
+			return true;
+		} catch (Exception e) {
+			log.appendMsg("Unable to create vtable for "+vtable.getTypeInfo().getFullName());
+			return false;
+		}
+	}
+
+	private boolean createVtt(VttEntry entry, TaskMonitor monitor, MessageLog log) {
+		try {
+			CreateVttBackgroundCmd cmd = new CreateVttBackgroundCmd(entry.vtt, entry.child);
+			cmd.setResolvedDataTypes(resolvedTypes);
+			if (!cmd.applyTo(program, monitor)) {
+				log.appendMsg("Unable to create VTT at "+entry.vtt.getAddress()
+					+": "+cmd.getStatusMsg());
+				return false;
+			}
+			constants.add(entry.vtt.getAddress());
+			addBookmark(entry.vtt.getAddress(), VTT_BOOKMARK);
+			for (GnuVtable vtable : entry.vtt.getConstructionVtableModels()) {
+				addBookmark(vtable.getAddress(), CONSTRUCTION_BOOKMARK);
+			}
+			return true;
+		} catch (Exception e) {
+			log.appendException(e);
+			return false;
+		}
+	}
+
+	private void addBookmark(Address address, String comment) {
+		if (createBookmarks) {
+			bookmarks.put(address, comment);
+		}
+	}
+
+	private void markDataAsConstant(TaskMonitor monitor) throws CancelledException {
+		Listing listing = program.getListing();
+		for (Address address : constants) {
+			monitor.checkCanceled();
+			Data data = listing.getDataAt(address);
+			if (data != null) {
+				markDataAsConstant(data);
+			}
+		}
+	}
+
+	/**
+	 * Sets the mutability setting of the data to constant
+	 * @param data the data
+	 */
+	public static void markDataAsConstant(Data data) {
+		SettingsDefinition[] settings = data.getDataType().getSettingsDefinitions();
+		for (SettingsDefinition setting : settings) {
+			if (setting instanceof MutabilitySettingsDefinition) {
+				MutabilitySettingsDefinition mutabilitySetting =
+					(MutabilitySettingsDefinition) setting;
+				mutabilitySetting.setChoice(data, MutabilitySettingsDefinition.CONSTANT);
+			}
+		}
+	}
+
+	private void setBookmarks(TaskMonitor monitor) throws CancelledException {
+		BookmarkManager bMan = program.getBookmarkManager();
+		for (Map.Entry<Address, String> bookmark : bookmarks.entrySet()) {
+			monitor.checkCanceled();
+			bMan.setBookmark(
+				bookmark.getKey(), BookmarkType.ANALYSIS,
+				BookmarkType.ANALYSIS, bookmark.getValue());
+		}
+	}
+
+	private static final class VttEntry {
+
+		private final VttModel vtt;
+		private final ClassTypeInfo child;
+
+		VttEntry(VttModel vtt, ClassTypeInfo child) {
+			this.vtt = vtt;
+			this.child = child;
+		}
+	}
+}
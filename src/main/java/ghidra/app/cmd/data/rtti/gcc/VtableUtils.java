@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 
 import cppclassanalyzer.data.ProgramClassTypeInfoManager;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+import cppclassanalyzer.utils.RelocationIndex;
 import util.CollectionUtils;
 
 import ghidra.program.model.address.*;
@@ -267,7 +268,7 @@ public class VtableUtils {
 	private static Address getFunctionAddress(Program program, Address currentAddress) {
 		Address functionAddress = getAbsoluteAddress(program, currentAddress);
 		if (GnuUtils.hasFunctionDescriptors(program) && functionAddress.getOffset() != 0) {
-			Relocation reloc = program.getRelocationTable().getRelocation(currentAddress);
+			Relocation reloc = RelocationIndex.getRelocation(program, currentAddress);
 			if (reloc == null || reloc.getSymbolName() == null) {
 				return getAbsoluteAddress(program, functionAddress);
 			}
@@ -1,5 +1,7 @@
 package ghidra.app.plugin.prototype;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 import ghidra.util.task.CancelOnlyWrappingTaskMonitor;
@@ -7,18 +9,20 @@ import ghidra.util.task.TaskMonitor;
 
 import ghidra.framework.options.Options;
 import ghidra.app.util.importer.MessageLog;
-import ghidra.docking.settings.SettingsDefinition;
 
+import cppclassanalyzer.analysis.DirtyTypeClosure;
 import cppclassanalyzer.data.manager.ItaniumAbiClassTypeInfoManager;
+import cppclassanalyzer.scanner.ItaniumAbiRttiScanner;
 import cppclassanalyzer.scanner.RttiScanner;
 import cppclassanalyzer.service.ClassTypeInfoManagerService;
+import cppclassanalyzer.utils.AnalysisMetrics;
 import cppclassanalyzer.utils.CppClassAnalyzerUtils;
+import cppclassanalyzer.utils.RelocationIndex;
 
 import ghidra.program.model.address.Address;
 import ghidra.program.model.address.AddressSet;
 import ghidra.program.util.ProgramMemoryUtil;
 import ghidra.program.model.mem.Memory;
-import ghidra.program.model.reloc.Relocation;
 import ghidra.program.model.symbol.*;
 import ghidra.app.cmd.data.rtti.gcc.typeinfo.*;
 import ghidra.app.plugin.core.analysis.ReferenceAddressPair;
@@ -52,8 +56,35 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 	private static final String OPTION_BOOKMARKS_DESCRIPTION =
 		"Turn on to create bookmarks at located RTTI metadata";
 
+	private static final String OPTION_SINGLE_PASS_NAME = "Single Pass Reference Scan";
+	private static final boolean OPTION_DEFAULT_SINGLE_PASS = true;
+	private static final String OPTION_SINGLE_PASS_DESCRIPTION =
+		"Turn on to locate the references to every typeinfo vtable with a single sweep\n" +
+		"of the data blocks instead of one sweep per vtable.";
+
+	private static final String OPTION_VALIDATION_THREADS_NAME = "Typeinfo Validation Threads";
+	private static final int OPTION_DEFAULT_VALIDATION_THREADS = 1;
+	private static final String OPTION_VALIDATION_THREADS_DESCRIPTION =
+		"The number of threads used to validate the located typeinfo candidates.";
+
+	private static final String OPTION_INCREMENTAL_NAME = "Incremental Analysis";
+	private static final boolean OPTION_DEFAULT_INCREMENTAL = true;
+	private static final String OPTION_INCREMENTAL_DESCRIPTION =
+		"Turn on to only scan the added addresses when the program has already been analyzed.\n" +
+		"Vtables and VTTs are then only created for the classes located within them.";
+
+	private static final String OPTION_METRICS_NAME = "Write Analysis Metrics";
+	private static final boolean OPTION_DEFAULT_METRICS = false;
+	private static final String OPTION_METRICS_DESCRIPTION =
+		"Turn on to write the phase timings and counts as json to the cppclassanalyzer\n" +
+		"directory of the project, or of the user settings when there is no project.";
+
 	private boolean fundamentalOption;
 	private boolean createBookmarks;
+	private boolean singlePassOption;
+	private int validationThreads;
+	private boolean incrementalOption;
+	private boolean metricsOption;
 
 	// The only one excluded is BaseClassTypeInfoModel
 	private static final List<String> CLASS_TYPESTRINGS = List.of(
@@ -67,9 +98,11 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 	private TaskMonitor monitor;
 	private MessageLog log;
 	private CancelOnlyWrappingTaskMonitor dummy;
-	private Set<Relocation> relocations;
 	private ItaniumAbiClassTypeInfoManager manager;
 	private AddressSet set;
+	private DirtyTypeClosure dirty;
+	private List<Vtable> dirtyVtables;
+	private AnalysisMetrics metrics;
 
 	// if a typename contains this, vftable components index >= 2 point to __cxa_pure_virtual
 	private static final String PURE_VIRTUAL_CONTAINING_STRING = "abstract_base";
@@ -107,8 +140,14 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 			if (this.manager == null) {
 				return false;
 			}
-			try {
+			this.metrics = AnalysisMetrics.getMetrics(program);
+			// shared by the scanner and the vtable and VTT detection
+			try (RelocationIndex index = RelocationIndex.open(program, monitor)) {
 				RttiScanner scanner = RttiScanner.getScanner(program);
+				if (scanner instanceof ItaniumAbiRttiScanner) {
+					((ItaniumAbiRttiScanner) scanner).setSinglePass(singlePassOption);
+					((ItaniumAbiRttiScanner) scanner).setValidationThreads(validationThreads);
+				}
 				if (fundamentalOption) {
 					for (Address addr : scanner.scanFundamentals(log, monitor)) {
 						monitor.checkCanceled();
@@ -116,17 +155,36 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 						applyTypeInfo(type);
 					}
 				}
-				scanner.scan(log, monitor);
-				monitor.initialize(manager.getTypeCount());
+				Iterable<? extends ClassTypeInfo> types = manager.getTypes();
+				int count;
+				try (AnalysisMetrics.Phase phase = metrics.startPhase("rtti scan")) {
+					if (incrementalOption && DirtyTypeClosure.isIncremental(manager, set)) {
+						scanner.scan(set, log, monitor);
+						dirty = DirtyTypeClosure.compute(manager, set, monitor);
+						types = dirty.getTypes();
+						count = dirty.size();
+					} else {
+						scanner.scan(log, monitor);
+						count = manager.getTypeCount();
+					}
+				}
+				monitor.initialize(count);
 				monitor.setMessage("Creating ClassTypeInfo's");
-				for (ClassTypeInfo type : manager.getTypes()) {
-					monitor.checkCanceled();
-					applyTypeInfo(type);
-					this.set.add(type.getAddress());
-					monitor.incrementProgress(1);
+				try (AnalysisMetrics.Phase phase = metrics.startPhase("apply typeinfo")) {
+					for (ClassTypeInfo type : types) {
+						monitor.checkCanceled();
+						applyTypeInfo(type);
+						this.set.add(type.getAddress());
+						monitor.incrementProgress(1);
+					}
+				}
+				try (AnalysisMetrics.Phase phase = metrics.startPhase("create vtables")) {
+					createVtables();
+				}
+				try (AnalysisMetrics.Phase phase = metrics.startPhase("create vtts")) {
+					createVtts();
 				}
-				createVtables();
-				createVtts();
+				publishMetrics();
 				return true;
 			} catch (CancelledException e) {
 				throw e;
@@ -134,14 +192,35 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 				e.printStackTrace();
 				log.appendMsg("Ghidra-Cpp-Class-Analyzer", e.getMessage());
 				return false;
+			} finally {
+				dirty = null;
+				dirtyVtables = null;
 			}
 	}
 
+	@Override
+	public void analysisEnded(Program program) {
+		AnalysisMetrics.getMetrics(program).reset();
+		metrics = null;
+		super.analysisEnded(program);
+	}
+
+	private void publishMetrics() {
+		metrics.publish(log);
+		if (metricsOption) {
+			File file = AnalysisMetrics.getMetricsFile(program);
+			try {
+				metrics.write(file);
+			} catch (IOException e) {
+				log.appendMsg("Ghidra-Cpp-Class-Analyzer",
+					"Unable to write metrics to " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
 	@Override
 	public boolean removed(Program program, AddressSetView set, TaskMonitor monitor, MessageLog log)
 			throws CancelledException {
-		relocations.clear();
-		relocations = null;
 		// this is the default result
 		return false;
 	}
@@ -223,42 +302,24 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 		pureVirtual.setCallingConvention(cc);
 	}
 
-	private void createVtable(GnuVtable vtable) throws Exception {
-		if (vtable == Vtable.NO_VTABLE) {
-			return;
-		}
-		CreateVtableBackgroundCmd vtableCmd = new CreateVtableBackgroundCmd(vtable);
-		vtableCmd.applyTo(program, dummy);
-		markDataAsConstant(vtable.getAddress());
-		if (createBookmarks) {
-			bMan.setBookmark(
-				vtable.getAddress(), BookmarkType.ANALYSIS,
-				BookmarkType.ANALYSIS, "vtable located");
-		}
-		if (!vtable.getTypeInfo().isAbstract()) {
-			for (Address tableAddress : vtable.getTableAddresses()) {
-				markDataAsConstant(tableAddress);
-			}
-		}
-	}
-
 	public final void markDataAsConstant(Address address) {
 		Data data = program.getListing().getDataAt(address);
 		if (data == null) {
 			return;
 		}
-		SettingsDefinition[] settings = data.getDataType().getSettingsDefinitions();
-		for (SettingsDefinition setting : settings) {
-			if (setting instanceof MutabilitySettingsDefinition) {
-				MutabilitySettingsDefinition mutabilitySetting =
-					(MutabilitySettingsDefinition) setting;
-				mutabilitySetting.setChoice(data, MutabilitySettingsDefinition.CONSTANT);
-			}
-		}
+		VtableMarkupBatch.markDataAsConstant(data);
+	}
+
+	private Iterable<Vtable> getVtables() {
+		return dirtyVtables != null ? dirtyVtables : manager.getVtables();
+	}
+
+	private int getVtableCount() {
+		return dirtyVtables != null ? dirtyVtables.size() : manager.getVtableCount();
 	}
 
 	private void createVtts() throws Exception {
-		for (Vtable vtable : manager.getVtables()) {
+		for (Vtable vtable : getVtables()) {
 			for (Address addr : vtable.getTableAddresses()) {
 				set.add(addr);
 			}
@@ -266,42 +327,30 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 		monitor.setMessage("Creating Vtable References");
 		addReferences(set);
 		set.clear();
-		monitor.initialize(manager.getVtableCount());
+		monitor.initialize(getVtableCount());
 		monitor.setMessage("Locating VTTs");
-		for (Vtable vtable : manager.getVtables()) {
+		VtableMarkupBatch batch = new VtableMarkupBatch(program, createBookmarks);
+		for (Vtable vtable : getVtables()) {
 			monitor.checkCanceled();
 			try {
-				locateVTT((GnuVtable) vtable);
+				locateVTT((GnuVtable) vtable, batch);
 			} catch (Exception e) {
 				log.appendException(e);
 			}
 			monitor.incrementProgress(1);
 		}
+		monitor.initialize(batch.size());
+		monitor.setMessage("Creating VTTs");
+		int count = batch.apply(monitor, log);
+		metrics.add(AnalysisMetrics.VTTS_CREATED, count);
 	}
 
-	private void locateVTT(GnuVtable vtable) throws Exception {
+	private void locateVTT(GnuVtable vtable, VtableMarkupBatch batch) throws Exception {
 		ClassTypeInfo type = vtable.getTypeInfo();
 		if (!CLASS_TYPESTRINGS.contains(type.getTypeName())) {
 			VttModel vtt = VtableUtils.getVttModel(program, vtable);
 			if (vtt.isValid()) {
-				createVtt(type, vtt);
-			}
-		}
-	}
-
-	private void createVtt(ClassTypeInfo type, VttModel vtt) {
-		CreateVttBackgroundCmd cmd =
-			new CreateVttBackgroundCmd(vtt, type);
-		cmd.applyTo(program, dummy);
-		markDataAsConstant(vtt.getAddress());
-		if (createBookmarks) {
-			bMan.setBookmark(
-				vtt.getAddress(), BookmarkType.ANALYSIS,
-				BookmarkType.ANALYSIS, "vtt located");
-			for (GnuVtable vtable : vtt.getConstructionVtableModels()) {
-				bMan.setBookmark(
-					vtable.getAddress(), BookmarkType.ANALYSIS,
-					BookmarkType.ANALYSIS, "construction vtable located");
+				batch.add(vtt, type);
 			}
 		}
 	}
@@ -311,18 +360,21 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 		monitor.setMessage("Creating ClassTypeInfo References");
 		addReferences(set);
 		set.clear();
-		manager.findVtables(monitor, log);
-		monitor.initialize(manager.getVtableCount());
-		monitor.setMessage("Creating vtables");
-		for (Vtable vtable : manager.getVtables()) {
+		if (dirty != null) {
+			manager.findVtables(dirty.getTypes(), monitor, log);
+			dirtyVtables = dirty.getVtables();
+		} else {
+			manager.findVtables(monitor, log);
+		}
+		VtableMarkupBatch batch = new VtableMarkupBatch(program, createBookmarks);
+		for (Vtable vtable : getVtables()) {
 			monitor.checkCanceled();
-			try {
-				createVtable((GnuVtable) vtable);
-			} catch (Exception e) {
-				log.appendMsg("Unable to create vtable for "+vtable.getTypeInfo().getFullName());
-			}
-			monitor.incrementProgress(1);
+			batch.add((GnuVtable) vtable);
 		}
+		monitor.initialize(batch.size());
+		monitor.setMessage("Creating vtables");
+		int count = batch.apply(monitor, log);
+		metrics.add(AnalysisMetrics.VTABLES_CREATED, count);
 	}
 
 	private void applyTypeInfo(TypeInfo type) {
@@ -348,9 +400,25 @@ public class GccRttiAnalyzer extends AbstractAnalyzer {
 			OPTION_FUNDAMENTAL_DESCRIPTION);
 		options.registerOption(OPTION_BOOKMARKS_NAME, OPTION_DEFAULT_BOOKMARKS, null,
 			OPTION_BOOKMARKS_DESCRIPTION);
+		options.registerOption(OPTION_SINGLE_PASS_NAME, OPTION_DEFAULT_SINGLE_PASS, null,
+			OPTION_SINGLE_PASS_DESCRIPTION);
+		options.registerOption(OPTION_VALIDATION_THREADS_NAME, OPTION_DEFAULT_VALIDATION_THREADS,
+			null, OPTION_VALIDATION_THREADS_DESCRIPTION);
+		options.registerOption(OPTION_INCREMENTAL_NAME, OPTION_DEFAULT_INCREMENTAL, null,
+			OPTION_INCREMENTAL_DESCRIPTION);
+		options.registerOption(OPTION_METRICS_NAME, OPTION_DEFAULT_METRICS, null,
+			OPTION_METRICS_DESCRIPTION);
 		fundamentalOption =
 			options.getBoolean(OPTION_FUNDAMENTAL_NAME, OPTION_DEFAULT_FUNDAMENTAL);
 		createBookmarks =
 			options.getBoolean(OPTION_BOOKMARKS_NAME, OPTION_DEFAULT_BOOKMARKS);
+		singlePassOption =
+			options.getBoolean(OPTION_SINGLE_PASS_NAME, OPTION_DEFAULT_SINGLE_PASS);
+		validationThreads =
+			options.getInt(OPTION_VALIDATION_THREADS_NAME, OPTION_DEFAULT_VALIDATION_THREADS);
+		incrementalOption =
+			options.getBoolean(OPTION_INCREMENTAL_NAME, OPTION_DEFAULT_INCREMENTAL);
+		metricsOption =
+			options.getBoolean(OPTION_METRICS_NAME, OPTION_DEFAULT_METRICS);
 	}
 }
@@ -0,0 +1,140 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import cppclassanalyzer.database.record.ArrayCodec;
+
+import static org.junit.Assert.*;
+
+public class ArrayCodecTest {
+
+	private static final long[][] LONG_ARRAYS = {
+		{},
+		{ 0 },
+		{ -1 },
+		{ Long.MIN_VALUE },
+		{ Long.MAX_VALUE },
+		{ Long.MIN_VALUE, Long.MAX_VALUE },
+		{ Long.MAX_VALUE, Long.MIN_VALUE },
+		{ Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE },
+		{ -5, -4, -3, 100, 1000 },
+		{ 3, -64, 63, -65, 64 },
+		{ 0x10000000, 0x10000008, 0x10000010, 0x10000018 },
+		{ 0x7f00000000000000L, -0x7f00000000000000L, 0x7f00000000000001L },
+		{ 7, 7, 7, 7 }
+	};
+
+	private static final int[][] INT_ARRAYS = {
+		{},
+		{ 0 },
+		{ -1 },
+		{ Integer.MIN_VALUE },
+		{ Integer.MAX_VALUE },
+		{ Integer.MIN_VALUE, Integer.MAX_VALUE },
+		{ Integer.MAX_VALUE, Integer.MIN_VALUE },
+		{ -8, 0, 8, 16, 24 },
+		{ 0x7f000000, -0x7f000000, 0x7f000001 }
+	};
+
+	private static ByteBuffer encode(long[] values) {
+		int size = ArrayCodec.getSize(values);
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		ArrayCodec.putLongArray(buf, values);
+		assertEquals("encoded size", size, buf.position());
+		buf.flip();
+		return buf;
+	}
+
+	private static ByteBuffer encode(int[] values) {
+		int size = ArrayCodec.getSize(values);
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		ArrayCodec.putIntArray(buf, values);
+		assertEquals("encoded size", size, buf.position());
+		buf.flip();
+		return buf;
+	}
+
+	@Test
+	public void longRoundTripTest() {
+		for (long[] values : LONG_ARRAYS) {
+			ByteBuffer buf = encode(values);
+			assertArrayEquals(values, ArrayCodec.getLongArray(buf));
+			assertFalse(buf.hasRemaining());
+		}
+	}
+
+	@Test
+	public void intRoundTripTest() {
+		for (int[] values : INT_ARRAYS) {
+			ByteBuffer buf = encode(values);
+			assertArrayEquals(values, ArrayCodec.getIntArray(buf));
+			assertFalse(buf.hasRemaining());
+		}
+	}
+
+	@Test
+	public void consecutiveArraysTest() {
+		int size = 0;
+		for (long[] values : LONG_ARRAYS) {
+			size += ArrayCodec.getSize(values);
+		}
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		for (long[] values : LONG_ARRAYS) {
+			ArrayCodec.putLongArray(buf, values);
+		}
+		buf.flip();
+		for (long[] values : LONG_ARRAYS) {
+			assertArrayEquals(values, ArrayCodec.getLongArray(buf));
+		}
+		assertFalse(buf.hasRemaining());
+	}
+
+	@Test
+	public void emptyArrayTest() {
+		assertEquals(1, ArrayCodec.getSize(new long[0]));
+		assertEquals(1, ArrayCodec.getSize(new int[0]));
+		assertEquals(0, encode(new long[0]).get());
+	}
+
+	@Test
+	public void compactEncodingTest() {
+		// small and ascending values must be smaller than their fixed width encoding
+		assertTrue(ArrayCodec.getSize(new long[] { -1, 0, 1 }) < 3 * Long.BYTES);
+		assertTrue(ArrayCodec.getSize(LONG_ARRAYS[10]) < 4 * Long.BYTES);
+		// the fixed width encoding bounds the size of values which do not compress
+		long[] values = { Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+		assertTrue(ArrayCodec.getSize(values) <= 1 + values.length * Long.BYTES);
+	}
+
+	@Test
+	public void fixedArrayTest() {
+		long[] values = { Long.MIN_VALUE, -1, Long.MAX_VALUE };
+		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + values.length * Long.BYTES);
+		buf.putInt(values.length);
+		for (long value : values) {
+			buf.putLong(value);
+		}
+		buf.flip();
+		assertArrayEquals(values, ArrayCodec.getFixedLongArray(buf));
+		// a missing trailing array is empty
+		assertArrayEquals(new long[0], ArrayCodec.getFixedLongArray(buf));
+		assertArrayEquals(new int[0], ArrayCodec.getFixedIntArray(buf));
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void truncatedArrayTest() {
+		ByteBuffer buf = encode(new long[] { Long.MIN_VALUE, Long.MAX_VALUE });
+		buf.limit(buf.limit() - 1);
+		ArrayCodec.getLongArray(buf);
+	}
+
+	@Test(expected = BufferUnderflowException.class)
+	public void invalidLengthTest() {
+		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+		buf.putInt(2).putLong(0).flip();
+		ArrayCodec.getFixedLongArray(buf);
+	}
+}
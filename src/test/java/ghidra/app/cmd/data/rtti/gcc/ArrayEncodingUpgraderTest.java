@@ -0,0 +1,187 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cppclassanalyzer.data.manager.tables.ArrayEncodingUpgrader;
+import cppclassanalyzer.data.typeinfo.AbstractClassTypeInfoDB.TypeId;
+import cppclassanalyzer.database.record.ArrayCodec;
+import cppclassanalyzer.database.schema.ClassTypeInfoSchema;
+import cppclassanalyzer.database.schema.VtableSchema;
+import cppclassanalyzer.database.schema.fields.ClassTypeInfoSchemaFields;
+import cppclassanalyzer.database.schema.fields.VtableSchemaFields;
+import db.*;
+
+import static org.junit.Assert.*;
+
+public class ArrayEncodingUpgraderTest {
+
+	private static final String CLASS_TABLE = "ClassTypeInfo Table";
+	private static final String VTABLE_TABLE = "Vtable Table";
+
+	private static final Schema CLASS_SCHEMA_V0 = new Schema(0, "Key",
+		ClassTypeInfoSchemaFields.getFields(), ClassTypeInfoSchemaFields.getFieldNames());
+	private static final Schema VTABLE_SCHEMA_V0 = new Schema(0, "Key",
+		VtableSchemaFields.getFields(), VtableSchemaFields.getFieldNames());
+
+	private static final int TYPEINFO_ID = ClassTypeInfoSchemaFields.TYPEINFO_ID.ordinal();
+	private static final int MODEL_DATA = ClassTypeInfoSchemaFields.MODEL_DATA.ordinal();
+	private static final int VTABLE_CLASS = VtableSchemaFields.CLASS.ordinal();
+	private static final int VTABLE_RECORDS = VtableSchemaFields.RECORDS.ordinal();
+
+	private static final long[] BASE_KEYS = { 1, 2, 3 };
+	private static final long[] NON_VIRTUAL_KEYS = { Long.MIN_VALUE, 0 };
+	private static final long[] VIRTUAL_KEYS = {};
+	private static final int[] OFFSETS = { -16, 0, Integer.MAX_VALUE };
+	private static final byte[] TRAILING = { 1, 2, 3, 4, 5 };
+
+	private static final long TABLE_ADDRESS = 0x401000;
+	private static final long[] OFFSET_ARRAY = { -16, -8 };
+	private static final long[] FUNCTIONS = { 0x402000, 0x402010, Long.MAX_VALUE };
+
+	private DBHandle handle;
+
+	@Before
+	public void setUp() throws Exception {
+		handle = new DBHandle();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		handle.close();
+	}
+
+	private static void putFixed(ByteArrayOutputStream out, long[] values) {
+		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + values.length * Long.BYTES);
+		buf.putInt(values.length);
+		for (long value : values) {
+			buf.putLong(value);
+		}
+		out.write(buf.array(), 0, buf.position());
+	}
+
+	private static void putFixed(ByteArrayOutputStream out, int[] values) {
+		ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + values.length * Integer.BYTES);
+		buf.putInt(values.length);
+		for (int value : values) {
+			buf.putInt(value);
+		}
+		out.write(buf.array(), 0, buf.position());
+	}
+
+	private static byte[] getV0ModelData() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		putFixed(out, BASE_KEYS);
+		putFixed(out, NON_VIRTUAL_KEYS);
+		putFixed(out, VIRTUAL_KEYS);
+		putFixed(out, OFFSETS);
+		out.write(TRAILING, 0, TRAILING.length);
+		return out.toByteArray();
+	}
+
+	private static byte[] getV0VtableData(boolean vftable) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+		header.putInt(1).putLong(TABLE_ADDRESS);
+		out.write(header.array(), 0, header.position());
+		if (!vftable) {
+			putFixed(out, OFFSET_ARRAY);
+		}
+		putFixed(out, FUNCTIONS);
+		return out.toByteArray();
+	}
+
+	private Table createClassTable() throws Exception {
+		Table table = handle.createTable(CLASS_TABLE, CLASS_SCHEMA_V0);
+		db.Record record = CLASS_SCHEMA_V0.createRecord(0);
+		record.setByteValue(TYPEINFO_ID, (byte) TypeId.VMI_CLASS.ordinal());
+		record.setBinaryData(MODEL_DATA, getV0ModelData());
+		table.putRecord(record);
+		return table;
+	}
+
+	private Table createVtableTable(boolean vftable) throws Exception {
+		Table table = handle.createTable(VTABLE_TABLE, VTABLE_SCHEMA_V0);
+		db.Record record = VTABLE_SCHEMA_V0.createRecord(0);
+		// the vtable does not belong to any type
+		record.setLongValue(VTABLE_CLASS, -1);
+		record.setBinaryData(VTABLE_RECORDS, getV0VtableData(vftable));
+		table.putRecord(record);
+		return table;
+	}
+
+	private Table upgradeVtableTable(boolean vftable) throws Exception {
+		long id = handle.startTransaction();
+		try {
+			Table table = createVtableTable(vftable);
+			return ArrayEncodingUpgrader.upgradeVtableTable(handle, table, vftable);
+		} finally {
+			handle.endTransaction(id, true);
+		}
+	}
+
+	private static void checkVtableData(Table table, boolean vftable) throws Exception {
+		assertEquals(VtableSchema.SCHEMA.getVersion(), table.getSchema().getVersion());
+		db.Record record = table.getRecord(0);
+		assertEquals(-1, record.getLongValue(VTABLE_CLASS));
+		ByteBuffer buf = ByteBuffer.wrap(record.getBinaryData(VTABLE_RECORDS));
+		assertEquals(1, buf.getInt());
+		assertEquals(TABLE_ADDRESS, buf.getLong());
+		if (!vftable) {
+			assertArrayEquals(OFFSET_ARRAY, ArrayCodec.getLongArray(buf));
+		}
+		assertArrayEquals(FUNCTIONS, ArrayCodec.getLongArray(buf));
+		assertFalse(buf.hasRemaining());
+	}
+
+	@Test
+	public void classTableUpgradeTest() throws Exception {
+		Table table;
+		long id = handle.startTransaction();
+		try {
+			table = ArrayEncodingUpgrader.upgradeClassTable(handle, createClassTable());
+		} finally {
+			handle.endTransaction(id, true);
+		}
+		assertEquals(ClassTypeInfoSchema.SCHEMA.getVersion(), table.getSchema().getVersion());
+		assertEquals(CLASS_TABLE, table.getName());
+		assertNull(handle.getTable(CLASS_TABLE + " v0"));
+		db.Record record = table.getRecord(0);
+		assertEquals(TypeId.VMI_CLASS.ordinal(), record.getByteValue(TYPEINFO_ID));
+		ByteBuffer buf = ByteBuffer.wrap(record.getBinaryData(MODEL_DATA));
+		assertArrayEquals(BASE_KEYS, ArrayCodec.getLongArray(buf));
+		assertArrayEquals(NON_VIRTUAL_KEYS, ArrayCodec.getLongArray(buf));
+		assertArrayEquals(VIRTUAL_KEYS, ArrayCodec.getLongArray(buf));
+		assertArrayEquals(OFFSETS, ArrayCodec.getIntArray(buf));
+		byte[] trailing = new byte[buf.remaining()];
+		buf.get(trailing);
+		assertArrayEquals(TRAILING, trailing);
+	}
+
+	@Test
+	public void vtableTableUpgradeTest() throws Exception {
+		checkVtableData(upgradeVtableTable(false), false);
+	}
+
+	@Test
+	public void vftableTableUpgradeTest() throws Exception {
+		// the layout comes from the abi and not from the missing type record
+		checkVtableData(upgradeVtableTable(true), true);
+	}
+
+	@Test
+	public void currentTableTest() throws Exception {
+		long id = handle.startTransaction();
+		try {
+			Table table = handle.createTable(VTABLE_TABLE, VtableSchema.SCHEMA);
+			assertSame(table, ArrayEncodingUpgrader.upgradeVtableTable(handle, table, false));
+			assertNull(ArrayEncodingUpgrader.upgradeClassTable(handle, null));
+		} finally {
+			handle.endTransaction(id, true);
+		}
+	}
+}
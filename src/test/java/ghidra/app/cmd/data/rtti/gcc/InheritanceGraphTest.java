@@ -0,0 +1,128 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import cppclassanalyzer.data.manager.caches.InheritanceGraph;
+
+import static org.junit.Assert.*;
+
+public class InheritanceGraphTest {
+
+	private static final long[] NONE = {};
+
+	// A <- B, A <- C, (B, C) <- D
+	private static final long A = 1;
+	private static final long B = 2;
+	private static final long C = 3;
+	private static final long D = 4;
+
+	// virtual A <- E, (B, E) <- F
+	private static final long E = 5;
+	private static final long F = 6;
+
+	// the parent of G was never resolved
+	private static final long G = 7;
+	private static final long MISSING = 99;
+
+	// keys deliberately out of order
+	private static final long[] KEYS = { F, D, A, G, C, E, B };
+	private static final long[][] PARENTS = {
+		{ B, E },
+		{ B, C },
+		NONE,
+		{ MISSING },
+		{ A },
+		{ A },
+		{ A }
+	};
+
+	private static InheritanceGraph getGraph() {
+		return InheritanceGraph.build(KEYS, PARENTS);
+	}
+
+	private static int indexOf(long[] keys, long key) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == key) {
+				return i;
+			}
+		}
+		fail("Key " + key + " is missing");
+		return -1;
+	}
+
+	@Test
+	public void diamondTest() {
+		InheritanceGraph graph = getGraph();
+		assertArrayEquals(new long[] { B, C }, graph.getParents(D));
+		assertArrayEquals(new long[] { A, B, C }, graph.getAncestors(D));
+		assertTrue(graph.isDerivedFrom(D, A));
+		assertTrue(graph.isParent(D, B));
+		assertFalse(graph.isParent(D, A));
+		assertFalse(graph.isDerivedFrom(A, D));
+		assertArrayEquals(new long[] { B, C, E }, graph.getChildren(A));
+		assertArrayEquals(new long[] { B, C, D, E, F }, graph.getDescendants(A));
+	}
+
+	@Test
+	public void virtualBaseTest() {
+		InheritanceGraph graph = getGraph();
+		// the shared virtual base is only reported once
+		assertArrayEquals(new long[] { A, B, E }, graph.getAncestors(F));
+		assertTrue(graph.isDerivedFrom(F, A));
+		assertArrayEquals(new long[] { D, F }, graph.getDescendants(B));
+		assertArrayEquals(new long[] { F }, graph.getDescendants(E));
+		// the closure of a parent computed first is reused
+		assertArrayEquals(new long[] { A }, graph.getAncestors(E));
+		assertArrayEquals(new long[] { A, B, E }, graph.getAncestors(F));
+	}
+
+	@Test
+	public void inheritanceOrderTest() {
+		InheritanceGraph graph = getGraph();
+		long[] order = graph.getInheritanceOrder();
+		long[] sorted = order.clone();
+		Arrays.sort(sorted);
+		long[] keys = KEYS.clone();
+		Arrays.sort(keys);
+		assertArrayEquals(keys, sorted);
+		for (long key : KEYS) {
+			int index = indexOf(order, key);
+			for (long parent : graph.getParents(key)) {
+				assertTrue(parent + " must precede " + key, indexOf(order, parent) < index);
+			}
+		}
+		// the returned order is a copy
+		order[0] = MISSING;
+		assertNotEquals(MISSING, graph.getInheritanceOrder()[0]);
+	}
+
+	@Test
+	public void missingParentTest() {
+		InheritanceGraph graph = getGraph();
+		assertEquals(KEYS.length, graph.size());
+		assertTrue(graph.contains(G));
+		assertFalse(graph.contains(MISSING));
+		assertArrayEquals(NONE, graph.getParents(G));
+		assertArrayEquals(NONE, graph.getAncestors(G));
+		assertFalse(graph.isDerivedFrom(G, MISSING));
+		assertArrayEquals(NONE, graph.getParents(MISSING));
+		assertArrayEquals(NONE, graph.getDescendants(MISSING));
+	}
+
+	@Test
+	public void cycleTest() {
+		long x = 10;
+		long y = 11;
+		long z = 12;
+		InheritanceGraph graph = InheritanceGraph.build(
+			new long[] { z, y, x, A },
+			new long[][] { { y }, { x }, { y }, NONE });
+		assertArrayEquals(new long[] { x, y }, graph.getAncestors(x));
+		assertTrue(graph.isDerivedFrom(x, x));
+		assertArrayEquals(new long[] { x, y }, graph.getAncestors(z));
+		// the acyclic types come first and the cycle is appended in key order
+		assertArrayEquals(new long[] { A, x, y, z }, graph.getInheritanceOrder());
+	}
+}
@@ -0,0 +1,153 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import ghidra.util.task.TaskMonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cppclassanalyzer.database.mapped.MappedRttiArchive;
+import cppclassanalyzer.database.mapped.MappedRttiArchiveWriter;
+import db.*;
+
+import static org.junit.Assert.*;
+
+public class MappedRttiArchiveTest {
+
+	private static final Schema SCHEMA = new Schema(
+		0,
+		"Key",
+		new Class<?>[] { StringField.class },
+		new String[] { "MangledSymbol" });
+
+	// the non ascii symbol sorts before the others when compared as signed bytes
+	private static final String[] LIB0_TYPES = {
+		"_ZTIN3foo3barE", "_ZTI3foo", "_ZTI3fo", "_ZTI\u00e9t\u00e9", "_ZTIa"
+	};
+	private static final String[] LIB0_VTABLES = { "_ZTV3foo", "_ZTI3foo" };
+	private static final String[] LIB1_TYPES = { "_ZTI3foo", "_ZTIb", null };
+	private static final String[] LIB1_VTABLES = { "_ZTV3foo" };
+
+	private DBHandle handle;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		handle = new DBHandle();
+		file = File.createTempFile("mapped", "." + MappedRttiArchive.EXTENSION);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		handle.close();
+		file.delete();
+	}
+
+	private Table createTable(String name, String[] symbols) throws Exception {
+		Table table = handle.createTable(name, SCHEMA);
+		for (int i = 0; i < symbols.length; i++) {
+			db.Record record = SCHEMA.createRecord(i);
+			record.setString(0, symbols[i]);
+			table.putRecord(record);
+		}
+		return table;
+	}
+
+	private MappedRttiArchive writeArchive() throws Exception {
+		long id = handle.startTransaction();
+		try {
+			MappedRttiArchiveWriter writer = new MappedRttiArchiveWriter("project");
+			writer.addLibrary("lib0", createTable("types0", LIB0_TYPES), 0,
+				createTable("vtables0", LIB0_VTABLES), 0, TaskMonitor.DUMMY);
+			writer.addLibrary("lib1", createTable("types1", LIB1_TYPES), 0,
+				createTable("vtables1", LIB1_VTABLES), 0, TaskMonitor.DUMMY);
+			writer.write(file);
+		} finally {
+			handle.endTransaction(id, true);
+		}
+		return MappedRttiArchive.open(file);
+	}
+
+	private static List<Long> getExpected(String[] symbols, String symbol) {
+		List<Long> keys = new ArrayList<>();
+		for (int i = 0; i < symbols.length; i++) {
+			if (symbol.equals(symbols[i])) {
+				keys.add((long) i);
+			}
+		}
+		return keys;
+	}
+
+	private static void checkSymbol(MappedRttiArchive archive, String symbol, boolean vtable) {
+		List<Long> lib0 = getExpected(vtable ? LIB0_VTABLES : LIB0_TYPES, symbol);
+		List<Long> lib1 = getExpected(vtable ? LIB1_VTABLES : LIB1_TYPES, symbol);
+		int entry = archive.find(symbol, vtable);
+		if (lib0.isEmpty() && lib1.isEmpty()) {
+			assertEquals(symbol, -1, entry);
+			return;
+		}
+		List<Long> found0 = new ArrayList<>();
+		List<Long> found1 = new ArrayList<>();
+		int previousLibrary = -1;
+		for (; entry != -1; entry = archive.next(entry)) {
+			assertEquals(symbol, archive.getSymbolName(entry));
+			assertEquals(vtable, archive.isVtable(entry));
+			int library = archive.getLibrary(entry);
+			assertTrue("libraries out of order", library >= previousLibrary);
+			previousLibrary = library;
+			(library == 0 ? found0 : found1).add(archive.getKey(entry));
+		}
+		assertEquals(lib0, found0);
+		assertEquals(lib1, found1);
+	}
+
+	@Test
+	public void roundTripTest() throws Exception {
+		MappedRttiArchive archive = writeArchive();
+		assertEquals("project", archive.getProjectName());
+		assertEquals(2, archive.getLibraryCount());
+		assertEquals("lib0", archive.getLibraryName(0));
+		assertEquals("lib1", archive.getLibraryName(1));
+		assertEquals(LIB0_TYPES.length, archive.getTypeCount(0));
+		assertEquals(LIB1_VTABLES.length, archive.getVtableCount(1));
+		// the null symbol is not exported
+		int expected = LIB0_TYPES.length + LIB0_VTABLES.length + 2 + LIB1_VTABLES.length;
+		assertEquals(expected, archive.getEntryCount());
+		Set<String> symbols = new HashSet<>();
+		for (String[] table : List.of(LIB0_TYPES, LIB0_VTABLES, LIB1_TYPES, LIB1_VTABLES)) {
+			for (String symbol : table) {
+				if (symbol != null) {
+					symbols.add(symbol);
+				}
+			}
+		}
+		for (String symbol : symbols) {
+			checkSymbol(archive, symbol, false);
+			checkSymbol(archive, symbol, true);
+		}
+		checkSymbol(archive, "_ZTI", false);
+		checkSymbol(archive, "_ZTI3foo3", false);
+		checkSymbol(archive, "_ZTIzzz", true);
+	}
+
+	@Test
+	public void sortOrderTest() throws Exception {
+		MappedRttiArchive archive = writeArchive();
+		for (int i = 1; i < archive.getEntryCount(); i++) {
+			byte[] a = archive.getSymbolName(i - 1).getBytes(StandardCharsets.UTF_8);
+			byte[] b = archive.getSymbolName(i).getBytes(StandardCharsets.UTF_8);
+			int result = Arrays.compareUnsigned(a, b);
+			if (result == 0) {
+				result = Boolean.compare(archive.isVtable(i - 1), archive.isVtable(i));
+			}
+			if (result == 0) {
+				result = Integer.compare(archive.getLibrary(i - 1), archive.getLibrary(i));
+			}
+			assertTrue("entries " + (i - 1) + " and " + i + " are out of order", result <= 0);
+		}
+	}
+}
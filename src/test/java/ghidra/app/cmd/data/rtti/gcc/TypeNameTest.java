@@ -0,0 +1,129 @@
+package ghidra.app.cmd.data.rtti.gcc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ghidra.program.model.address.Address;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TypeNameTest extends X86GccRttiTest {
+
+	private static final long POINTER_BASE = 0x00700000L;
+	private static final int POINTER_BLOCK_SIZE = 0x100;
+	private static final long NAME_BASE = 0x00710000L;
+	private static final int NAME_BLOCK_SIZE = 0x1000;
+
+	// the number of bytes read at a time by TypeInfoUtils
+	private static final int READ_SIZE = 256;
+
+	private int typeCount;
+	private long nameOffset;
+
+	@Override
+	protected void initialize() throws Exception {
+		super.initialize();
+		builder.createMemory(".data.typename", Long.toHexString(POINTER_BASE), POINTER_BLOCK_SIZE);
+		builder.createMemory(".rodata.typename", Long.toHexString(NAME_BASE), NAME_BLOCK_SIZE);
+		typeCount = 0;
+		nameOffset = NAME_BASE;
+	}
+
+	private static byte[] terminated(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		return Arrays.copyOf(bytes, bytes.length + 1);
+	}
+
+	private static String getName(char c, int length) {
+		char[] chars = new char[length];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private String getTypeName(long nameAddress, byte[] name) throws Exception {
+		builder.setBytes(builder.addr(nameAddress).toString(), name);
+		// the typename pointer follows the vtable pointer
+		Address address = builder.addr(POINTER_BASE + 2L * Long.BYTES * typeCount++);
+		byte[] pointer = ByteBuffer.allocate(Long.BYTES)
+			.order(ByteOrder.LITTLE_ENDIAN)
+			.putLong(nameAddress)
+			.array();
+		builder.setBytes(address.add(Long.BYTES).toString(), pointer);
+		return TypeInfoUtils.getTypeName(program, address);
+	}
+
+	private String getTypeName(byte[] name) throws Exception {
+		long address = nameOffset;
+		nameOffset += name.length;
+		return getTypeName(address, name);
+	}
+
+	private String getTypeName(String name) throws Exception {
+		return getTypeName(terminated(name));
+	}
+
+	@Test
+	public void validNameTest() throws Exception {
+		initialize();
+		assertEquals("N3foo3barE", getTypeName("N3foo3barE"));
+		assertEquals("", getTypeName(""));
+		assertEquals("", getTypeName("N3foo-3barE"));
+	}
+
+	@Test
+	public void anonymousNamespaceTest() throws Exception {
+		initialize();
+		// the leading * is excluded since it breaks the demangler
+		assertEquals("N12_GLOBAL__N_11AE", getTypeName("*N12_GLOBAL__N_11AE"));
+		assertEquals("", getTypeName("*"));
+		assertEquals("", getTypeName("**N3fooE"));
+	}
+
+	@Test
+	public void lambdaTest() throws Exception {
+		initialize();
+		assertEquals("Z4mainEUlvE_$_0", getTypeName("Z4mainEUlvE_$_0"));
+		assertEquals("Z4mainE3._0", getTypeName("Z4mainE3._0"));
+		// the marker validates the name regardless of the characters around it
+		assertEquals("Z4main-E$_0", getTypeName("Z4main-E$_0"));
+		assertEquals("Z4mainE._0-", getTypeName("Z4mainE._0-"));
+		assertEquals("*Z4mainE$_0", getTypeName("**Z4mainE$_0"));
+		// a marker character without the underscore is invalid
+		assertEquals("", getTypeName("Z4mainE$0"));
+		assertEquals("", getTypeName("Z4mainE.0"));
+	}
+
+	@Test
+	public void nonAsciiTest() throws Exception {
+		initialize();
+		assertEquals("", getTypeName("N3féo3barE"));
+		assertEquals("", getTypeName(new byte[] { 'N', (byte) 0x80, 'E', 0 }));
+		assertEquals("", getTypeName(new byte[] { 'N', (byte) 0xff, 'E', 0 }));
+	}
+
+	@Test
+	public void readBoundaryTest() throws Exception {
+		initialize();
+		for (int length : new int[] { READ_SIZE - 1, READ_SIZE, READ_SIZE + 1, 3 * READ_SIZE }) {
+			String name = getName('a', length);
+			assertEquals("length " + length, name, getTypeName(name));
+		}
+		// an invalid character after the first read
+		assertEquals("", getTypeName(getName('a', READ_SIZE + 8) + "-"));
+	}
+
+	@Test
+	public void unterminatedTest() throws Exception {
+		initialize();
+		long end = NAME_BASE + NAME_BLOCK_SIZE;
+		// terminated by the last byte of the block
+		byte[] name = terminated("N3foo3barE");
+		assertEquals("N3foo3barE", getTypeName(end - name.length, name));
+		name = "N3bar3fooE".getBytes(StandardCharsets.US_ASCII);
+		assertEquals("", getTypeName(end - name.length, name));
+	}
+}